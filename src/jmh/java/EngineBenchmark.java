@@ -0,0 +1,71 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// One request through each engine against an in-process StubTargetServer with no latency, the
+// way the load test sends it. With -t 1 the score is the most requests per second one sending
+// thread can produce on this machine; -prof gc adds allocation per request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+    @Param({"APACHE_POOLED", "JAVA_ASYNC"})
+    public LoadTest.RequestEngineType engine;
+
+    private StubTargetServer server;
+    private RequestTemplate template;
+    private RequestEngine requestEngine;
+
+    // Each sending thread records into its own result, like a user of the closed model
+    @State(Scope.Thread)
+    public static class Sender {
+        final ResponseDetails details = new ResponseDetails();
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new StubTargetServer(0, 0);
+        server.start();
+        template = RequestTemplate.compile(server.getUrl(), "GET", "Accept: application/json", "", "");
+        // Enough pooled connections for any -t
+        int concurrency = 256;
+        requestEngine = engine == LoadTest.RequestEngineType.JAVA_ASYNC
+                ? new AsyncHttpEngine(Runtime.getRuntime().availableProcessors(), RequestTimeouts.defaults(), template)
+                : new PooledHttpEngine(ConnectionPoolSettings.defaults(), RequestTimeouts.defaults(), concurrency,
+                        concurrency, template);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestEngine.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int send(Sender sender) {
+        requestEngine.execute(0, template, null, sender.details);
+        return sender.details.getStatusCode();
+    }
+
+    // A new result and future per request, the way a non-blocking engine answers; next to send()
+    // under -prof gc it shows what recording into one reused result saves
+    @Benchmark
+    public int sendForResult() {
+        return requestEngine.send(0, template, null).join().getStatusCode();
+    }
+}
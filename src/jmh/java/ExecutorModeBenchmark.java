@@ -0,0 +1,101 @@
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// The same closed-model run in platform-thread and virtual-thread mode against a local stub. Each
+// user sends one request a second, so the score is the run's length: durationSeconds while the
+// generator keeps up, longer once it falls behind. The counters add the requests sent, the p99 and
+// the peak thread count; -prof gc adds the heap. Platform threads usually fail first, with "unable
+// to create native thread", at a few thousand users.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ExecutorModeBenchmark {
+    @Param({"PLATFORM", "VIRTUAL"})
+    public LoadTest.ExecutorMode mode;
+
+    @Param({"5000"})
+    public int users;
+
+    @Param({"100"})
+    public long stubLatencyMillis;
+
+    @Param({"5"})
+    public int durationSeconds;
+
+    private StubTargetServer server;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long requests;
+        public long p99Micros;
+        public long peakThreads;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            requests = 0;
+            p99Micros = 0;
+            peakThreads = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new StubTargetServer(0, stubLatencyMillis);
+        server.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public LoadTestResult run(Counters counters) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        LoadTest loadTest = new LoadTest();
+        // Ramp-up time doubles as the run length: loopCount * requestsPerSecond * rampUpTime requests per user
+        loadTest.configure(server.getUrl(), users, durationSeconds, 1, 1,
+                Files.createTempDirectory("executor-benchmark").toString(), "", "", "GET", "");
+        loadTest.configureExecutorMode(mode);
+
+        LoadTestResult[] result = new LoadTestResult[1];
+        loadTest.runTest(new LoadTest.TestProgressCallback() {
+            @Override
+            public void onProgress(String message) {
+            }
+
+            @Override
+            public void onComplete(LoadTestResult testResult) {
+                result[0] = testResult;
+            }
+        });
+        counters.requests = result[0].getTotalRequests();
+        counters.p99Micros = result[0].getResponseTimes().getValueAtPercentile(99);
+        counters.peakThreads = threads.getPeakThreadCount();
+        return result[0];
+    }
+}
@@ -0,0 +1,100 @@
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The data side of LoadTestGUI.updateResults for a run of ReportBenchmark.SAMPLES requests:
+// chart datasets, the request table model with its sort and filter, and one screen of cells.
+// No Swing components are created, so this runs headless.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GuiResultsBenchmark {
+    private static final String[] LABELS = {"p50", "p90", "p99", "p99.9", "max"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+    private static final int VISIBLE_ROWS = 40;
+
+    private Path directory;
+    private LoadTestResult result;
+    private ResultTableModel tableModel;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("gui-benchmark");
+        result = ReportBenchmark.generateRun(directory.resolve(LoadTest.RESULT_LOG_FILE), ReportBenchmark.SAMPLES);
+        tableModel = new ResultTableModel();
+        tableModel.setColumns(result.getRequestResults());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve(LoadTest.RESULT_LOG_FILE));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public DefaultCategoryDataset[] chartData() {
+        LatencyHistogram responseTimes = result.getResponseTimes();
+        LatencyHistogram correctedResponseTimes = result.getCorrectedResponseTimes();
+        DefaultCategoryDataset responseTimeDataset = new DefaultCategoryDataset();
+        DefaultCategoryDataset throughputDataset = new DefaultCategoryDataset();
+        for (int i = 0; i < LABELS.length; i++) {
+            responseTimeDataset.addValue(responseTimes.getValueAtPercentile(PERCENTILES[i]) / 1000.0,
+                    "Response Time", LABELS[i]);
+            responseTimeDataset.addValue(correctedResponseTimes.getValueAtPercentile(PERCENTILES[i]) / 1000.0,
+                    "Corrected Response Time", LABELS[i]);
+        }
+        for (Map.Entry<Integer, Long> entry : result.getCompletedPerSecond().entrySet()) {
+            throughputDataset.addValue(entry.getValue(), "Throughput", String.valueOf(entry.getKey()));
+        }
+        return new DefaultCategoryDataset[]{responseTimeDataset, throughputDataset};
+    }
+
+    // What the table does when a run completes: completion order, nothing to sort
+    @Benchmark
+    public int setColumns() {
+        tableModel.setColumns(result.getRequestResults());
+        return tableModel.getRowCount();
+    }
+
+    // Alternates ascending and descending, a full sort either way
+    @Benchmark
+    public int sortByResponseTime() {
+        tableModel.toggleSort(ResultTableModel.RESPONSE_TIME_COLUMN);
+        return tableModel.getRowCount();
+    }
+
+    @Benchmark
+    public int filterErrors() {
+        tableModel.setFilter(ResultTableModel.StatusFilter.ERRORS, ResultTableModel.StatusClass.ALL, 0, Long.MAX_VALUE);
+        return tableModel.getRowCount();
+    }
+
+    @Benchmark
+    public Object visibleCells() {
+        Object last = null;
+        for (int row = 0; row < VISIBLE_ROWS; row++) {
+            for (int column = 0; column < tableModel.getColumnCount(); column++) {
+                last = tableModel.getValueAt(row, column);
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,102 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Report generation once a run of SAMPLES requests is over: the summary sections from the
+// aggregates, and the detailed report and a rebuilt summary streamed from the result log
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBenchmark {
+    static final int SAMPLES = 1_000_000;
+
+    private Path directory;
+    private LoadTestResult result;
+    private ResultLogReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("report-benchmark");
+        result = generateRun(directory.resolve(LoadTest.RESULT_LOG_FILE), SAMPLES);
+        reader = new ResultLogReader(directory.resolve(LoadTest.RESULT_LOG_FILE));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve(LoadTest.RESULT_LOG_FILE));
+        Files.deleteIfExists(directory.resolve("detailed_report.txt"));
+        Files.deleteIfExists(directory);
+    }
+
+    // SAMPLES requests from 100 users over about 17 minutes, 2% of them failed
+    static LoadTestResult generateRun(Path logPath, int samples) throws IOException {
+        Random random = new Random(42);
+        long testStartTime = System.currentTimeMillis();
+        LatencyHistogram responseTimes = new LatencyHistogram();
+        LatencyHistogram correctedResponseTimes = new LatencyHistogram();
+        TransferStats transferStats = new TransferStats();
+        ResultColumns requestResults = new ResultColumns(samples);
+        SortedMap<Integer, Long> completedPerSecond = new TreeMap<>();
+        ResponseDetails details = new ResponseDetails();
+        long failed = 0;
+        try (ResultLogWriter log = new ResultLogWriter(logPath, testStartTime, "Test Configuration:\n", 1000)) {
+            for (int i = 0; i < samples; i++) {
+                long completedMicros = i * 1000L;
+                long responseMicros = (long) (Math.exp(random.nextGaussian() * 0.6 + 9) + 200);
+                boolean success = random.nextInt(50) != 0;
+                int statusCode = success ? 200 : 503;
+                details.reset().respond(statusCode);
+                details.setTransfer(180, 1_450);
+                details.setPhases(-1, -1, responseMicros * 900, responseMicros * 1000);
+                responseTimes.recordValue(responseMicros);
+                correctedResponseTimes.recordValue(responseMicros + random.nextInt(500));
+                transferStats.record(details);
+                requestResults.append(statusCode, success, responseMicros, testStartTime + completedMicros / 1000);
+                completedPerSecond.merge((int) (completedMicros / 1_000_000), 1L, Long::sum);
+                log.append(completedMicros, i % 100 + 1, statusCode, success, responseMicros, responseMicros, details);
+                failed += success ? 0 : 1;
+            }
+        }
+        return new LoadTestResult(testStartTime, samples, samples, samples - failed, failed, responseTimes,
+                correctedResponseTimes, completedPerSecond, requestResults, new TreeMap<>(), transferStats,
+                new ErrorBreakdown());
+    }
+
+    @Benchmark
+    public String summarySections() {
+        StringBuilder report = new StringBuilder();
+        LoadTest.appendResultSections(report, result);
+        return report.toString();
+    }
+
+    @Benchmark
+    public Path detailedReport() throws IOException {
+        Path path = directory.resolve("detailed_report.txt");
+        reader.writeDetailedReport(path, result.getDuration());
+        return path;
+    }
+
+    @Benchmark
+    public LoadTestResult rebuildFromLog() throws IOException {
+        return reader.rebuildResult();
+    }
+}
@@ -0,0 +1,62 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Header parsing when a test is configured, and the per-request cost of filling in ${...}
+// placeholders, which is paid on the hot path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTemplateBenchmark {
+    private static final String URL = "http://127.0.0.1:8080/api/orders?page=1";
+    private static final String HEADERS = String.join("\n",
+            "Content-Type: application/json",
+            "Accept: application/json",
+            "X-Request-Source: load-test",
+            "X-Tenant: acme",
+            "Cache-Control: no-cache",
+            "Accept-Language: en-US",
+            "X-Trace: on",
+            "X-Client-Version: 1.2.3");
+    private static final String BODY = "{\"item\":\"book\",\"quantity\":2}";
+
+    private RequestTemplate parameterized;
+    private TemplateVariables variables;
+    private TemplateVariables.Bindings bindings;
+
+    @Setup
+    public void setUp() {
+        variables = new TemplateVariables();
+        variables.addUserVariable("token", 1);
+        variables.addUserVariable("orderId", 1);
+        variables.set(0, variables.slotOf("token"), "eyJhbGciOiJIUzI1NiJ9.abc.def".getBytes(StandardCharsets.UTF_8));
+        variables.set(0, variables.slotOf("orderId"), "12345".getBytes(StandardCharsets.UTF_8));
+        parameterized = RequestTemplate.compile(URL + "&order=${orderId}", "POST",
+                HEADERS + "\nAuthorization: Bearer ${token}", "{\"order\":\"${orderId}\"}", "")
+                .withVariables(variables);
+    }
+
+    @Benchmark
+    public RequestTemplate compile() {
+        return RequestTemplate.compile(URL, "POST", HEADERS, BODY, "Bearer abc");
+    }
+
+    @Benchmark
+    public RequestTemplate bind() {
+        bindings = variables.rebind(bindings, 0);
+        return parameterized.bind(bindings);
+    }
+}
@@ -0,0 +1,100 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Reading a response body the way PooledHttpEngine does without rules, into a shared buffer,
+// against streaming it through a reused ResponseCheck, in-process so only the check's CPU
+// cost is measured; -prof gc adds allocation per request.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseCheckBenchmark {
+    private static final String RULES = String.join("\n",
+            "status 200-299",
+            "json $.status == \"ok\"",
+            "body not contains \"\\\"error\\\"\"",
+            "extract token json $.session.token");
+    // Same size as PooledHttpEngine's read buffer
+    private static final int CHUNK = 8192;
+
+    @Param({"1", "64"})
+    public int bodyKilobytes;
+
+    private byte[] body;
+    private final byte[] buffer = new byte[CHUNK];
+    private final ResponseDetails details = new ResponseDetails();
+    private ResponseRules rules;
+    private TemplateVariables variables;
+    private ResponseCheck check;
+
+    @Setup
+    public void setUp() {
+        body = buildBody(bodyKilobytes * 1024);
+        rules = ResponseRules.parse(RULES);
+        variables = new TemplateVariables();
+        for (String name : rules.getExtractedNames()) {
+            variables.addUserVariable(name, 1);
+        }
+    }
+
+    @Benchmark
+    public long noCheck() {
+        return drain(null);
+    }
+
+    @Benchmark
+    public String rules() {
+        check = rules.reuseCheck(check);
+        check.onHeaders(name -> null);
+        drain(check);
+        String failure = check.complete(details.reset().respond(200), variables, 0).getAssertionFailure();
+        if (failure != null) {
+            throw new IllegalStateException("Unexpected failure: " + failure);
+        }
+        return failure;
+    }
+
+    // Chunk by chunk through the buffer, like PooledHttpEngine.consume reading the socket
+    private long drain(ResponseCheck check) {
+        long bytes = 0;
+        for (int offset = 0; offset < body.length; offset += CHUNK) {
+            int read = Math.min(CHUNK, body.length - offset);
+            System.arraycopy(body, offset, buffer, 0, read);
+            bytes += read;
+            if (check != null) {
+                check.onBody(buffer, 0, read);
+            }
+        }
+        return bytes;
+    }
+
+    // A JSON document with the asserted fields at the end, so every byte has to be looked at
+    private static byte[] buildBody(int size) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        int item = 0;
+        while (json.length() < size - 100) {
+            if (item > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(item).append(",\"name\":\"item ").append(item)
+                    .append("\",\"tags\":[\"a\",\"b\"],\"price\":").append(item * 1.5).append('}');
+            item++;
+        }
+        json.append("],\"session\":{\"token\":\"abc123\"},\"status\":\"ok\"}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
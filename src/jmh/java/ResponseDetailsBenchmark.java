@@ -0,0 +1,90 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// The load test's recording path for one response, in-process so the HTTP client's own garbage
+// is left out: the check reads the headers and body, the result is filled in and then recorded
+// into the histograms, transfer and error counts and result columns. reuse=false builds a new
+// result and check per request, as every open-model request on a virtual thread did; reuse=true
+// resets the sender's, as every sender now does. Run with -prof gc for the allocation per request.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseDetailsBenchmark {
+    private static final String RULES = String.join("\n",
+            "status 200-299",
+            "header Content-Type",
+            "json $.status == \"ok\"",
+            "body not contains \"\\\"error\\\"\"");
+    private static final byte[] BODY = "{\"status\":\"ok\",\"items\":[1,2,3],\"total\":3}"
+            .getBytes(StandardCharsets.UTF_8);
+    // One chunk of rows; later rows are only counted, so a long run does not measure heap growth
+    private static final int RESULT_ROWS = 1 << 16;
+
+    @Param({"false", "true"})
+    public boolean reuse;
+
+    private ResponseRules rules;
+    private TemplateVariables variables;
+    private LatencyHistogram responseTimes;
+    private LatencyHistogram correctedResponseTimes;
+    private TransferStats transferStats;
+    private ErrorBreakdown errorBreakdown;
+    private ResultColumns results;
+    private final ResponseDetails details = new ResponseDetails();
+    private ResponseCheck check;
+    private long completedMillis;
+
+    @Setup
+    public void setUp() {
+        rules = ResponseRules.parse(RULES);
+        variables = new TemplateVariables();
+        responseTimes = new LatencyHistogram();
+        correctedResponseTimes = new LatencyHistogram();
+        transferStats = new TransferStats();
+        errorBreakdown = new ErrorBreakdown();
+        results = new ResultColumns(RESULT_ROWS);
+    }
+
+    @Benchmark
+    public boolean record() {
+        ResponseDetails result;
+        if (reuse) {
+            check = rules.reuseCheck(check);
+            result = details.reset();
+        } else {
+            check = rules.newCheck();
+            result = new ResponseDetails();
+        }
+        check.onHeaders(name -> name.equalsIgnoreCase("Content-Type") ? "application/json" : null);
+        check.onBody(BODY, 0, BODY.length);
+        result.respond(200);
+        result.setTransfer(120, BODY.length);
+        result.setPhases(0, 0, 180_000, 210_000);
+        check.complete(result, variables, 0);
+
+        long responseMicros = 210;
+        String failure = rules.evaluate(result.getStatusCode(), responseMicros, result.getAssertionFailure());
+        boolean success = failure == null;
+        responseTimes.recordValue(responseMicros);
+        correctedResponseTimes.recordValue(responseMicros + 40);
+        transferStats.record(result);
+        errorBreakdown.record(result.getError(), result.getStatusCode(), responseMicros);
+        results.append(result.getStatusCode(), success, responseMicros, ++completedMillis);
+        return success;
+    }
+}
@@ -0,0 +1,131 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// What recording one completed request costs: the steps of LoadTest.recordResponse on shared
+// aggregates, with a consumer draining the progress ring the way ProgressAggregator does. Run
+// with -t to see how the shared counters hold up under contention.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultRecordingBenchmark {
+    // Off leaves out the memory-mapped result log, which is the only step that touches a file
+    @Param({"true", "false"})
+    public boolean resultLog;
+
+    private LatencyHistogram responseTimes;
+    private LatencyHistogram correctedResponseTimes;
+    private TransferStats transferStats;
+    private ResultColumns requestResults;
+    private ProgressEventRing progressRing;
+    private Thread drainer;
+    private volatile boolean draining;
+    private Path logDirectory;
+    private ResultLogWriter log;
+    private long testStartNanos;
+
+    // Each recording thread reports the same response, like one virtual user
+    @State(Scope.Thread)
+    public static class Response {
+        final ResponseDetails details = new ResponseDetails();
+        // What the load test measures around the engine call
+        final long responseMicros = 2_400;
+        long requestNumber;
+
+        @Setup
+        public void setUp() {
+            details.respond(200);
+            details.setTransfer(180, 1_450);
+            details.setPhases(-1, -1, 2_100_000, 2_400_000);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        responseTimes = new LatencyHistogram();
+        correctedResponseTimes = new LatencyHistogram();
+        transferStats = new TransferStats();
+        // Past its row limit the table only counts, as it does late in a long run
+        requestResults = new ResultColumns(1_000_000);
+        progressRing = new ProgressEventRing(1 << 16);
+        draining = true;
+        drainer = new Thread(() -> {
+            ProgressEventRing.EventHandler discard = (user, request, status, passed, completed, response, corrected) -> {
+            };
+            while (draining) {
+                if (progressRing.drain(discard) == 0) {
+                    LockSupport.parkNanos(1_000_000);
+                }
+            }
+        }, "progress-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        logDirectory = Files.createTempDirectory("recording-benchmark");
+        testStartNanos = System.nanoTime();
+    }
+
+    // A fresh log per iteration keeps the file from growing across the whole run
+    @Setup(Level.Iteration)
+    public void openLog() throws IOException {
+        if (resultLog) {
+            log = new ResultLogWriter(logDirectory.resolve("results.bin"), System.currentTimeMillis(),
+                    "Test Configuration:\n", 1000);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            Files.deleteIfExists(log.getPath());
+            log = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        draining = false;
+        drainer.join();
+        Files.deleteIfExists(logDirectory);
+    }
+
+    @Benchmark
+    public boolean record(Response response) {
+        ResponseDetails details = response.details;
+        long completedNanos = System.nanoTime();
+        long responseMicros = response.responseMicros;
+        long correctedMicros = responseMicros + 150;
+        int statusCode = details.getStatusCode();
+        boolean success = ResponseRules.DEFAULT.evaluate(statusCode, responseMicros, details.getAssertionFailure()) == null;
+
+        responseTimes.recordValue(responseMicros);
+        correctedResponseTimes.recordValue(correctedMicros);
+        transferStats.record(details);
+        requestResults.append(statusCode, success, responseMicros, System.currentTimeMillis());
+        if (log != null) {
+            log.append((completedNanos - testStartNanos) / 1000, 1, statusCode, success, responseMicros,
+                    correctedMicros, details);
+        }
+        return progressRing.offer(1, ++response.requestNumber, statusCode, success, completedNanos, responseMicros,
+                correctedMicros);
+    }
+}
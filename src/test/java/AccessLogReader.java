@@ -0,0 +1,188 @@
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Streams requests out of an access log, one line at a time, for replay against another host.
+// Common and combined log format lines look like
+//   127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] "GET /a.gif?x=1 HTTP/1.0" 200 2326 "ref" "agent"
+// and JSONL lines like
+//   {"timestamp": "2024-05-01T10:00:00.125Z", "method": "POST", "path": "/login", "body": {...}}
+// where timestamp is ISO-8601 or epoch milliseconds, and url may be given instead of path.
+// Only the path and query are replayed; scheme, host and port come from the target URL.
+public class AccessLogReader implements Closeable {
+    public enum Format {
+        AUTO,
+        COMMON,
+        JSONL
+    }
+
+    // One replayable request and when it originally arrived
+    public static class Entry {
+        private final long timestampMicros;
+        private final RequestTemplate template;
+
+        Entry(long timestampMicros, RequestTemplate template) {
+            this.timestampMicros = timestampMicros;
+            this.template = template;
+        }
+
+        // epoch microseconds
+        public long getTimestampMicros() {
+            return timestampMicros;
+        }
+
+        public RequestTemplate getTemplate() {
+            return template;
+        }
+    }
+
+    private static final Pattern COMMON_LOG_LINE = Pattern.compile(
+            "^\\S+ \\S+ \\S+ \\[([^\\]]+)\\] \"(\\S+) (\\S+)[^\"]*\" \\S+ \\S+(?: \"([^\"]*)\" \"([^\"]*)\")?.*$");
+    private static final DateTimeFormatter COMMON_LOG_TIME =
+            DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+    private final Path path;
+    private final BufferedReader reader;
+    private final String targetBase;
+    private final String authHeader;
+    private Format format;
+    private long lineNumber = 0;
+    private long skippedLines = 0;
+    // Log timestamps have one-second resolution and repeat for every request in that second
+    private String lastTimeText;
+    private long lastTimeMicros;
+
+    public AccessLogReader(Path path, Format format, String targetUrl, String authHeader) throws IOException {
+        URI target = URI.create(targetUrl);
+        if (target.getScheme() == null || target.getRawAuthority() == null) {
+            throw new IllegalArgumentException("Replay target must be an absolute URL: " + targetUrl);
+        }
+        this.path = path;
+        this.format = format;
+        this.targetBase = target.getScheme() + "://" + target.getRawAuthority();
+        this.authHeader = authHeader;
+        this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    // The next replayable request in file order, or null at the end of the file. Lines that
+    // cannot be parsed or use a method the engines do not send are skipped and counted.
+    public Entry next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (ScenarioLoader.isSkippable(line)) {
+                continue;
+            }
+            if (format == Format.AUTO) {
+                format = line.trim().startsWith("{") ? Format.JSONL : Format.COMMON;
+            }
+            Entry entry;
+            try {
+                entry = format == Format.JSONL ? parseJsonLine(line) : parseCommonLine(line);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                entry = null;
+            }
+            if (entry != null) {
+                return entry;
+            }
+            skippedLines++;
+        }
+        return null;
+    }
+
+    private Entry parseCommonLine(String line) {
+        Matcher matcher = COMMON_LOG_LINE.matcher(line);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String timeText = matcher.group(1);
+        if (!timeText.equals(lastTimeText)) {
+            lastTimeMicros = OffsetDateTime.parse(timeText, COMMON_LOG_TIME).toInstant().toEpochMilli() * 1000;
+            lastTimeText = timeText;
+        }
+
+        // The combined format adds referer and user agent, which are sent along when present
+        StringBuilder headers = new StringBuilder();
+        appendHeader(headers, "Referer", matcher.group(4));
+        appendHeader(headers, "User-Agent", matcher.group(5));
+        RequestTemplate template = RequestTemplate.compile(targetUrl(matcher.group(3)), matcher.group(2),
+                headers.toString(), "", authHeader, null, false);
+        return template.getUri() == null ? null : new Entry(lastTimeMicros, template);
+    }
+
+    private static void appendHeader(StringBuilder headers, String name, String value) {
+        if (value != null && !value.isEmpty() && !value.equals("-")) {
+            headers.append(name).append(": ").append(value).append("\n");
+        }
+    }
+
+    private Entry parseJsonLine(String line) {
+        JSONObject spec = ScenarioLoader.parseLine(line, lineNumber);
+        Object timestamp = spec.opt("timestamp");
+        long timestampMicros;
+        if (timestamp instanceof Number) {
+            timestampMicros = ((Number) timestamp).longValue() * 1000;
+        } else if (timestamp != null) {
+            Instant instant = Instant.parse(timestamp.toString());
+            timestampMicros = instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1000;
+        } else {
+            return null;
+        }
+
+        String target = spec.optString("path", "");
+        if (target.isEmpty()) {
+            target = spec.optString("url", "");
+        }
+        if (target.isEmpty()) {
+            return null;
+        }
+        spec.put("url", targetUrl(target));
+        // Logged traffic is replayed as it was, a "${" in it is not a placeholder
+        RequestTemplate template = ScenarioLoader.parseTemplate(spec, lineNumber, authHeader, false, null);
+        return template.getUri() == null ? null : new Entry(timestampMicros, template);
+    }
+
+    // Path and query of the logged request on the replay target
+    private String targetUrl(String loggedTarget) {
+        if (loggedTarget.startsWith("/")) {
+            return targetBase + loggedTarget;
+        }
+        URI logged = URI.create(loggedTarget);
+        String pathAndQuery = logged.getRawPath() == null || logged.getRawPath().isEmpty() ? "/" : logged.getRawPath();
+        if (logged.getRawQuery() != null) {
+            pathAndQuery += "?" + logged.getRawQuery();
+        }
+        return targetBase + pathAndQuery;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // The format detected from the first line when the reader was opened with AUTO
+    public Format getFormat() {
+        return format;
+    }
+
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
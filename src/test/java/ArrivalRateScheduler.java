@@ -0,0 +1,165 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+public class ArrivalRateScheduler {
+    // A dispatch this far behind its slot counts as late
+    private static final long LATE_THRESHOLD_NANOS = 1_000_000;
+    // A waiting dispatcher checks for a stop, and asks a changing schedule again, this often, so
+    // both apply at once
+    private static final long RESCHEDULE_NANOS = 100_000_000;
+
+    public interface ArrivalTask {
+        // The request counts as in flight until the returned future completes
+        CompletableFuture<?> run(long requestIndex, long intendedStartNanos);
+    }
+
+    // When arrivals are due under a rate that changes while the test runs
+    public interface ArrivalSchedule {
+        // Nanoseconds from the start of the schedule to the arrival after the one due at
+        // previousNanos, -1 once the schedule has ended
+        long nextArrivalNanos(long previousNanos);
+    }
+
+    private final double arrivalRatePerSecond;
+    private final ArrivalSchedule schedule;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger peakInFlight = new AtomicInteger(0);
+    private final AtomicLong dispatched = new AtomicLong(0);
+    private final AtomicLong lateDispatches = new AtomicLong(0);
+    private final AtomicLong droppedRequests = new AtomicLong(0);
+    private volatile long maxDispatchLagNanos = 0;
+
+    public ArrivalRateScheduler(double arrivalRatePerSecond, int maxInFlight) {
+        if (arrivalRatePerSecond <= 0) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + arrivalRatePerSecond);
+        }
+        this.arrivalRatePerSecond = arrivalRatePerSecond;
+        this.schedule = null;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // Dispatches until the schedule ends rather than for a number of requests
+    public ArrivalRateScheduler(ArrivalSchedule schedule, int maxInFlight) {
+        this.arrivalRatePerSecond = 0;
+        this.schedule = schedule;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // Dispatches totalRequests tasks on a fixed schedule, or as many as a changing schedule has,
+    // independent of how long each one takes. Runs on the calling thread and returns once the last
+    // slot has been dispatched or dropped.
+    public void run(long totalRequests, Executor workers, BooleanSupplier shouldStop, ArrivalTask task) {
+        long scheduleStart = System.nanoTime();
+        double periodNanos = schedule == null ? 1_000_000_000.0 / arrivalRatePerSecond : 0;
+        long previousOffset = -1;
+
+        for (long i = 0; i < totalRequests; i++) {
+            // Slots are computed from the start time, so a late dispatch never shifts the ones after it
+            long offset = schedule == null ? (long) (i * periodNanos) : schedule.nextArrivalNanos(previousOffset);
+            long now;
+            while (offset >= 0 && (now = System.nanoTime()) < scheduleStart + offset) {
+                LockSupport.parkNanos(Math.min(scheduleStart + offset - now, RESCHEDULE_NANOS));
+                if (shouldStop.getAsBoolean()) {
+                    break;
+                }
+                if (schedule != null) {
+                    offset = schedule.nextArrivalNanos(previousOffset);
+                }
+            }
+            if (offset < 0 || shouldStop.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            previousOffset = offset;
+            long intendedStart = scheduleStart + offset;
+            now = System.nanoTime();
+
+            long lag = now - intendedStart;
+            if (lag > LATE_THRESHOLD_NANOS) {
+                lateDispatches.incrementAndGet();
+            }
+            if (lag > maxDispatchLagNanos) {
+                maxDispatchLagNanos = lag;
+            }
+
+            // Drop instead of queueing so a stalled target cannot pile up unbounded work
+            if (inFlight.get() >= maxInFlight) {
+                droppedRequests.incrementAndGet();
+                continue;
+            }
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            dispatched.incrementAndGet();
+
+            final long requestIndex = i;
+            try {
+                workers.execute(() -> {
+                    CompletableFuture<?> completion;
+                    try {
+                        completion = task.run(requestIndex, intendedStart);
+                    } catch (RuntimeException e) {
+                        inFlight.decrementAndGet();
+                        throw e;
+                    }
+                    // Blocking engines hand back a future that is already done
+                    if (completion.isDone()) {
+                        inFlight.decrementAndGet();
+                    } else {
+                        completion.whenComplete((result, error) -> inFlight.decrementAndGet());
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    // Waits for dispatched requests to finish; returns false if some are still in flight at the deadline
+    public boolean awaitCompletion(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.parkNanos(1_000_000);
+        }
+        return true;
+    }
+
+    public double getArrivalRatePerSecond() {
+        return arrivalRatePerSecond;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public long getDispatched() {
+        return dispatched.get();
+    }
+
+    public long getLateDispatches() {
+        return lateDispatches.get();
+    }
+
+    public long getDroppedRequests() {
+        return droppedRequests.get();
+    }
+
+    public long getMaxDispatchLagNanos() {
+        return maxDispatchLagNanos;
+    }
+}
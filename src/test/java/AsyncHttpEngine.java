@@ -0,0 +1,238 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Non-blocking engine on java.net.http.HttpClient: a few I/O threads drive every in-flight request
+public class AsyncHttpEngine implements RequestEngine {
+    // java.net.http manages these itself and rejects them on a request
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+    // "User-Agent: Java-http-client/<version>\r\n", added to every request by the client
+    private static final int USER_AGENT_LINE_LENGTH = 12 + 17 + System.getProperty("java.version").length() + 2;
+
+    private final int ioThreads;
+    private final ExecutorService ioExecutor;
+    private final HttpClient httpClient;
+    private final RequestTemplate defaultTemplate;
+    private final HttpRequest defaultRequest;
+    // Until the response headers are in; null for no limit
+    private final Duration readTimeout;
+    private final ConcurrentHashMap<RequestTemplate, HttpRequest> requests = new ConcurrentHashMap<>();
+
+    public AsyncHttpEngine(int ioThreads, RequestTimeouts timeouts, RequestTemplate template) {
+        this.ioThreads = Math.max(1, ioThreads);
+        this.readTimeout = timeouts.getReadTimeoutMillis() > 0 ? Duration.ofMillis(timeouts.getReadTimeoutMillis()) : null;
+
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        this.ioExecutor = Executors.newFixedThreadPool(this.ioThreads, r -> {
+            Thread thread = new Thread(r, "async-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // HTTP/1.1 keeps results comparable with the Apache engine
+        HttpClient.Builder client = HttpClient.newBuilder()
+                .executor(ioExecutor)
+                .version(HttpClient.Version.HTTP_1_1);
+        if (timeouts.getConnectTimeoutMillis() > 0) {
+            client.connectTimeout(Duration.ofMillis(timeouts.getConnectTimeoutMillis()));
+        }
+        this.httpClient = client.build();
+        // HttpRequest is immutable, so one instance serves every send of a template. A template with
+        // placeholders is only ever sent bound, as a new one-off template each time.
+        this.defaultTemplate = template.isParameterized() ? null : template;
+        this.defaultRequest = template.isParameterized() ? null : buildRequest(template);
+    }
+
+    @Override
+    public CompletableFuture<ResponseDetails> send(int userIndex, RequestTemplate template, ResponseCheck check) {
+        HttpRequest request;
+        try {
+            if (template == defaultTemplate) {
+                request = defaultRequest;
+            } else if (template.isReusable()) {
+                request = requests.computeIfAbsent(template, this::buildRequest);
+            } else {
+                request = buildRequest(template);
+            }
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseDetails.failed(RequestError.INVALID_REQUEST));
+        }
+        long startNanos = System.nanoTime();
+        long requestBytes = estimateRequestBytes(template);
+        return httpClient.sendAsync(request, responseInfo -> {
+                    // Called once the status line and headers are in
+                    long firstByteNanos = System.nanoTime() - startNanos;
+                    if (check != null) {
+                        check.onHeaders(name -> responseInfo.headers().firstValue(name).orElse(null));
+                    }
+                    ByteCountingSubscriber subscriber = new ByteCountingSubscriber(check, firstByteNanos,
+                            estimateHeaderBytes(responseInfo));
+                    return HttpResponse.BodySubscribers.fromSubscriber(subscriber, body -> body);
+                })
+                .handle((response, error) -> {
+                    if (error != null) {
+                        return ResponseDetails.failed(RequestError.classify(error));
+                    }
+                    // The connection is out of reach: bytes are estimated, leaving out chunk framing,
+                    // and connect and TLS handshake times stay unknown
+                    ByteCountingSubscriber body = response.body();
+                    long lastByteNanos = System.nanoTime() - startNanos;
+                    ResponseDetails details = new ResponseDetails().respond(response.statusCode());
+                    details.setTransfer(requestBytes, body.getHeaderBytes() + body.getBytes());
+                    details.setPhases(-1, -1, body.getFirstByteNanos(), lastByteNanos);
+                    return details;
+                });
+    }
+
+    // java.net.http does not expose the bytes it writes, so they are worked out from the request:
+    // request line, Host, the template's headers, the headers the client adds and the body
+    private static long estimateRequestBytes(RequestTemplate template) {
+        URI uri = template.getUri();
+        String path = uri.getRawPath();
+        String query = uri.getRawQuery();
+        long bytes = template.getMethod().name().length() + 1
+                + (path == null || path.isEmpty() ? 1 : path.length())
+                + (query == null ? 0 : query.length() + 1)
+                + " HTTP/1.1\r\n".length();
+        bytes += "Host: \r\n".length() + uri.getRawAuthority().length();
+        for (int i = 0; i < template.getHeaderCount(); i++) {
+            String name = template.getHeaderName(i);
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                bytes += name.length() + 2 + template.getHeaderValue(i).length() + 2;
+            }
+        }
+        bytes += USER_AGENT_LINE_LENGTH;
+        if (template.getMethod().hasBody()) {
+            int bodyLength = template.getBody() == null ? 0 : template.getBody().length;
+            bytes += "Content-Length: \r\n".length() + String.valueOf(bodyLength).length() + bodyLength;
+        }
+        return bytes + 2;
+    }
+
+    // Status line and headers as they would have been sent; the reason phrase is not kept and counts as empty
+    private static long estimateHeaderBytes(HttpResponse.ResponseInfo responseInfo) {
+        long bytes = "HTTP/1.1 200 \r\n".length() + 2;
+        for (Map.Entry<String, List<String>> header : responseInfo.headers().map().entrySet()) {
+            for (String value : header.getValue()) {
+                bytes += header.getKey().length() + 2 + value.length() + 2;
+            }
+        }
+        return bytes;
+    }
+
+    // Discards the body like BodyHandlers.discarding() but keeps its size, showing it to the
+    // response check on the way if there is one. Doubles as the response body, carrying what was
+    // measured when the headers arrived.
+    private static class ByteCountingSubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+        private final ResponseCheck check;
+        private final long firstByteNanos;
+        private final long headerBytes;
+        private long bytes;
+
+        ByteCountingSubscriber(ResponseCheck check, long firstByteNanos, long headerBytes) {
+            this.check = check;
+            this.firstByteNanos = firstByteNanos;
+            this.headerBytes = headerBytes;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                if (check != null) {
+                    check.onBody(buffer);
+                }
+                bytes += buffer.remaining();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        long getFirstByteNanos() {
+            return firstByteNanos;
+        }
+
+        long getHeaderBytes() {
+            return headerBytes;
+        }
+    }
+
+    private HttpRequest buildRequest(RequestTemplate template) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(template.getUri());
+        if (readTimeout != null) {
+            request.timeout(readTimeout);
+        }
+
+        // Create request based on HTTP method
+        switch (template.getMethod()) {
+            case GET:
+                request.GET();
+                break;
+            case POST:
+                request.POST(HttpRequest.BodyPublishers.ofByteArray(template.getBody()));
+                break;
+            case PUT:
+                request.PUT(HttpRequest.BodyPublishers.ofByteArray(template.getBody()));
+                break;
+            case PATCH:
+                request.method("PATCH", HttpRequest.BodyPublishers.ofByteArray(template.getBody()));
+                break;
+            case DELETE:
+                request.DELETE();
+                break;
+            case HEAD:
+                request.HEAD();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported HTTP method: " + template.getMethod());
+        }
+
+        for (int i = 0; i < template.getHeaderCount(); i++) {
+            if (!RESTRICTED_HEADERS.contains(template.getHeaderName(i).toLowerCase())) {
+                request.setHeader(template.getHeaderName(i), template.getHeaderValue(i));
+            }
+        }
+        return request.build();
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "java.net.http HttpClient (async, " + ioThreads + " I/O threads)";
+    }
+
+    @Override
+    public void close() {
+        httpClient.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,79 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Text with ${name} placeholders, split once into UTF-8 literal segments and variable slots:
+//   literal[0] slot[0] literal[1] slot[1] ... literal[n]
+// Rendering sizes the output exactly and copies bytes, without parsing or searching per request.
+public final class ByteTemplate {
+    private final byte[][] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private ByteTemplate(byte[][] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (byte[] literal : literals) {
+            length += literal.length;
+        }
+        this.literalLength = length;
+    }
+
+    // null when the text has no placeholders; an unknown variable name is an error
+    public static ByteTemplate compile(String text, TemplateVariables variables) {
+        if (text == null || !text.contains("${")) {
+            return null;
+        }
+        List<byte[]> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int position = 0;
+        int open;
+        while ((open = text.indexOf("${", position)) >= 0) {
+            int close = text.indexOf('}', open + 2);
+            if (close < 0) {
+                break;
+            }
+            String name = text.substring(open + 2, close).trim();
+            int slot = variables.slotOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown variable ${" + name + "}");
+            }
+            literals.add(text.substring(position, open).getBytes(StandardCharsets.UTF_8));
+            slots.add(slot);
+            position = close + 1;
+        }
+        literals.add(text.substring(position).getBytes(StandardCharsets.UTF_8));
+        if (slots.isEmpty()) {
+            return null;
+        }
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new ByteTemplate(literals.toArray(new byte[0][]), slotArray);
+    }
+
+    public byte[] render(TemplateVariables.Bindings bindings) {
+        int length = literalLength;
+        for (int slot : slots) {
+            length += bindings.length(slot);
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < slots.length; i++) {
+            byte[] literal = literals[i];
+            System.arraycopy(literal, 0, result, offset, literal.length);
+            offset += literal.length;
+            offset = bindings.copy(slots[i], result, offset);
+        }
+        byte[] last = literals[slots.length];
+        System.arraycopy(last, 0, result, offset, last.length);
+        return result;
+    }
+
+    public String renderString(TemplateVariables.Bindings bindings) {
+        return new String(render(bindings), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+public class ConnectionPoolSettings {
+    // 0 means "size the pool to the number of users"
+    private final int maxConnectionsPerRoute;
+    private final int maxConnectionsTotal;
+    private final long keepAliveMillis;
+    private final long idleEvictionMillis;
+    private final boolean poolPerUser;
+
+    public ConnectionPoolSettings(int maxConnectionsPerRoute, int maxConnectionsTotal,
+                                  long keepAliveMillis, long idleEvictionMillis, boolean poolPerUser) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.keepAliveMillis = keepAliveMillis;
+        this.idleEvictionMillis = idleEvictionMillis;
+        this.poolPerUser = poolPerUser;
+    }
+
+    public static ConnectionPoolSettings defaults() {
+        return new ConnectionPoolSettings(0, 0, 30000, 10000, false);
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public long getIdleEvictionMillis() {
+        return idleEvictionMillis;
+    }
+
+    public boolean isPoolPerUser() {
+        return poolPerUser;
+    }
+}
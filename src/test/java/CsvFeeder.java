@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// CSV with a header row naming the variables. Every field's bounds are found when the file is
+// opened; unquoted values are then copied straight out of the mapped file. Quoted values may
+// contain the delimiter, line breaks are not supported.
+public final class CsvFeeder extends DataFeeder {
+    private final byte delimiter;
+    private final String[] columns;
+    // Per row and column, at row * columns + column: where the value starts and ends in the file
+    // and its length once "" inside quotes is unescaped. A quoted value without escapes has the
+    // same length as its bounds and is copied like an unquoted one.
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+    private final int[] fieldLengths;
+
+    public CsvFeeder(Path path, Mode mode, int users, byte delimiter) throws IOException {
+        super(path, mode, users);
+        this.delimiter = delimiter;
+        indexLines(1);
+        this.columns = readHeader();
+        long fields = (long) getRowCount() * columns.length;
+        if (fields > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Data file has more than " + Integer.MAX_VALUE + " values: " + path);
+        }
+        this.fieldStarts = new int[(int) fields];
+        this.fieldEnds = new int[(int) fields];
+        this.fieldLengths = new int[(int) fields];
+        for (int row = 0; row < getRowCount(); row++) {
+            scan(rowStart(row), row * columns.length);
+        }
+    }
+
+    private void scan(int position, int base) {
+        int limit = data.limit();
+        int count = columns.length;
+        for (int column = 0; column < count; column++) {
+            int field = base + column;
+            if (position < limit && data.get(position) == '"') {
+                // "" inside quotes is one quote character
+                int start = ++position;
+                int escapes = 0;
+                while (position < limit) {
+                    byte b = data.get(position);
+                    if (b == '"') {
+                        if (position + 1 < limit && data.get(position + 1) == '"') {
+                            escapes++;
+                            position += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    if (b == '\n') {
+                        break;
+                    }
+                    position++;
+                }
+                fieldStarts[field] = start;
+                fieldEnds[field] = position;
+                fieldLengths[field] = position - start - escapes;
+                while (position < limit && !isFieldEnd(data.get(position))) {
+                    position++;
+                }
+            } else {
+                int start = position;
+                while (position < limit && !isFieldEnd(data.get(position))) {
+                    position++;
+                }
+                fieldStarts[field] = start;
+                fieldEnds[field] = position;
+                fieldLengths[field] = position - start;
+            }
+            if (position < limit && data.get(position) == delimiter) {
+                position++;
+            } else {
+                // Missing trailing columns are empty
+                for (int rest = field + 1; rest < base + count; rest++) {
+                    fieldStarts[rest] = position;
+                    fieldEnds[rest] = position;
+                }
+                return;
+            }
+        }
+    }
+
+    private String[] readHeader() {
+        int limit = data.limit();
+        int position = 0;
+        // UTF-8 byte order mark
+        if (limit >= 3 && data.get(0) == (byte) 0xEF && data.get(1) == (byte) 0xBB && data.get(2) == (byte) 0xBF) {
+            position = 3;
+        }
+        while (position < limit && Character.isWhitespace(data.get(position))) {
+            position++;
+        }
+        int end = lineEnd(position);
+        byte[] line = new byte[end - position];
+        data.get(position, line);
+        String[] names = new String(line, StandardCharsets.UTF_8).split(delimiter == '\t' ? "\t" : ",", -1);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].trim();
+            if (names[i].length() >= 2 && names[i].startsWith("\"") && names[i].endsWith("\"")) {
+                names[i] = names[i].substring(1, names[i].length() - 1);
+            }
+            if (names[i].isEmpty()) {
+                throw new IllegalArgumentException("Empty column name " + (i + 1) + " in header of " + path);
+            }
+        }
+        return names;
+    }
+
+    private boolean isFieldEnd(byte b) {
+        return b == delimiter || b == '\n' || b == '\r';
+    }
+
+    @Override
+    public int length(int row, int column) {
+        return fieldLengths[row * columns.length + column];
+    }
+
+    @Override
+    public int copy(int row, int column, byte[] target, int offset) {
+        int field = row * columns.length + column;
+        int start = fieldStarts[field];
+        int length = fieldLengths[field];
+        if (fieldEnds[field] - start == length) {
+            data.get(start, target, offset, length);
+            return offset + length;
+        }
+        for (int position = start; position < fieldEnds[field]; position++) {
+            byte b = data.get(position);
+            target[offset++] = b;
+            if (b == '"') {
+                position++;
+            }
+        }
+        return offset;
+    }
+
+    @Override
+    public String[] getColumns() {
+        return columns.clone();
+    }
+}
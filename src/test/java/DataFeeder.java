@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Test data for ${...} placeholders, one row per request. The file is memory-mapped and indexed
+// once when it is opened; rows are then read in place by any number of threads, picking the next
+// row is a single atomic increment and nothing is allocated per row. Files are limited to 2 GB,
+// the size of one mapping.
+public abstract class DataFeeder {
+    public enum Mode {
+        // Each user walks its own stripe of rows: user u gets rows u, u + users, u + 2 * users, ...
+        PER_USER,
+        // All users share one cursor and take rows in file order
+        SHARED,
+        RANDOM
+    }
+
+    protected final Path path;
+    protected final MappedByteBuffer data;
+    private final Mode mode;
+    private final int users;
+    private int[] rowStarts;
+    private int rowCount;
+    private final AtomicLong sharedCursor = new AtomicLong(0);
+    private final AtomicLongArray userCursors;
+
+    protected DataFeeder(Path path, Mode mode, int users) throws IOException {
+        this.path = path;
+        this.mode = mode;
+        this.users = Math.max(1, users);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Data file larger than 2 GB: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.userCursors = mode == Mode.PER_USER ? new AtomicLongArray(this.users) : null;
+    }
+
+    // Opens a .csv (or .tsv) file with a header row, or a .jsonl file with one object per line
+    public static DataFeeder open(Path path, Mode mode, int users) throws IOException {
+        String fileName = path.getFileName().toString().toLowerCase();
+        DataFeeder feeder;
+        if (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson")) {
+            feeder = new JsonlFeeder(path, mode, users);
+        } else if (fileName.endsWith(".tsv")) {
+            feeder = new CsvFeeder(path, mode, users, (byte) '\t');
+        } else {
+            feeder = new CsvFeeder(path, mode, users, (byte) ',');
+        }
+        if (feeder.getRowCount() == 0) {
+            throw new IllegalArgumentException("Data file has no rows: " + path);
+        }
+        return feeder;
+    }
+
+    // Records where every non-blank line starts, skipping the first skipLines of them
+    protected void indexLines(int skipLines) {
+        int[] starts = new int[1024];
+        int count = 0;
+        int limit = data.limit();
+        int position = 0;
+        while (position < limit) {
+            int lineStart = position;
+            boolean blank = true;
+            byte b;
+            while (position < limit && (b = data.get(position)) != '\n') {
+                if (b != '\r' && b != ' ' && b != '\t') {
+                    blank = false;
+                }
+                position++;
+            }
+            position++;
+            if (blank) {
+                continue;
+            }
+            if (skipLines > 0) {
+                skipLines--;
+                continue;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = lineStart;
+        }
+        this.rowStarts = starts;
+        this.rowCount = count;
+    }
+
+    // Offset just past the line that starts at lineStart, excluding the line break
+    protected int lineEnd(int lineStart) {
+        int limit = data.limit();
+        int position = lineStart;
+        while (position < limit && data.get(position) != '\n') {
+            position++;
+        }
+        if (position > lineStart && data.get(position - 1) == '\r') {
+            position--;
+        }
+        return position;
+    }
+
+    protected int rowStart(int row) {
+        return rowStarts[row];
+    }
+
+    // The row for this user's next request
+    public int next(int userIndex) {
+        long index;
+        switch (mode) {
+            case PER_USER:
+                int user = userIndex % users;
+                index = user + userCursors.getAndIncrement(user) * users;
+                break;
+            case RANDOM:
+                index = ThreadLocalRandom.current().nextInt(rowCount);
+                break;
+            default:
+                index = sharedCursor.getAndIncrement();
+                break;
+        }
+        return (int) (index % rowCount);
+    }
+
+    // Length of a value in UTF-8 bytes
+    public abstract int length(int row, int column);
+
+    // Copies the value into target at offset and returns the offset after it
+    public abstract int copy(int row, int column, byte[] target, int offset);
+
+    // Variable names, in column order
+    public abstract String[] getColumns();
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Messages between LoadTestCoordinator and LoadTestWorker over a plain socket. Every message is
+// an int type followed by its payload, written with DataOutput. The first CLOCK carries the
+// worker's shared token; a worker answers nothing else until it has seen the right one.
+//
+//   coordinator -> worker              worker -> coordinator
+//   CLOCK + token                      CLOCK + long worker time (epoch ms), or ERROR + message
+//   PLAN + test plan                   READY, or ERROR + message
+//   START + long start (worker clock)  PROGRESS + message ... then RESULT + result, or ERROR
+//   STOP (any time during the run)
+final class DistributedProtocol {
+    static final int CLOCK = 1;
+    static final int PLAN = 2;
+    static final int READY = 3;
+    static final int START = 4;
+    static final int PROGRESS = 5;
+    static final int RESULT = 6;
+    static final int STOP = 7;
+    static final int ERROR = 9;
+
+    static final int DEFAULT_PORT = 7410;
+    // Environment variable holding the shared token, for the command-line coordinator and worker
+    static final String TOKEN_VARIABLE = "LOADTEST_TOKEN";
+    // Longest string a peer may send, request bodies included; a length beyond it is a broken or
+    // hostile peer, not something to allocate
+    static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+    static final int MAX_TOKEN_BYTES = 1024;
+
+    private DistributedProtocol() {
+    }
+
+    // Unlike writeUTF there is no 64 KB limit, so request bodies fit; null is kept as null
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return readString(in, MAX_STRING_BYTES);
+    }
+
+    static String readString(DataInput in, int maxBytes) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > maxBytes) {
+            throw new IOException("String of " + length + " bytes exceeds the limit of " + maxBytes);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Aggregates only; the per-request table stays on the worker
+    static void writeResult(DataOutput out, LoadTestResult result) throws IOException {
+        out.writeLong(result.getTestStartTime());
+        out.writeLong(result.getDuration());
+        out.writeLong(result.getTotalRequests());
+        out.writeLong(result.getSuccessfulRequests());
+        out.writeLong(result.getFailedRequests());
+        result.getResponseTimes().writeTo(out);
+        result.getCorrectedResponseTimes().writeTo(out);
+        out.writeInt(result.getCompletedPerSecond().size());
+        for (Map.Entry<Integer, Long> entry : result.getCompletedPerSecond().entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(result.getEndpointStats().size());
+        for (EndpointStats endpoint : result.getEndpointStats().values()) {
+            writeString(out, endpoint.getName());
+            out.writeLong(endpoint.getRequests());
+            out.writeLong(endpoint.getFailures());
+            endpoint.getResponseTimes().writeTo(out);
+        }
+        result.getTransferStats().writeTo(out);
+        result.getErrorBreakdown().writeTo(out);
+    }
+
+    static LoadTestResult readResult(DataInput in) throws IOException {
+        long testStartTime = in.readLong();
+        long duration = in.readLong();
+        long totalRequests = in.readLong();
+        long successfulRequests = in.readLong();
+        long failedRequests = in.readLong();
+        LatencyHistogram responseTimes = LatencyHistogram.readFrom(in);
+        LatencyHistogram correctedResponseTimes = LatencyHistogram.readFrom(in);
+        SortedMap<Integer, Long> completedPerSecond = new TreeMap<>();
+        int seconds = in.readInt();
+        for (int i = 0; i < seconds; i++) {
+            completedPerSecond.put(in.readInt(), in.readLong());
+        }
+        SortedMap<String, EndpointStats> endpointStats = new TreeMap<>();
+        int endpoints = in.readInt();
+        for (int i = 0; i < endpoints; i++) {
+            String name = readString(in);
+            endpointStats.put(name, new EndpointStats(name, in.readLong(), in.readLong(), LatencyHistogram.readFrom(in)));
+        }
+        return new LoadTestResult(testStartTime, duration, totalRequests, successfulRequests, failedRequests,
+                responseTimes, correctedResponseTimes, completedPerSecond, new ResultColumns(0), endpointStats,
+                TransferStats.readFrom(in), ErrorBreakdown.readFrom(in));
+    }
+}
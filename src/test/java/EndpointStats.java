@@ -0,0 +1,52 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Requests, failures and latency for one endpoint of a scenario
+public class EndpointStats {
+    private final String name;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram responseTimes;
+
+    public EndpointStats(String name) {
+        this(name, 0, 0, new LatencyHistogram());
+    }
+
+    EndpointStats(String name, long requests, long failures, LatencyHistogram responseTimes) {
+        this.name = name;
+        this.requests.add(requests);
+        this.failures.add(failures);
+        this.responseTimes = responseTimes;
+    }
+
+    public void record(boolean success, long responseMicros) {
+        requests.increment();
+        if (!success) {
+            failures.increment();
+        }
+        responseTimes.recordValue(responseMicros);
+    }
+
+    // Folds another process's or interval's counts for the same endpoint into this one
+    public void add(EndpointStats other) {
+        requests.add(other.getRequests());
+        failures.add(other.getFailures());
+        responseTimes.add(other.responseTimes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    // microseconds
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Errors by class: requests that got no response by RequestError, and responses by HTTP status
+// code from 400 on, whether or not the response rules allow the code. Each class has a striped
+// counter and its own latency histogram, created the first time the class occurs, so recording is
+// lock-free and a run without errors allocates nothing for them.
+public class ErrorBreakdown {
+    private static final int FIRST_STATUS = 400;
+    private static final int LAST_STATUS = 999;
+
+    // The requests and their latency for one class of error
+    public static final class ErrorClass {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LatencyHistogram responseTimes;
+
+        ErrorClass(String name, LatencyHistogram responseTimes) {
+            this.name = name;
+            this.responseTimes = responseTimes;
+        }
+
+        // "Connection refused", "HTTP 503"
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        // microseconds until the response or the failure
+        public LatencyHistogram getResponseTimes() {
+            return responseTimes;
+        }
+    }
+
+    private final AtomicReferenceArray<ErrorClass> requestErrors = new AtomicReferenceArray<>(RequestError.values().length);
+    private final AtomicReferenceArray<ErrorClass> statusCodes = new AtomicReferenceArray<>(LAST_STATUS - FIRST_STATUS + 1);
+
+    // Counts nothing for a request that got a response below 400
+    public void record(RequestError error, int statusCode, long responseMicros) {
+        ErrorClass errorClass;
+        if (error != RequestError.NONE) {
+            errorClass = requestErrorClass(error);
+        } else if (statusCode >= FIRST_STATUS && statusCode <= LAST_STATUS) {
+            errorClass = statusClass(statusCode);
+        } else {
+            return;
+        }
+        errorClass.count.increment();
+        errorClass.responseTimes.recordValue(responseMicros);
+    }
+
+    private ErrorClass requestErrorClass(RequestError error) {
+        ErrorClass errorClass = requestErrors.get(error.ordinal());
+        if (errorClass == null) {
+            requestErrors.compareAndSet(error.ordinal(), null, new ErrorClass(error.getDescription(), new LatencyHistogram()));
+            errorClass = requestErrors.get(error.ordinal());
+        }
+        return errorClass;
+    }
+
+    private ErrorClass statusClass(int statusCode) {
+        int index = statusCode - FIRST_STATUS;
+        ErrorClass errorClass = statusCodes.get(index);
+        if (errorClass == null) {
+            statusCodes.compareAndSet(index, null, new ErrorClass("HTTP " + statusCode, new LatencyHistogram()));
+            errorClass = statusCodes.get(index);
+        }
+        return errorClass;
+    }
+
+    // Folds another process's counts into this one
+    public void add(ErrorBreakdown other) {
+        for (int i = 0; i < requestErrors.length(); i++) {
+            ErrorClass theirs = other.requestErrors.get(i);
+            if (theirs != null) {
+                merge(requestErrorClass(RequestError.fromOrdinal(i)), theirs);
+            }
+        }
+        for (int i = 0; i < statusCodes.length(); i++) {
+            ErrorClass theirs = other.statusCodes.get(i);
+            if (theirs != null) {
+                merge(statusClass(FIRST_STATUS + i), theirs);
+            }
+        }
+    }
+
+    private static void merge(ErrorClass into, ErrorClass from) {
+        into.count.add(from.getCount());
+        into.responseTimes.add(from.responseTimes);
+    }
+
+    // Requests without a response first, in RequestError order, then status codes ascending
+    public List<ErrorClass> getClasses() {
+        List<ErrorClass> classes = new ArrayList<>();
+        for (int i = 0; i < requestErrors.length(); i++) {
+            if (requestErrors.get(i) != null) {
+                classes.add(requestErrors.get(i));
+            }
+        }
+        for (int i = 0; i < statusCodes.length(); i++) {
+            if (statusCodes.get(i) != null) {
+                classes.add(statusCodes.get(i));
+            }
+        }
+        return classes;
+    }
+
+    public boolean isEmpty() {
+        return getClasses().isEmpty();
+    }
+
+    // Requests that got no response at all
+    public long getNoResponseCount() {
+        long total = 0;
+        for (int i = 0; i < requestErrors.length(); i++) {
+            ErrorClass errorClass = requestErrors.get(i);
+            if (errorClass != null) {
+                total += errorClass.getCount();
+            }
+        }
+        return total;
+    }
+
+    // Responses with a status code from low to high, both included
+    public long getStatusCount(int low, int high) {
+        long total = 0;
+        for (int code = Math.max(low, FIRST_STATUS); code <= Math.min(high, LAST_STATUS); code++) {
+            ErrorClass errorClass = statusCodes.get(code - FIRST_STATUS);
+            if (errorClass != null) {
+                total += errorClass.getCount();
+            }
+        }
+        return total;
+    }
+
+    // The class with the most requests, null when there were no errors
+    public ErrorClass getMostFrequent() {
+        ErrorClass most = null;
+        for (ErrorClass errorClass : getClasses()) {
+            if (most == null || errorClass.getCount() > most.getCount()) {
+                most = errorClass;
+            }
+        }
+        return most;
+    }
+
+    // Only the classes that occurred, each as its key and histogram
+    public void writeTo(DataOutput out) throws IOException {
+        writeClasses(out, requestErrors);
+        writeClasses(out, statusCodes);
+    }
+
+    private static void writeClasses(DataOutput out, AtomicReferenceArray<ErrorClass> classes) throws IOException {
+        int present = 0;
+        for (int i = 0; i < classes.length(); i++) {
+            if (classes.get(i) != null) {
+                present++;
+            }
+        }
+        out.writeInt(present);
+        for (int i = 0; i < classes.length() && present > 0; i++) {
+            ErrorClass errorClass = classes.get(i);
+            if (errorClass != null) {
+                out.writeInt(i);
+                out.writeLong(errorClass.getCount());
+                errorClass.responseTimes.writeTo(out);
+                present--;
+            }
+        }
+    }
+
+    public static ErrorBreakdown readFrom(DataInput in) throws IOException {
+        ErrorBreakdown breakdown = new ErrorBreakdown();
+        int requestErrors = in.readInt();
+        for (int i = 0; i < requestErrors; i++) {
+            int ordinal = in.readInt();
+            readClass(in, breakdown.requestErrorClass(RequestError.fromOrdinal(ordinal)));
+        }
+        int statusCodes = in.readInt();
+        for (int i = 0; i < statusCodes; i++) {
+            int index = in.readInt();
+            if (index < 0 || index > LAST_STATUS - FIRST_STATUS) {
+                throw new IOException("Status code out of range: " + (FIRST_STATUS + index));
+            }
+            readClass(in, breakdown.statusClass(FIRST_STATUS + index));
+        }
+        return breakdown;
+    }
+
+    private static void readClass(DataInput in, ErrorClass into) throws IOException {
+        into.count.add(in.readLong());
+        into.responseTimes.add(LatencyHistogram.readFrom(in));
+    }
+}
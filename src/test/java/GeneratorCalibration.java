@@ -0,0 +1,116 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+// How fast this machine can generate load, measured before the real test: concurrent workers send
+// back-to-back requests through the configured engine to an embedded stub that answers at once.
+// The stub shares the CPUs, so the rate is a lower bound on what the generator can do and the
+// latency an upper bound on what it adds to every response.
+public class GeneratorCalibration {
+    // The first quarter of the run warms up the JIT and the connection pool and is not counted
+    private static final int WARM_UP_DIVISOR = 4;
+
+    private final String engineName;
+    private final int concurrency;
+    private final long requests;
+    private final long errors;
+    private final long measuredNanos;
+    private final LatencyHistogram responseTimes;
+
+    private GeneratorCalibration(String engineName, int concurrency, long requests, long errors, long measuredNanos,
+                                 LatencyHistogram responseTimes) {
+        this.engineName = engineName;
+        this.concurrency = concurrency;
+        this.requests = requests;
+        this.errors = errors;
+        this.measuredNanos = measuredNanos;
+        this.responseTimes = responseTimes;
+    }
+
+    // Closes the engine when done
+    public static GeneratorCalibration run(RequestEngine engine, RequestTemplate template, int concurrency,
+                                           LoadTest.ExecutorMode executorMode, long durationMillis,
+                                           BooleanSupplier stopped) {
+        ExecutorService executor = executorMode == LoadTest.ExecutorMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(concurrency);
+        LatencyHistogram responseTimes = new LatencyHistogram();
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis) / WARM_UP_DIVISOR;
+        long endNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        for (int i = 0; i < concurrency; i++) {
+            final int userIndex = i;
+            executor.execute(() -> {
+                try {
+                    ResponseDetails details = new ResponseDetails();
+                    long now = System.nanoTime();
+                    while (now < endNanos && !stopped.getAsBoolean()) {
+                        long requestStartNanos = now;
+                        engine.execute(userIndex, template, null, details);
+                        now = System.nanoTime();
+                        if (requestStartNanos >= measureFromNanos && now < endNanos) {
+                            responseTimes.recordValue((now - requestStartNanos) / 1000);
+                            requests.increment();
+                            if (details.getError() != RequestError.NONE) {
+                                errors.increment();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long measuredNanos = Math.max(1, Math.min(System.nanoTime(), endNanos) - measureFromNanos);
+        executor.shutdownNow();
+        String engineName = engine.getName();
+        engine.close();
+        return new GeneratorCalibration(engineName, concurrency, requests.sum(), errors.sum(), measuredNanos,
+                responseTimes);
+    }
+
+    public String getEngineName() {
+        return engineName;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    // Requests that got no response at all; the stub itself never fails during calibration
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getMaxRequestsPerSecond() {
+        return requests * 1_000_000_000.0 / measuredNanos;
+    }
+
+    // microseconds from send to the last byte of the response, generator and stub together
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    // One line for the progress log
+    public String describe() {
+        return String.format("%.1f requests/s max with %d concurrent requests on %s, added latency p50 %.3f ms,"
+                        + " p99 %.3f ms, max %.3f ms%s", getMaxRequestsPerSecond(), concurrency, engineName,
+                responseTimes.getValueAtPercentile(50) / 1000.0, responseTimes.getValueAtPercentile(99) / 1000.0,
+                responseTimes.getMax() / 1000.0, errors > 0 ? " (" + errors + " errors)" : "");
+    }
+}
@@ -0,0 +1,61 @@
+// Aggregated results for one progress interval, published while the test is running
+public class IntervalStats {
+    private final long intervalStartTime;
+    private final long intervalMillis;
+    private final long requests;
+    private final long errors;
+    private final long totalRequests;
+    private final long droppedEvents;
+    private final LatencyHistogram responseTimes;
+
+    public IntervalStats(long intervalStartTime, long intervalMillis, long requests, long errors,
+                         long totalRequests, long droppedEvents, LatencyHistogram responseTimes) {
+        this.intervalStartTime = intervalStartTime;
+        this.intervalMillis = intervalMillis;
+        this.requests = requests;
+        this.errors = errors;
+        this.totalRequests = totalRequests;
+        this.droppedEvents = droppedEvents;
+        this.responseTimes = responseTimes;
+    }
+
+    // Wall-clock start of the interval, epoch milliseconds
+    public long getIntervalStartTime() {
+        return intervalStartTime;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    // Requests completed since the test started, including this interval
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    // Events the progress pipeline could not keep up with; they are still in the final report
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    public double getRequestsPerSecond() {
+        return intervalMillis == 0 ? 0 : requests * 1000.0 / intervalMillis;
+    }
+
+    public double getErrorRate() {
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    // Latency of the requests completed in this interval, in microseconds
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+}
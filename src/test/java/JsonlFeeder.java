@@ -0,0 +1,82 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// One JSON object per line; the keys of the first line name the variables. Every line is parsed
+// once when the file is opened and its values stored UTF-8 encoded, so picking a row parses and
+// allocates nothing. The values are held in memory next to the mapping, about the size of the file.
+public final class JsonlFeeder extends DataFeeder {
+    private final String[] columns;
+    // Per column, every row's value back to back; value r runs from offsets[r] to offsets[r + 1]
+    private final byte[][] values;
+    private final int[][] offsets;
+
+    public JsonlFeeder(Path path, Mode mode, int users) throws IOException {
+        super(path, mode, users);
+        indexLines(0);
+        int rows = getRowCount();
+        if (rows == 0) {
+            this.columns = new String[0];
+            this.values = new byte[0][];
+            this.offsets = new int[0][];
+            return;
+        }
+        this.columns = parse(0).keySet().toArray(new String[0]);
+        Arrays.sort(columns);
+
+        ByteArrayOutputStream[] encoded = new ByteArrayOutputStream[columns.length];
+        this.offsets = new int[columns.length][rows + 1];
+        for (int i = 0; i < columns.length; i++) {
+            encoded[i] = new ByteArrayOutputStream();
+        }
+        for (int row = 0; row < rows; row++) {
+            JSONObject object = parse(row);
+            for (int i = 0; i < columns.length; i++) {
+                // Nested objects and arrays are inserted as JSON text
+                Object value = object.opt(columns[i]);
+                if (value != null && value != JSONObject.NULL) {
+                    encoded[i].writeBytes(value.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                offsets[i][row + 1] = encoded[i].size();
+            }
+        }
+        this.values = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = encoded[i].toByteArray();
+        }
+    }
+
+    private JSONObject parse(int row) {
+        int start = rowStart(row);
+        byte[] line = new byte[lineEnd(start) - start];
+        data.get(start, line);
+        try {
+            return new JSONObject(new String(line, StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IllegalArgumentException(path.getFileName() + " row " + (row + 1) + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int length(int row, int column) {
+        return offsets[column][row + 1] - offsets[column][row];
+    }
+
+    @Override
+    public int copy(int row, int column, byte[] target, int offset) {
+        int start = offsets[column][row];
+        int length = offsets[column][row + 1] - start;
+        System.arraycopy(values[column], start, target, offset, length);
+        return offset + length;
+    }
+
+    @Override
+    public String[] getColumns() {
+        return columns.clone();
+    }
+}
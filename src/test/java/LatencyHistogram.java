@@ -0,0 +1,157 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size log-linear latency histogram in microseconds, laid out like HdrHistogram:
+// values below 256 us get their own bucket, above that every power of two is split into
+// 128 sub-buckets, so any recorded value is accurate to within 1%.
+// Recording is lock-free and can be called from any number of threads.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_BITS = SUB_BUCKET_BITS - 1;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_HALF_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    // ~71 minutes; anything slower is clamped but still shows up in getMax()
+    public static final long HIGHEST_TRACKABLE_MICROS = (1L << 32) - 1;
+    private static final int COUNTS_LENGTH = countsIndex(HIGHEST_TRACKABLE_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(COUNTS_LENGTH);
+    private final AtomicLong totalCount = new AtomicLong(0);
+    private final AtomicLong totalMicros = new AtomicLong(0);
+    private final AtomicLong minMicros = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxMicros = new AtomicLong(0);
+
+    public void recordValue(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(countsIndex(Math.min(value, HIGHEST_TRACKABLE_MICROS)));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(value);
+        minMicros.accumulateAndGet(value, Math::min);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    private static int countsIndex(long value) {
+        // Number of bits needed for the value, but never fewer than the sub-bucket resolution
+        int pow2Ceiling = 64 - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+        int bucketIndex = pow2Ceiling - SUB_BUCKET_BITS;
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return (bucketIndex << SUB_BUCKET_HALF_BITS) + subBucketIndex;
+    }
+
+    // Largest value that falls into the same slot as the given index
+    private static long highestEquivalentValue(int index) {
+        int bucketIndex = (index >> SUB_BUCKET_HALF_BITS) - 1;
+        int subBucketIndex = (index & (SUB_BUCKET_HALF - 1)) + SUB_BUCKET_HALF;
+        if (bucketIndex < 0) {
+            bucketIndex = 0;
+            subBucketIndex -= SUB_BUCKET_HALF;
+        }
+        long lowestValue = (long) subBucketIndex << bucketIndex;
+        return lowestValue + (1L << bucketIndex) - 1;
+    }
+
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long runningCount = 0;
+        for (int i = 0; i < COUNTS_LENGTH; i++) {
+            runningCount += counts.get(i);
+            if (runningCount >= countAtPercentile) {
+                // A slot's upper bound can overshoot the real maximum, never report past it
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalMicros.get() / count;
+    }
+
+    public long getMin() {
+        return totalCount.get() == 0 ? 0 : minMicros.get();
+    }
+
+    public long getMax() {
+        return maxMicros.get();
+    }
+
+    // Merges another histogram into this one, e.g. per-thread or per-interval histograms
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < COUNTS_LENGTH; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalMicros.addAndGet(other.totalMicros.get());
+        if (other.totalCount.get() > 0) {
+            minMicros.accumulateAndGet(other.minMicros.get(), Math::min);
+            maxMicros.accumulateAndGet(other.maxMicros.get(), Math::max);
+        }
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    // Compact form for shipping between processes: the totals plus only the non-empty slots
+    public void writeTo(DataOutput out) throws IOException {
+        int nonEmpty = 0;
+        for (int i = 0; i < COUNTS_LENGTH; i++) {
+            if (counts.get(i) != 0) {
+                nonEmpty++;
+            }
+        }
+        out.writeInt(COUNTS_LENGTH);
+        out.writeLong(totalCount.get());
+        out.writeLong(totalMicros.get());
+        out.writeLong(minMicros.get());
+        out.writeLong(maxMicros.get());
+        out.writeInt(nonEmpty);
+        for (int i = 0; i < COUNTS_LENGTH && nonEmpty > 0; i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                out.writeInt(i);
+                out.writeLong(count);
+                nonEmpty--;
+            }
+        }
+    }
+
+    public static LatencyHistogram readFrom(DataInput in) throws IOException {
+        int countsLength = in.readInt();
+        if (countsLength != COUNTS_LENGTH) {
+            throw new IOException("Incompatible histogram layout: " + countsLength + " slots, expected " + COUNTS_LENGTH);
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.totalCount.set(in.readLong());
+        histogram.totalMicros.set(in.readLong());
+        histogram.minMicros.set(in.readLong());
+        histogram.maxMicros.set(in.readLong());
+        int nonEmpty = in.readInt();
+        for (int i = 0; i < nonEmpty; i++) {
+            int index = in.readInt();
+            if (index < 0 || index >= COUNTS_LENGTH) {
+                throw new IOException("Histogram slot out of range: " + index);
+            }
+            histogram.counts.set(index, in.readLong());
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,94 @@
+import org.jfree.data.time.Second;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.time.TimeSeriesCollection;
+
+import java.util.Date;
+
+// Folds progress intervals into one point per wall-clock second for the live charts. Every series
+// keeps only the last windowSeconds points, so memory stays fixed however long the test runs.
+// Not thread-safe: call from the Swing event thread.
+public class LiveMetricsSeries {
+    private final TimeSeries requestsPerSecond = new TimeSeries("Requests/s");
+    private final TimeSeries errorRate = new TimeSeries("Error Rate (%)");
+    private final TimeSeries p50 = new TimeSeries("p50");
+    private final TimeSeries p95 = new TimeSeries("p95");
+    private final TimeSeries p99 = new TimeSeries("p99");
+    private final TimeSeriesCollection throughputDataset = new TimeSeriesCollection();
+    private final TimeSeriesCollection errorRateDataset = new TimeSeriesCollection();
+    private final TimeSeriesCollection latencyDataset = new TimeSeriesCollection();
+
+    private long bucketSecond = -1;
+    private long bucketMillis;
+    private long bucketRequests;
+    private long bucketErrors;
+    private LatencyHistogram bucketResponseTimes = new LatencyHistogram();
+
+    public LiveMetricsSeries(int windowSeconds) {
+        for (TimeSeries series : new TimeSeries[]{requestsPerSecond, errorRate, p50, p95, p99}) {
+            series.setMaximumItemAge(windowSeconds);
+            series.setMaximumItemCount(windowSeconds);
+        }
+        throughputDataset.addSeries(requestsPerSecond);
+        errorRateDataset.addSeries(errorRate);
+        latencyDataset.addSeries(p50);
+        latencyDataset.addSeries(p95);
+        latencyDataset.addSeries(p99);
+    }
+
+    public void add(IntervalStats stats) {
+        // Intervals are aligned to the wall clock, so the midpoint picks the second it belongs to
+        long second = (stats.getIntervalStartTime() + stats.getIntervalMillis() / 2) / 1000;
+        if (second != bucketSecond) {
+            flush();
+            bucketSecond = second;
+        }
+        bucketMillis += stats.getIntervalMillis();
+        bucketRequests += stats.getRequests();
+        bucketErrors += stats.getErrors();
+        bucketResponseTimes.add(stats.getResponseTimes());
+    }
+
+    // Publishes the second being filled; also called when the test ends
+    public void flush() {
+        if (bucketSecond < 0 || bucketMillis == 0) {
+            return;
+        }
+        Second period = new Second(new Date(bucketSecond * 1000));
+        requestsPerSecond.addOrUpdate(period, bucketRequests * 1000.0 / bucketMillis);
+        errorRate.addOrUpdate(period, bucketRequests == 0 ? 0 : bucketErrors * 100.0 / bucketRequests);
+        if (bucketResponseTimes.getTotalCount() > 0) {
+            p50.addOrUpdate(period, bucketResponseTimes.getValueAtPercentile(50) / 1000.0);
+            p95.addOrUpdate(period, bucketResponseTimes.getValueAtPercentile(95) / 1000.0);
+            p99.addOrUpdate(period, bucketResponseTimes.getValueAtPercentile(99) / 1000.0);
+        }
+        resetBucket();
+    }
+
+    public void clear() {
+        resetBucket();
+        for (TimeSeries series : new TimeSeries[]{requestsPerSecond, errorRate, p50, p95, p99}) {
+            series.clear();
+        }
+    }
+
+    private void resetBucket() {
+        bucketSecond = -1;
+        bucketMillis = 0;
+        bucketRequests = 0;
+        bucketErrors = 0;
+        bucketResponseTimes = new LatencyHistogram();
+    }
+
+    public TimeSeriesCollection getThroughputDataset() {
+        return throughputDataset;
+    }
+
+    public TimeSeriesCollection getErrorRateDataset() {
+        return errorRateDataset;
+    }
+
+    // Latency percentiles in milliseconds
+    public TimeSeriesCollection getLatencyDataset() {
+        return latencyDataset;
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A load profile: stages that each move the load in a straight line from where the previous stage
+// ended to their own target over their duration. The target is a number of users in the closed
+// model and requests per second in the open model; the first stage starts from 0. One stage per
+// line or separated by commas, "<duration> <target>", durations in ms, s, m or h:
+//   2m 50        ramp up to 50 over two minutes
+//   30m 50       hold for half an hour (a soak)
+//   0s 200       jump to 200 at once (a step or the start of a spike)
+//   1m 200
+//   0s 50        and back
+//   1m 0         ramp down
+// Blank lines and lines starting with # are ignored.
+public final class LoadProfile {
+    private final String text;
+    private final double startTarget;
+    private final long[] durationsNanos;
+    private final double[] targets;
+    private final List<String> descriptions;
+
+    private LoadProfile(String text, double startTarget, long[] durationsNanos, double[] targets,
+                        List<String> descriptions) {
+        this.text = text;
+        this.startTarget = startTarget;
+        this.durationsNanos = durationsNanos;
+        this.targets = targets;
+        this.descriptions = descriptions;
+    }
+
+    public static LoadProfile parse(String text) {
+        List<Long> durations = new ArrayList<>();
+        List<Double> targets = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+        String[] lines = text.split("[\n,]");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Load profile stage " + (i + 1) + ": expected <duration> <target>: " + line);
+            }
+            double target;
+            try {
+                target = Double.parseDouble(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Load profile stage " + (i + 1) + ": bad target: " + parts[1]);
+            }
+            if (target < 0 || Double.isNaN(target) || Double.isInfinite(target)) {
+                throw new IllegalArgumentException("Load profile stage " + (i + 1) + ": bad target: " + parts[1]);
+            }
+            durations.add(parseDuration(parts[0], i + 1));
+            targets.add(target);
+            descriptions.add(parts[0] + " " + parts[1]);
+        }
+        if (durations.isEmpty()) {
+            throw new IllegalArgumentException("Load profile has no stages");
+        }
+        long[] durationArray = new long[durations.size()];
+        double[] targetArray = new double[targets.size()];
+        for (int i = 0; i < durationArray.length; i++) {
+            durationArray[i] = durations.get(i);
+            targetArray[i] = targets.get(i);
+        }
+        return new LoadProfile(text, 0, durationArray, targetArray, Collections.unmodifiableList(descriptions));
+    }
+
+    private static long parseDuration(String value, int stage) {
+        int unitStart = 0;
+        while (unitStart < value.length() && (Character.isDigit(value.charAt(unitStart)) || value.charAt(unitStart) == '.')) {
+            unitStart++;
+        }
+        double amount;
+        try {
+            amount = Double.parseDouble(value.substring(0, unitStart));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Load profile stage " + stage + ": bad duration: " + value);
+        }
+        long unitNanos;
+        switch (value.substring(unitStart)) {
+            case "ms":
+                unitNanos = 1_000_000L;
+                break;
+            case "s":
+                unitNanos = 1_000_000_000L;
+                break;
+            case "m":
+                unitNanos = 60_000_000_000L;
+                break;
+            case "h":
+                unitNanos = 3_600_000_000_000L;
+                break;
+            default:
+                throw new IllegalArgumentException("Load profile stage " + stage + ": duration needs ms, s, m or h: " + value);
+        }
+        return (long) (amount * unitNanos);
+    }
+
+    // The same stages, starting from the given target instead of 0; for replacing a running profile
+    public LoadProfile startingFrom(double target) {
+        return new LoadProfile(text, target, durationsNanos, targets, descriptions);
+    }
+
+    // The same stages with every target multiplied by factor; for a worker's share of the load
+    public LoadProfile scaledBy(double factor) {
+        double[] scaled = new double[targets.length];
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] = targets[i] * factor;
+        }
+        return new LoadProfile(text, startTarget * factor, durationsNanos, scaled, descriptions);
+    }
+
+    public long getDurationNanos() {
+        long total = 0;
+        for (long duration : durationsNanos) {
+            total += duration;
+        }
+        return total;
+    }
+
+    // The highest target of any stage, rounded up
+    public int getPeak() {
+        double peak = startTarget;
+        for (double target : targets) {
+            peak = Math.max(peak, target);
+        }
+        return (int) Math.ceil(peak);
+    }
+
+    public int getStageCount() {
+        return targets.length;
+    }
+
+    // The stage running at elapsedNanos, getStageCount() once the profile has ended
+    public int stageAt(long elapsedNanos) {
+        long stageEnd = 0;
+        for (int i = 0; i < durationsNanos.length; i++) {
+            stageEnd += durationsNanos[i];
+            if (elapsedNanos < stageEnd) {
+                return i;
+            }
+        }
+        return durationsNanos.length;
+    }
+
+    // The target at elapsedNanos from the start of the profile; the last target once it has ended
+    public double targetAt(long elapsedNanos) {
+        double from = startTarget;
+        long stageStart = 0;
+        for (int i = 0; i < durationsNanos.length; i++) {
+            long duration = durationsNanos[i];
+            if (elapsedNanos < stageStart + duration) {
+                return from + (targets[i] - from) * (elapsedNanos - stageStart) / duration;
+            }
+            from = targets[i];
+            stageStart += duration;
+        }
+        return from;
+    }
+
+    // With the targets read as requests per second: when the arrival after the one at afterNanos
+    // is due, that is where the area under the rate reaches one more request. -1 when the profile
+    // ends first.
+    public long nextArrivalNanos(long afterNanos) {
+        double needed = 1_000_000_000.0; // one request, in request-nanoseconds per second
+        double from = startTarget;
+        long stageStart = 0;
+        for (int i = 0; i < durationsNanos.length; i++) {
+            long duration = durationsNanos[i];
+            long stageEnd = stageStart + duration;
+            if (duration > 0 && afterNanos < stageEnd) {
+                long start = Math.max(afterNanos, stageStart);
+                double slope = (targets[i] - from) / duration;
+                double rate = from + slope * (start - stageStart);
+                double remaining = stageEnd - start;
+                // Area under the line over the rest of the stage
+                double area = rate * remaining + slope * remaining * remaining / 2;
+                if (area >= needed) {
+                    // Solve rate * x + slope * x^2 / 2 = needed for x
+                    double x = Math.abs(slope) < 1e-18 ? needed / rate
+                            : (-rate + Math.sqrt(Math.max(0, rate * rate + 2 * slope * needed))) / slope;
+                    return start + Math.min((long) Math.ceil(x), stageEnd - start);
+                }
+                needed -= area;
+            }
+            from = targets[i];
+            stageStart = stageEnd;
+        }
+        return -1;
+    }
+
+    // As written; "" for no profile
+    public String getText() {
+        return text;
+    }
+
+    // "<duration> <target>" per stage
+    public List<String> getDescriptions() {
+        return descriptions;
+    }
+}
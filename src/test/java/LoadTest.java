@@ -1,44 +1,26 @@
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPut;
-import org.apache.http.client.methods.HttpPatch;
-import org.apache.http.client.methods.HttpRequestBase;
-
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.CountDownLatch;
-import java.io.File;
-
-class ResponseDetails {
-    private final String responseCode;
-    private final long responseTime;
-
-    public ResponseDetails(String responseCode, long responseTime) {
-        this.responseCode = responseCode;
-        this.responseTime = responseTime;
-    }
-
-    public String getResponseCode() {
-        return responseCode;
-    }
-
-    public long getResponseTime() {
-        return responseTime;
-    } // detay ayrıca alınmadan rapor detayına yazılamadı
-}
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
 
 public class LoadTest {
     private String url;
@@ -47,16 +29,110 @@ public class LoadTest {
     private int loopCount;
     private int requestsPerSecond;
     private String reportDirectory;
+    private String httpMethod;
     private String headers;
     private String body;
-    private String httpMethod;
     private String authHeader;
-    private volatile boolean shouldStop = false;
+    private RequestTemplate requestTemplate;
+    // Created by runTest for each run, null before the first
+    private volatile RunLifecycle lifecycle;
+    // STOPPED or ABORTED when the test was stopped before its first run got a lifecycle, as a worker
+    // can be while it waits for the start; that run then starts stopped
+    private RunLifecycle.Outcome stopBeforeRun;
+    private static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 60_000;
+    private long maxDurationMillis;
+    private long maxRequests;
+    private long drainTimeoutMillis = DEFAULT_DRAIN_TIMEOUT_MILLIS;
     private long testStartTime;
+    private long testStartNanos;
+    private static final String[] PERCENTILE_LABELS = {"p50", "p90", "p99", "p99.9", "max"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+    private static final int PROGRESS_RING_CAPACITY = 1 << 16;
+    static final String RESULT_LOG_FILE = "results.bin";
+    // Request state for open-model, saturation and replay workers, who take one for a request and
+    // give it back once it is recorded; at most one per request in flight
+    private ArrayBlockingQueue<RequestState> idleRequestStates;
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+    private static final long RESULT_LOG_FLUSH_MILLIS = 1000;
+    // How often a user waiting for a non-blocking engine's response checks for an abort
+    private static final long RESPONSE_POLL_MILLIS = 50;
+    private ConnectionPoolSettings connectionPoolSettings = ConnectionPoolSettings.defaults();
+    private RequestTimeouts requestTimeouts = RequestTimeouts.defaults();
+    private RequestEngineType requestEngineType = RequestEngineType.APACHE_POOLED;
+    private int asyncIoThreads = Runtime.getRuntime().availableProcessors();
+    private RequestEngine requestEngine;
+    private ExecutorMode executorMode = ExecutorMode.PLATFORM;
+    private boolean openModel = false;
+    private int arrivalRate;
+    private int maxInFlight;
+    private ArrivalRateScheduler arrivalScheduler;
+    private AtomicLong successfulResponses;
+    private AtomicLong failedResponses;
+    private AtomicLong totalRequestsCount;
+    private LatencyHistogram responseTimes;
+    private LatencyHistogram correctedResponseTimes;
+    private ConcurrentHashMap<Integer, LongAdder> completedPerSecond;
+    private volatile SecondCount lastSecond;
+    private ResultLogWriter resultLog;
+    private long progressIntervalMillis = 250;
+    private int requestLogSampleRate = 0;
+    private ProgressEventRing progressRing;
+    private int maxResultRows = 1_000_000;
+    private ResultColumns requestResults;
+    private Path scenarioFile;
+    private ScenarioLoader.Mode scenarioMode = ScenarioLoader.Mode.WEIGHTED;
+    private Scenario scenario;
+    private volatile boolean scenarioExhausted;
+    private ConcurrentHashMap<String, EndpointStats> endpointStats;
+    // Names past this many are counted together so a file with unique names cannot grow the map unbounded
+    private static final int MAX_ENDPOINTS = 1000;
+    private static final String OTHER_ENDPOINTS = "(other)";
+    private Path replayLogFile;
+    private AccessLogReader.Format replayFormat = AccessLogReader.Format.AUTO;
+    private double replaySpeed = 1.0;
+    private int replayMaxInFlight;
+    private ReplayScheduler replayScheduler;
+    private AccessLogReader.Format replayFormatDetected;
+    private long replaySkippedLines;
+    private final List<Path> feederFiles = new ArrayList<>();
+    private final List<DataFeeder.Mode> feederModes = new ArrayList<>();
+    private TemplateVariables variables = new TemplateVariables();
+    private ResponseRules responseRules = ResponseRules.DEFAULT;
+    private ConcurrentHashMap<String, LongAdder> assertionFailures;
+    private ErrorBreakdown errorBreakdown;
+    private TransferStats transferStats;
+    private StubTargetSettings stubTarget;
+    private StubTargetServer stubServer;
+    private long calibrationMillis;
+    private GeneratorCalibration calibration;
+    // Warn when the test asks for more than this share of the calibrated rate
+    private static final double CALIBRATION_HEADROOM = 0.8;
+    private LoadProfile loadProfile;
+    private volatile RunningProfile runningProfile;
+    private volatile int targetUsers;
+    // How often the closed model brings the number of running users to the profile's target
+    private static final long PROFILE_TICK_MILLIS = 100;
+    private SaturationSearch saturationSearch;
+    // How long a saturation step's requests may take to finish before the next step starts
+    private static final long STEP_DRAIN_SECONDS = 30;
+
+    public enum ExecutorMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    public enum RequestEngineType {
+        APACHE_POOLED,
+        JAVA_ASYNC
+    }
 
     public interface TestProgressCallback {
         void onProgress(String message);
-        void onComplete(List<ResponseDetails> responseDetails);
+        void onComplete(LoadTestResult result);
+
+        // Called from the progress thread once per progress interval while the test runs
+        default void onIntervalStats(IntervalStats stats) {
+        }
     }
 
     public void configure(String url, int users, int rampUpTime, int loopCount, 
@@ -68,17 +144,329 @@ public class LoadTest {
         this.loopCount = loopCount;
         this.requestsPerSecond = requestsPerSecond;
         this.reportDirectory = reportDirectory;
+        this.httpMethod = httpMethod;
         this.headers = headers;
         this.body = body;
-        this.httpMethod = httpMethod;
         this.authHeader = authHeader;
+        // Parse headers, encode the body and resolve the URI once instead of on every request
+        this.requestTemplate = RequestTemplate.compile(url, httpMethod, headers, body, authHeader);
+    }
+
+    public void configureConnectionPool(int maxConnectionsPerRoute, int maxConnectionsTotal,
+                                        long keepAliveMillis, long idleEvictionMillis, boolean poolPerUser) {
+        this.connectionPoolSettings = new ConnectionPoolSettings(maxConnectionsPerRoute, maxConnectionsTotal,
+                keepAliveMillis, idleEvictionMillis, poolPerUser);
+    }
+
+    // A request that takes longer to connect or to be answered fails with CONNECT_TIMEOUT or
+    // READ_TIMEOUT; 0 = no limit
+    public void configureTimeouts(long connectTimeoutMillis, long readTimeoutMillis) {
+        this.requestTimeouts = new RequestTimeouts(connectTimeoutMillis, readTimeoutMillis);
+    }
+
+    public void configureOpenModel(int arrivalRate, int maxInFlight) {
+        this.openModel = true;
+        this.arrivalRate = arrivalRate;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // The async engine keeps many requests in flight on a few I/O threads instead of one thread per request
+    public void configureRequestEngine(RequestEngineType requestEngineType, int asyncIoThreads) {
+        this.requestEngineType = requestEngineType;
+        this.asyncIoThreads = asyncIoThreads;
+    }
+
+    // Virtual threads let a simulated user block on I/O without holding an OS thread
+    public void configureExecutorMode(ExecutorMode executorMode) {
+        this.executorMode = executorMode;
+    }
+
+    // Live progress is aggregated per interval; per-request log lines are off unless a sample rate
+    // is set, in which case every Nth completed request is reported
+    public void configureProgress(long progressIntervalMillis, int requestLogSampleRate) {
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.requestLogSampleRate = requestLogSampleRate;
+    }
+
+    // Per-request rows kept for the results table, about 21 bytes each; 0 keeps only aggregates
+    public void configureResultRows(int maxResultRows) {
+        this.maxResultRows = maxResultRows;
+    }
+
+    // Sends a mix of requests read from a JSONL scenario file instead of the single configured
+    // request; the URL, method, headers and body from configure() are then only used for auth
+    public void configureScenario(Path scenarioFile, ScenarioLoader.Mode scenarioMode) {
+        this.scenarioFile = scenarioFile;
+        this.scenarioMode = scenarioMode;
+    }
+
+    // Adds a CSV or JSONL data file whose columns can be used as ${column} in the URL, headers and
+    // body; every request takes the next row. May be called more than once, for several files.
+    public void configureFeeder(Path dataFile, DataFeeder.Mode mode) {
+        feederFiles.add(dataFile);
+        feederModes.add(mode);
+    }
+
+    // Decides which responses count as successful (by default any 2xx) and which values to
+    // extract from them into per-user ${...} variables
+    public void configureAssertions(ResponseRules responseRules) {
+        this.responseRules = responseRules;
+    }
+
+    // Replays an access log against the configured URL's host instead of generating load: every
+    // logged request is sent at its original offset from the first one, divided by speedFactor
+    public void configureReplay(Path logFile, AccessLogReader.Format format, double speedFactor, int maxInFlight) {
+        this.replayLogFile = logFile;
+        this.replayFormat = format;
+        this.replaySpeed = speedFactor;
+        this.replayMaxInFlight = maxInFlight;
+    }
+
+    // Starts an embedded stub target for the run and sends the configured request there instead
+    // of to the URL's host; path and query are kept. Scenario files keep their own URLs.
+    public void configureStubTarget(StubTargetSettings stubTarget) {
+        this.stubTarget = stubTarget;
+    }
+
+    // Before the real test, measures for this long how fast this machine generates requests with
+    // the configured engine, executor and concurrency against a stub that answers at once; 0 = off
+    public void configureCalibration(long calibrationMillis) {
+        this.calibrationMillis = calibrationMillis;
+    }
+
+    // Drives the load through stages instead of a fixed user count or rate. In the closed model
+    // the profile's targets are users, each paced at requestsPerSecond; in the open model they are
+    // arrival rates. The test ends with the last stage; users, ramp-up time and loop count from
+    // configure() no longer decide how many requests are sent.
+    public void configureLoadProfile(LoadProfile loadProfile) {
+        this.loadProfile = loadProfile;
     }
 
+    // Ends the run after maxDurationMillis or once maxRequests have been sent, whichever comes
+    // first, even if the workload has more to send; 0 = no limit. When a run stops sending, for
+    // any reason, requests in flight get drainTimeoutMillis to finish before they are abandoned.
+    public void configureTermination(long maxDurationMillis, long maxRequests, long drainTimeoutMillis) {
+        this.maxDurationMillis = maxDurationMillis;
+        this.maxRequests = maxRequests;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    // Searches for the highest arrival rate that holds the search's SLO instead of running the
+    // configured workload: every step is an open-model run at one rate with at most maxInFlight
+    // requests in flight. Writes capacity_report.txt and capacity_curve.csv next to the summary.
+    // Local runs only; the coordinator refuses a plan with a search.
+    public void configureSaturationSearch(SaturationSearch saturationSearch, int maxInFlight) {
+        this.saturationSearch = saturationSearch;
+        this.openModel = true;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // Replaces the profile of a running test, starting from the load at this moment, so a soak can
+    // be turned into a step or a spike without a restart. In the closed model the number of users
+    // stays capped at what the test started with. Returns false, changing nothing, when no profile
+    // is running.
+    public boolean changeLoadProfile(LoadProfile profile) {
+        RunningProfile current = runningProfile;
+        if (current == null) {
+            return false;
+        }
+        long elapsedNanos = System.nanoTime() - testStartNanos;
+        runningProfile = new RunningProfile(profile.startingFrom(current.targetAt(elapsedNanos)), elapsedNanos);
+        return true;
+    }
+
+    // A profile and when it took over, in nanoseconds since the test started
+    private static final class RunningProfile {
+        final LoadProfile profile;
+        final long startNanos;
+
+        RunningProfile(LoadProfile profile, long startNanos) {
+            this.profile = profile;
+            this.startNanos = startNanos;
+        }
+
+        double targetAt(long elapsedNanos) {
+            return profile.targetAt(elapsedNanos - startNanos);
+        }
+
+        int stageAt(long elapsedNanos) {
+            return profile.stageAt(elapsedNanos - startNanos);
+        }
+
+        boolean hasEnded(long elapsedNanos) {
+            return elapsedNanos - startNanos >= profile.getDurationNanos();
+        }
+
+        long nextArrivalNanos(long previousNanos) {
+            long next = profile.nextArrivalNanos(Math.max(previousNanos - startNanos, -1));
+            return next < 0 ? -1 : startNanos + next;
+        }
+    }
+
+    // Throws if the test has settings a distributed run cannot honour: a replay would send the
+    // whole log from every worker, and a saturation search needs the results of every step in one
+    // process
+    void checkDistributable() {
+        if (replayLogFile != null) {
+            throw new IllegalArgumentException("Access log replay cannot be distributed, run it locally");
+        }
+        if (saturationSearch != null) {
+            throw new IllegalArgumentException("A saturation search cannot be distributed, run it locally");
+        }
+    }
+
+    // Sends this test's share for one of workerCount workers: users, arrival rate and in-flight
+    // limit are divided, everything else is shipped as configured
+    void writePlan(DataOutput out, int workerIndex, int workerCount) throws IOException {
+        checkDistributable();
+        int workerUsers = share(users, workerIndex, workerCount);
+        if (workerUsers == 0) {
+            throw new IllegalArgumentException("Cannot split " + users + " users across " + workerCount + " workers");
+        }
+        out.writeInt(workerIndex);
+        out.writeInt(workerCount);
+        DistributedProtocol.writeString(out, url);
+        out.writeInt(workerUsers);
+        out.writeInt(rampUpTime);
+        out.writeInt(loopCount);
+        out.writeInt(requestsPerSecond);
+        DistributedProtocol.writeString(out, headers);
+        DistributedProtocol.writeString(out, body);
+        DistributedProtocol.writeString(out, httpMethod);
+        DistributedProtocol.writeString(out, authHeader);
+        out.writeInt(connectionPoolSettings.getMaxConnectionsPerRoute());
+        out.writeInt(connectionPoolSettings.getMaxConnectionsTotal());
+        out.writeLong(connectionPoolSettings.getKeepAliveMillis());
+        out.writeLong(connectionPoolSettings.getIdleEvictionMillis());
+        out.writeBoolean(connectionPoolSettings.isPoolPerUser());
+        out.writeLong(requestTimeouts.getConnectTimeoutMillis());
+        out.writeLong(requestTimeouts.getReadTimeoutMillis());
+        out.writeInt(requestEngineType.ordinal());
+        out.writeInt(asyncIoThreads);
+        out.writeInt(executorMode.ordinal());
+        out.writeBoolean(openModel);
+        out.writeInt(share(arrivalRate, workerIndex, workerCount));
+        out.writeInt(Math.max(1, (maxInFlight + workerCount - 1) / workerCount));
+        // Data files are not shipped: each worker reads its own copy at the same path
+        out.writeInt(feederFiles.size());
+        for (int i = 0; i < feederFiles.size(); i++) {
+            DistributedProtocol.writeString(out, feederFiles.get(i).toString());
+            out.writeInt(feederModes.get(i).ordinal());
+        }
+        // The scenario file likewise, at the same path on every worker
+        DistributedProtocol.writeString(out, scenarioFile != null ? scenarioFile.toString() : "");
+        out.writeInt(scenarioMode.ordinal());
+        // Every worker starts a stub of its own and sends there
+        out.writeBoolean(stubTarget != null);
+        if (stubTarget != null) {
+            out.writeLong(stubTarget.getMinLatencyMillis());
+            out.writeLong(stubTarget.getMaxLatencyMillis());
+            out.writeInt(stubTarget.getResponseBytes());
+            out.writeDouble(stubTarget.getErrorRate());
+        }
+        out.writeLong(calibrationMillis);
+        DistributedProtocol.writeString(out, responseRules.getText());
+        // Every worker runs the whole profile at its share of the targets
+        DistributedProtocol.writeString(out, loadProfile != null ? loadProfile.getText() : "");
+        // Every worker keeps the duration limit and the drain and sends its share of the request
+        // limit, at least one so a share never turns into no limit
+        out.writeLong(maxDurationMillis);
+        out.writeLong(maxRequests == 0 ? 0 : Math.max(1, maxRequests / workerCount
+                + (workerIndex < maxRequests % workerCount ? 1 : 0)));
+        out.writeLong(drainTimeoutMillis);
+    }
+
+    // Counterpart of writePlan on the worker; reports go to the worker's own directory
+    static LoadTest readPlan(DataInput in, String reportDirectory) throws IOException {
+        LoadTest test = new LoadTest();
+        in.readInt(); // worker index
+        int workerCount = in.readInt();
+        String url = DistributedProtocol.readString(in);
+        int users = in.readInt();
+        int rampUpTime = in.readInt();
+        int loopCount = in.readInt();
+        int requestsPerSecond = in.readInt();
+        String headers = DistributedProtocol.readString(in);
+        String body = DistributedProtocol.readString(in);
+        String httpMethod = DistributedProtocol.readString(in);
+        String authHeader = DistributedProtocol.readString(in);
+        test.configure(url, users, rampUpTime, loopCount, requestsPerSecond, reportDirectory,
+                headers, body, httpMethod, authHeader);
+        test.configureConnectionPool(in.readInt(), in.readInt(), in.readLong(), in.readLong(), in.readBoolean());
+        test.configureTimeouts(in.readLong(), in.readLong());
+        test.configureRequestEngine(RequestEngineType.values()[in.readInt()], in.readInt());
+        test.configureExecutorMode(ExecutorMode.values()[in.readInt()]);
+        boolean openModel = in.readBoolean();
+        int arrivalRate = in.readInt();
+        int maxInFlight = in.readInt();
+        if (openModel) {
+            test.configureOpenModel(arrivalRate, maxInFlight);
+        }
+        int feeders = in.readInt();
+        for (int i = 0; i < feeders; i++) {
+            test.configureFeeder(Paths.get(DistributedProtocol.readString(in)), DataFeeder.Mode.values()[in.readInt()]);
+        }
+        String scenarioFile = DistributedProtocol.readString(in);
+        ScenarioLoader.Mode scenarioMode = ScenarioLoader.Mode.values()[in.readInt()];
+        if (!scenarioFile.isEmpty()) {
+            test.configureScenario(Paths.get(scenarioFile), scenarioMode);
+        }
+        if (in.readBoolean()) {
+            test.configureStubTarget(new StubTargetSettings(in.readLong(), in.readLong(), in.readInt(), in.readDouble()));
+        }
+        test.configureCalibration(in.readLong());
+        test.configureAssertions(ResponseRules.parse(DistributedProtocol.readString(in)));
+        String loadProfile = DistributedProtocol.readString(in);
+        if (!loadProfile.isEmpty()) {
+            test.configureLoadProfile(LoadProfile.parse(loadProfile).scaledBy(1.0 / workerCount));
+        }
+        test.configureTermination(in.readLong(), in.readLong(), in.readLong());
+        return test;
+    }
+
+    // Even split with the remainder going to the first workers
+    private static int share(int total, int workerIndex, int workerCount) {
+        return total / workerCount + (workerIndex < total % workerCount ? 1 : 0);
+    }
+
+    // Stops sending; requests in flight get the drain timeout to finish, then the reports are written
     public void stopTest() {
-        shouldStop = true;
+        endRun(RunLifecycle.Outcome.STOPPED);
+    }
+
+    // Stops sending and abandons the requests in flight, so the partial reports are written at once
+    public void abortTest() {
+        endRun(RunLifecycle.Outcome.ABORTED);
+    }
+
+    // Acts on the current run's lifecycle, or, before the first run, on the one runTest creates
+    private synchronized void endRun(RunLifecycle.Outcome reason) {
+        if (lifecycle != null) {
+            endRun(lifecycle, reason);
+        } else if (stopBeforeRun != RunLifecycle.Outcome.ABORTED) {
+            stopBeforeRun = reason;
+        }
+    }
+
+    private static void endRun(RunLifecycle runLifecycle, RunLifecycle.Outcome reason) {
+        if (reason == RunLifecycle.Outcome.ABORTED) {
+            runLifecycle.abort();
+        } else {
+            runLifecycle.finishSending(reason);
+        }
     }
 
     public void runTest(TestProgressCallback callback) {
+        // A lifecycle only runs once, so every run gets a fresh one with the configured limits
+        RunLifecycle runLifecycle = new RunLifecycle(maxDurationMillis, maxRequests, drainTimeoutMillis);
+        synchronized (this) {
+            if (stopBeforeRun != null) {
+                endRun(runLifecycle, stopBeforeRun);
+                stopBeforeRun = null;
+            }
+            lifecycle = runLifecycle;
+        }
+
         // Create report directory
         try {
             Files.createDirectories(Paths.get(reportDirectory));
@@ -87,169 +475,872 @@ public class LoadTest {
             return;
         }
 
-        ScheduledExecutorService executor = Executors.newScheduledThreadPool(users);
-        AtomicLong totalResponseTime = new AtomicLong(0);
-        AtomicLong successfulResponses = new AtomicLong(0);
-        AtomicLong failedResponses = new AtomicLong(0);
-        AtomicLong totalRequestsCount = new AtomicLong(0);
-        List<ResponseDetails> responseDetailsList = new CopyOnWriteArrayList<>();
+        // The stub's address only holds for this run, so the configured URL is left as it is
+        String target = url;
+        if (stubTarget != null) {
+            try {
+                stubServer = new StubTargetServer(0, stubTarget);
+                stubServer.start();
+            } catch (IOException e) {
+                callback.onProgress("Error starting stub target: " + e.getMessage());
+                return;
+            }
+            target = redirect(url, stubServer.getUrl());
+            callback.onProgress("Stub target at " + stubServer.getUrl() + ": " + stubTarget.getDescription());
+        }
+        // Compiled afresh each run, from this run's target and variables
+        requestTemplate = RequestTemplate.compile(target, httpMethod, headers, body, authHeader);
+
+        // Per-user state, pools and variables are sized for the most users the profile reaches
+        if (loadProfile != null && !openModel && replayLogFile == null) {
+            users = Math.max(users, loadProfile.getPeak());
+        }
+
+        // Data files are mapped and placeholders compiled before the run, not per request
+        variables = new TemplateVariables();
+        try {
+            for (int i = 0; i < feederFiles.size(); i++) {
+                DataFeeder feeder = DataFeeder.open(feederFiles.get(i), feederModes.get(i), users);
+                variables.addFeeder(feeder);
+                callback.onProgress("Data file " + feederFiles.get(i) + ": " + feeder.getRowCount() + " rows, variables "
+                        + String.join(", ", feeder.getColumns()));
+            }
+            // Extracted values are per user and must have their slots before templates are compiled
+            for (String name : responseRules.getExtractedNames()) {
+                variables.addUserVariable(name, users);
+            }
+            if (!variables.isEmpty() || requestTemplate.getUri() == null) {
+                requestTemplate = requestTemplate.withVariables(variables);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            callback.onProgress("Error loading test data: " + e.getMessage());
+            stopStubTarget();
+            return;
+        }
+
+        scenario = null;
+        scenarioExhausted = false;
+        if (scenarioFile != null) {
+            try {
+                scenario = ScenarioLoader.open(scenarioFile, scenarioMode, users, authHeader, variables);
+            } catch (IOException | IllegalArgumentException e) {
+                callback.onProgress("Error loading scenario: " + e.getMessage());
+                stopStubTarget();
+                return;
+            }
+        }
+
+        calibration = null;
+        if (calibrationMillis > 0) {
+            runCalibration(callback);
+        }
+
+        // One engine per run so connections are reused between requests
+        requestEngine = createEngine(requestTemplate);
+        idleRequestStates = new ArrayBlockingQueue<>(Math.max(1, concurrency()));
+        arrivalScheduler = null;
+        replayScheduler = null;
+
+        successfulResponses = new AtomicLong(0);
+        failedResponses = new AtomicLong(0);
+        totalRequestsCount = new AtomicLong(0);
+        responseTimes = new LatencyHistogram();
+        correctedResponseTimes = new LatencyHistogram();
+        completedPerSecond = new ConcurrentHashMap<>();
+        lastSecond = null;
+        requestResults = new ResultColumns(maxResultRows);
+        endpointStats = new ConcurrentHashMap<>();
+        assertionFailures = new ConcurrentHashMap<>();
+        errorBreakdown = new ErrorBreakdown();
+        transferStats = new TransferStats();
 
-        testStartTime = System.currentTimeMillis(); // Set test start time
+        // Wall-clock time only anchors the reports; every duration and timestamp of the run is
+        // measured on the monotonic clock from testStartNanos
+        testStartTime = System.currentTimeMillis();
+        testStartNanos = System.nanoTime();
+        lifecycle.begin(testStartNanos);
+        openResultLog();
+
+        // Request threads only publish primitive events; one thread turns them into progress updates
+        progressRing = new ProgressEventRing(PROGRESS_RING_CAPACITY);
+        ProgressAggregator progressAggregator = new ProgressAggregator(progressRing,
+                saturationSearch != null ? searchCallback(callback) : callback, progressIntervalMillis,
+                requestLogSampleRate);
+        progressAggregator.start();
 
         // Calculate total requests per user
         int totalRequestsPerUser = loopCount * requestsPerSecond * rampUpTime;
         int expectedTotalRequests = users * totalRequestsPerUser;
+
+        if (saturationSearch != null) {
+            callback.onProgress("Starting saturation search: " + saturationSearch.describe() + ", SLO "
+                    + saturationSearch.describeSlo());
+        } else if (replayLogFile == null && loadProfile != null) {
+            callback.onProgress(String.format("Starting load profile: %d stages over %.1f s, peak %d %s",
+                    loadProfile.getStageCount(), loadProfile.getDurationNanos() / 1e9, loadProfile.getPeak(),
+                    openModel ? "requests/s" : "users"));
+        } else if (replayLogFile == null && !openModel) {
+            callback.onProgress("Starting test with " + users + " users...");
+            callback.onProgress("Total requests per user: " + totalRequestsPerUser);
+            callback.onProgress("Total requests: " + expectedTotalRequests);
+        }
+        if (scenario != null) {
+            callback.onProgress("Scenario: " + scenario.getDescription());
+        }
+        if (maxDurationMillis > 0 || maxRequests > 0) {
+            callback.onProgress("Run limits: " + describeRunLimits());
+        }
+
+        if (saturationSearch != null) {
+            runSaturationSearch(callback);
+        } else if (replayLogFile != null) {
+            runReplay(target, callback);
+        } else if (openModel) {
+            runOpenModel(callback);
+        } else if (loadProfile != null) {
+            runProfiledClosedModel(callback);
+        } else {
+            runClosedModel(totalRequestsPerUser, callback);
+        }
+        runningProfile = null;
+        lifecycle.finishSending(RunLifecycle.Outcome.COMPLETED);
+        // From here on the results stay as they are, even if abandoned requests still come back
+        lifecycle.close();
+        if (lifecycle.getOutcome() != RunLifecycle.Outcome.COMPLETED || lifecycle.getAbandoned() > 0) {
+            callback.onProgress("Run ended: " + describeOutcome());
+        }
+        requestEngine.close();
+        progressAggregator.stop();
+        if (scenario != null) {
+            scenario.close();
+        }
+
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - testStartNanos);
+        SortedMap<Integer, Long> throughput = new TreeMap<>();
+        completedPerSecond.forEach((second, count) -> throughput.put(second, count.sum()));
+        LoadTestResult result = new LoadTestResult(testStartTime, duration, totalRequestsCount.get(),
+                successfulResponses.get(), failedResponses.get(), responseTimes, correctedResponseTimes, throughput,
+                requestResults, new TreeMap<>(endpointStats), transferStats, errorBreakdown);
+        generateSummaryReport(result);
+        if (saturationSearch != null) {
+            generateCapacityReport(callback);
+        }
+        closeResultLog(duration);
+        stopStubTarget();
         
-        // Calculate delays
-        long delayBetweenRequests = 1000 / requestsPerSecond; // milliseconds between requests
-        long rampUpDelay = rampUpTime * 1000 / users; // milliseconds between user starts
+        callback.onProgress("Test completed. Reports generated in: " + reportDirectory);
+        callback.onComplete(result);
+    }
 
-        // Create a CountDownLatch to track completion of all requests
-        CountDownLatch completionLatch = new CountDownLatch(expectedTotalRequests);
+    // "Completed", or why the run stopped early, and what it left behind
+    private String describeOutcome() {
+        return lifecycle.getOutcome().getDescription()
+                + (lifecycle.isAborted() && lifecycle.getOutcome() != RunLifecycle.Outcome.ABORTED ? ", drain aborted" : "")
+                + (lifecycle.getAbandoned() > 0 ? ", " + lifecycle.getAbandoned() + " in-flight requests abandoned" : "");
+    }
 
-        callback.onProgress("Starting test with " + users + " users...");
-        callback.onProgress("Total requests per user: " + totalRequestsPerUser);
-        callback.onProgress("Total requests: " + expectedTotalRequests);
+    private String describeRunLimits() {
+        List<String> limits = new ArrayList<>();
+        if (maxDurationMillis > 0) {
+            limits.add(String.format("%.1f s", maxDurationMillis / 1000.0));
+        }
+        if (maxRequests > 0) {
+            limits.add(maxRequests + " requests");
+        }
+        return (limits.isEmpty() ? "none" : String.join(" or ", limits)) + ", drain timeout "
+                + drainTimeoutMillis + " ms";
+    }
 
-        // Schedule requests for each user
+    // The blocking engine gets one connection per request that can be in flight at a time
+    private RequestEngine createEngine(RequestTemplate template) {
+        if (requestEngineType == RequestEngineType.JAVA_ASYNC) {
+            return new AsyncHttpEngine(asyncIoThreads, requestTimeouts, template);
+        }
+        return new PooledHttpEngine(connectionPoolSettings, requestTimeouts, users, concurrency(), template);
+    }
+
+    private int concurrency() {
+        return replayLogFile != null ? replayMaxInFlight : openModel ? maxInFlight : users;
+    }
+
+    // The URL with its scheme, host and port replaced by those of baseUrl, which ends in "/"
+    static String redirect(String url, String baseUrl) {
+        int authority = url.indexOf("://");
+        int pathStart = url.indexOf('/', authority < 0 ? 0 : authority + 3);
+        return pathStart < 0 ? baseUrl : baseUrl + url.substring(pathStart + 1);
+    }
+
+    private void stopStubTarget() {
+        if (stubServer != null) {
+            stubServer.close();
+            stubServer = null;
+        }
+    }
+
+    // Calibration gets its own stub and engine, so the real test starts with a cold pool as it
+    // would without it. The configured request is sent unless it has ${...} placeholders, which
+    // have nothing to bind to here; then a plain GET is.
+    private void runCalibration(TestProgressCallback callback) {
+        StubTargetSettings settings = new StubTargetSettings(0, 0,
+                (stubTarget != null ? stubTarget : StubTargetSettings.defaults()).getResponseBytes(), 0);
+        callback.onProgress("Calibrating for " + calibrationMillis + " ms against an embedded stub...");
+        try (StubTargetServer server = new StubTargetServer(0, settings)) {
+            server.start();
+            String calibrationUrl = redirect(url, server.getUrl());
+            RequestTemplate template = RequestTemplate.compile(calibrationUrl, httpMethod, headers, body, authHeader);
+            if (calibrationUrl.contains("${") || (headers + body + authHeader).contains("${")) {
+                template = RequestTemplate.compile(server.getUrl(), "GET", "", "", "");
+            }
+            calibration = GeneratorCalibration.run(createEngine(template), template, concurrency(), executorMode,
+                    calibrationMillis, () -> !lifecycle.isSending());
+        } catch (IOException e) {
+            callback.onProgress("Calibration skipped, could not start its stub: " + e.getMessage());
+            return;
+        }
+        callback.onProgress("Calibration: " + calibration.describe());
+        double plannedRate = plannedRequestsPerSecond();
+        if (plannedRate > calibration.getMaxRequestsPerSecond() * CALIBRATION_HEADROOM) {
+            callback.onProgress(String.format("Warning: the test asks for %.1f requests/s, more than %d %% of what "
+                    + "this machine generated against the stub; results may show the generator's limits, not the "
+                    + "target's", plannedRate, (int) (CALIBRATION_HEADROOM * 100)));
+        }
+    }
+
+    // The rate the workload asks for, at its peak under a profile; 0 for replay, whose rate follows
+    // the log, and for a saturation search, which is meant to find the limit
+    private double plannedRequestsPerSecond() {
+        if (replayLogFile != null || saturationSearch != null) {
+            return 0;
+        }
+        if (loadProfile != null) {
+            return openModel ? loadProfile.getPeak() : (double) loadProfile.getPeak() * requestsPerSecond;
+        }
+        return openModel ? arrivalRate : (double) users * requestsPerSecond;
+    }
+
+    private void runClosedModel(int totalRequestsPerUser, TestProgressCallback callback) {
+        ExecutorService executor = executorMode == ExecutorMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(users);
+
+        // Calculate delays
+        long requestIntervalNanos = 1_000_000_000L / requestsPerSecond; // nanoseconds between intended sends
+        long rampUpDelayNanos = rampUpTime * 1_000_000_000L / users; // nanoseconds between user starts
+
+        // Every user is a worker of the run until its loop ends, however it ends, so the run
+        // finishes with its last user instead of counting requests that may never be sent
+        long runStartNanos = System.nanoTime();
         for (int i = 0; i < users; i++) {
             final int userIndex = i;
-            executor.schedule(() -> {
-                for (int j = 0; j < totalRequestsPerUser; j++) {
-                    if (shouldStop) {
-                        callback.onProgress("Test stopped by user");
-                        break;
-                    }
+            lifecycle.workerStarted();
+            executor.execute(() -> {
+                try {
+                    runUser(userIndex, runStartNanos + userIndex * rampUpDelayNanos, totalRequestsPerUser,
+                            requestIntervalNanos);
+                } finally {
+                    lifecycle.workerFinished();
+                }
+            });
+        }
 
-                    long requestStartTime = System.currentTimeMillis();
-                    ResponseDetails responseDetails = performRequest();
-                    long requestEndTime = System.currentTimeMillis();
-                    long responseTime = requestEndTime - requestStartTime;
+        int abandoned = lifecycle.awaitWorkers();
+        if (abandoned > 0) {
+            callback.onProgress("Abandoned " + abandoned + " users still waiting for a response");
+        }
+        shutdownExecutor(executor);
+    }
 
-                    totalRequestsCount.incrementAndGet();
+    // One user of the closed model: starts at its ramp-up slot and sends until its requests are
+    // done, the scenario runs out or the run stops sending. Waits end early when the run stops.
+    private void runUser(int userIndex, long userStartNanos, int totalRequests, long requestIntervalNanos) {
+        if (!lifecycle.sleepUntil(userStartNanos)) {
+            return;
+        }
+        // Every request of this user is recorded through the same state
+        RequestState state = new RequestState();
+        userStartNanos = System.nanoTime();
+        for (int j = 0; j < totalRequests; j++) {
+            // Each request has a fixed slot on the user's schedule; a slow response
+            // eats into the wait for the next slot instead of pushing it back
+            long intendedStartNanos = userStartNanos + j * requestIntervalNanos;
+            if (!lifecycle.sleepUntil(intendedStartNanos)) {
+                return;
+            }
+            // The scenario is asked first, so a user it has run out for takes no request slot
+            RequestTemplate template = nextTemplate(userIndex);
+            if (template == null) {
+                endScenario();
+                return;
+            }
+            if (!lifecycle.tryStartRequest()) {
+                return;
+            }
+            if (!awaitResponse(sendAndRecord(userIndex, j, template, intendedStartNanos, state))) {
+                return;
+            }
+        }
+    }
 
-                    if (responseDetails.getResponseCode().equals("200")) {
-                        successfulResponses.incrementAndGet();
-                    } else {
-                        failedResponses.incrementAndGet();
-                    }
+    private void runOpenModel(TestProgressCallback callback) {
+        long totalRequests;
+        if (loadProfile != null) {
+            // The profile's rate decides when each request is due, until its last stage ends
+            callback.onProgress("Open workload: load profile, at most " + maxInFlight + " in flight");
+            runningProfile = new RunningProfile(loadProfile, 0);
+            arrivalScheduler = new ArrivalRateScheduler(previous -> runningProfile.nextArrivalNanos(previous), maxInFlight);
+            totalRequests = Long.MAX_VALUE;
+        } else if (maxDurationMillis > 0 || maxRequests > 0) {
+            // The run limits end the run
+            callback.onProgress("Open workload: " + arrivalRate + " requests/s until a run limit, at most "
+                    + maxInFlight + " in flight");
+            arrivalScheduler = new ArrivalRateScheduler(arrivalRate, maxInFlight);
+            totalRequests = Long.MAX_VALUE;
+        } else {
+            // As long as the closed model would run: loopCount * rampUpTime seconds at the arrival rate
+            long durationSeconds = (long) loopCount * rampUpTime;
+            totalRequests = durationSeconds * arrivalRate;
+            callback.onProgress("Open workload: " + arrivalRate + " requests/s for " + durationSeconds + " s, "
+                    + totalRequests + " requests, at most " + maxInFlight + " in flight");
+            arrivalScheduler = new ArrivalRateScheduler(arrivalRate, maxInFlight);
+        }
 
-                    totalResponseTime.addAndGet(responseTime);
-                    responseDetailsList.add(new ResponseDetails(responseDetails.getResponseCode(), responseTime));
+        // Requests are dispatched on a global schedule. A blocking engine needs a worker per in-flight
+        // request; a non-blocking engine is called straight from the dispatcher thread.
+        ExecutorService executor = null;
+        if (!requestEngine.isNonBlocking()) {
+            executor = executorMode == ExecutorMode.VIRTUAL
+                    ? Executors.newVirtualThreadPerTaskExecutor()
+                    : Executors.newCachedThreadPool();
+        }
+        Executor dispatchExecutor = executor != null ? executor : Runnable::run;
+        arrivalScheduler.run(totalRequests, dispatchExecutor, () -> !lifecycle.isSending() || scenarioExhausted,
+                (requestIndex, intendedStartNanos) -> {
+            int userIndex = (int) (requestIndex % users);
+            RequestTemplate template = nextTemplate(userIndex);
+            if (template == null) {
+                endScenario();
+                return COMPLETED;
+            }
+            if (!lifecycle.tryStartRequest()) {
+                return COMPLETED;
+            }
+            return sendWithIdleState(userIndex, requestIndex, template, intendedStartNanos);
+        });
+        drain(arrivalScheduler::getInFlight, callback);
+        if (executor != null) {
+            shutdownExecutor(executor);
+        }
+    }
 
-                    callback.onProgress(String.format("User %d - Request %d/%d completed with status %s in %d ms",
-                            userIndex + 1, j + 1, totalRequestsPerUser, responseDetails.getResponseCode(), responseTime));
+    // Waits out the drain for requests still in flight once the run has stopped sending
+    private void drain(IntSupplier inFlight, TestProgressCallback callback) {
+        if (inFlight.getAsInt() > 0 && !lifecycle.isAborted()) {
+            callback.onProgress("Draining " + inFlight.getAsInt() + " in-flight requests for at most "
+                    + TimeUnit.NANOSECONDS.toMillis(lifecycle.remainingDrainNanos()) + " ms");
+        }
+        int abandoned = lifecycle.awaitDrain(inFlight);
+        if (abandoned > 0) {
+            callback.onProgress("Abandoned " + abandoned + " in-flight requests");
+        }
+    }
 
-                    try {
-                        Thread.sleep(delayBetweenRequests);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                    
-                    completionLatch.countDown();
+    // One fixed-rate open-model run per step. The progress thread feeds every interval to the
+    // search, so a step that has clearly broken the SLO stops dispatching at once; the step's
+    // requests then get to finish before it is judged, so they do not count against the next one.
+    private void runSaturationSearch(TestProgressCallback callback) {
+        ExecutorService executor = null;
+        if (!requestEngine.isNonBlocking()) {
+            executor = executorMode == ExecutorMode.VIRTUAL
+                    ? Executors.newVirtualThreadPerTaskExecutor()
+                    : Executors.newCachedThreadPool();
+        }
+        Executor dispatchExecutor = executor != null ? executor : Runnable::run;
+        long firstRequestIndex = 0;
+        double rate = saturationSearch.start();
+        while (rate > 0 && lifecycle.isSending() && !scenarioExhausted) {
+            ArrivalRateScheduler scheduler = new ArrivalRateScheduler(rate, maxInFlight);
+            arrivalScheduler = scheduler;
+            SaturationSearch.Step step = saturationSearch.beginStep(rate, scheduler::getDroppedRequests);
+            callback.onProgress(String.format("Step %d: %.1f requests/s for %.1f s", step.getNumber(), rate,
+                    saturationSearch.getStepMillis() / 1000.0));
+            long stepRequests = Math.max(1, (long) (rate * saturationSearch.getStepMillis() / 1000));
+            long requestIndexBase = firstRequestIndex;
+            arrivalScheduler.run(stepRequests, dispatchExecutor,
+                    () -> !lifecycle.isSending() || scenarioExhausted || step.isBroken(),
+                    (requestIndex, intendedStartNanos) -> {
+                long index = requestIndexBase + requestIndex;
+                int userIndex = (int) (index % users);
+                RequestTemplate template = nextTemplate(userIndex);
+                if (template == null) {
+                    endScenario();
+                    return COMPLETED;
+                }
+                if (!lifecycle.tryStartRequest()) {
+                    return COMPLETED;
                 }
-            }, userIndex * rampUpDelay, TimeUnit.MILLISECONDS);
+                return sendWithIdleState(userIndex, index, template, intendedStartNanos);
+            });
+            firstRequestIndex += stepRequests;
+            saturationSearch.endDispatching(step.isBroken());
+            if (!lifecycle.isSending()) {
+                // The run is over; the step is judged on what finishes within the drain
+                drain(scheduler::getInFlight, callback);
+            } else if (!scheduler.awaitCompletion(STEP_DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                callback.onProgress("Timed out waiting for " + scheduler.getInFlight() + " in-flight requests");
+            }
+            // Two intervals, so the last completions have reached the search
+            if (!lifecycle.isAborted()) {
+                try {
+                    Thread.sleep(2 * progressIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            rate = saturationSearch.endStep();
+            callback.onProgress(SaturationSearch.describe(step));
         }
+        double sustainable = saturationSearch.getMaxSustainableRate();
+        callback.onProgress(sustainable > 0
+                ? String.format("Max sustainable rate: %.1f requests/s", sustainable)
+                : "No step held the SLO");
 
-        try {
-            completionLatch.await();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        if (executor != null) {
+            shutdownExecutor(executor);
         }
+    }
 
-        shutdownExecutor(executor);
+    // Passes every interval to the saturation search as well as to the caller's callback
+    private TestProgressCallback searchCallback(TestProgressCallback callback) {
+        return new TestProgressCallback() {
+            @Override
+            public void onProgress(String message) {
+                callback.onProgress(message);
+            }
 
-        long testEndTime = System.currentTimeMillis();
-        long duration = testEndTime - testStartTime;
-        generateSummaryReport(successfulResponses.get(), failedResponses.get(), 
-                            totalResponseTime.get(), duration, totalRequestsCount.get());
-        generateDetailedReport(responseDetailsList);
-        
-        callback.onProgress("Test completed. Reports generated in: " + reportDirectory);
-        callback.onComplete(responseDetailsList);
+            @Override
+            public void onComplete(LoadTestResult result) {
+                callback.onComplete(result);
+            }
+
+            @Override
+            public void onIntervalStats(IntervalStats stats) {
+                saturationSearch.onIntervalStats(stats);
+                callback.onIntervalStats(stats);
+            }
+        };
     }
 
-    private ResponseDetails performRequest() {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpRequestBase request;
-            
-            // Create request based on HTTP method
-            switch (httpMethod) {
-                case "GET":
-                    request = new HttpGet(url);
-                    break;
-                case "POST":
-                    HttpPost post = new HttpPost(url);
-                    post.setEntity(new StringEntity(body));
-                    request = post;
-                    break;
-                case "PUT":
-                    HttpPut put = new HttpPut(url);
-                    put.setEntity(new StringEntity(body));
-                    request = put;
-                    break;
-                case "PATCH":
-                    HttpPatch patch = new HttpPatch(url);
-                    patch.setEntity(new StringEntity(body));
-                    request = patch;
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported HTTP method: " + httpMethod);
+    // Users come and go with the profile's target: user i runs while i is below the target and is
+    // started again when the target comes back up. A user keeps requestsPerSecond pacing from when
+    // it starts and leaves after its current request when the target drops below it.
+    private void runProfiledClosedModel(TestProgressCallback callback) {
+        ExecutorService executor = executorMode == ExecutorMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool();
+        long requestIntervalNanos = requestsPerSecond > 0 ? 1_000_000_000L / requestsPerSecond : 0;
+        AtomicIntegerArray running = new AtomicIntegerArray(users);
+        long[] requestCounts = new long[users];
+        runningProfile = new RunningProfile(loadProfile, 0);
+        targetUsers = 0;
+
+        RunningProfile announced = null;
+        int announcedStage = -1;
+        while (lifecycle.isSending() && !scenarioExhausted) {
+            long elapsedNanos = System.nanoTime() - testStartNanos;
+            RunningProfile profile = runningProfile;
+            if (profile.hasEnded(elapsedNanos)) {
+                break;
             }
-            
-            // Add headers
-            String[] headerLines = headers.split("\n");
-            for (String headerLine : headerLines) {
-                String[] parts = headerLine.split(":", 2);
-                if (parts.length == 2) {
-                    request.setHeader(parts[0].trim(), parts[1].trim());
+            int stage = profile.stageAt(elapsedNanos);
+            if (profile != announced || stage != announcedStage) {
+                callback.onProgress("Stage " + (stage + 1) + " of " + profile.profile.getStageCount() + ": "
+                        + profile.profile.getDescriptions().get(stage) + " users"
+                        + (announced != null && profile != announced ? " (new profile)" : "")
+                        + (profile.profile.getPeak() > users ? ", capped at " + users + " users" : ""));
+                announced = profile;
+                announcedStage = stage;
+            }
+            int target = Math.min(users, (int) Math.round(profile.targetAt(elapsedNanos)));
+            targetUsers = target;
+            for (int i = 0; i < target; i++) {
+                if (running.compareAndSet(i, 0, 1)) {
+                    final int userIndex = i;
+                    lifecycle.workerStarted();
+                    executor.execute(() -> {
+                        try {
+                            runProfiledUser(userIndex, requestIntervalNanos, requestCounts);
+                        } finally {
+                            running.set(userIndex, 0);
+                            lifecycle.workerFinished();
+                        }
+                    });
                 }
             }
-            
-            // Add authorization header if present
-            if (authHeader != null && !authHeader.isEmpty()) {
-                request.setHeader("Authorization", authHeader);
+            lifecycle.sleepUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROFILE_TICK_MILLIS));
+        }
+        // Every user leaves after its current request
+        targetUsers = 0;
+        lifecycle.finishSending(RunLifecycle.Outcome.COMPLETED);
+        int abandoned = lifecycle.awaitWorkers();
+        if (abandoned > 0) {
+            callback.onProgress("Abandoned " + abandoned + " users still waiting for a response");
+        }
+        shutdownExecutor(executor);
+    }
+
+    private void runProfiledUser(int userIndex, long requestIntervalNanos, long[] requestCounts) {
+        RequestState state = new RequestState();
+        long intendedStartNanos = System.nanoTime();
+        while (userIndex < targetUsers && lifecycle.isSending()) {
+            // Wait for the next slot in short steps, so a falling target is noticed in time
+            long tickNanos = TimeUnit.MILLISECONDS.toNanos(PROFILE_TICK_MILLIS);
+            while (intendedStartNanos - System.nanoTime() > 0 && userIndex < targetUsers) {
+                if (!lifecycle.sleepUntil(Math.min(intendedStartNanos, System.nanoTime() + tickNanos))) {
+                    return;
+                }
             }
-            
-            long startTime = System.currentTimeMillis();
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                long endTime = System.currentTimeMillis();
-                return new ResponseDetails(
-                    String.valueOf(response.getStatusLine().getStatusCode()),
-                    endTime - startTime
-                );
+            if (userIndex >= targetUsers) {
+                return;
             }
-        } catch (IOException e) {
-            return new ResponseDetails("Request failed: " + e.getMessage(), 0);
+            RequestTemplate template = nextTemplate(userIndex);
+            if (template == null) {
+                endScenario();
+                return;
+            }
+            if (!lifecycle.tryStartRequest()) {
+                return;
+            }
+            if (!awaitResponse(sendAndRecord(userIndex, requestCounts[userIndex]++, template, intendedStartNanos, state))) {
+                return;
+            }
+            // Without pacing every request is due as soon as the previous one is done
+            intendedStartNanos = requestIntervalNanos > 0 ? intendedStartNanos + requestIntervalNanos : System.nanoTime();
         }
     }
 
-    private void generateSummaryReport(long successfulResponses, long failedResponses, 
-                                     long totalResponseTime, long duration, long totalRequests) {
+    // Waits for a user's request to be recorded; false when the run was aborted or the thread
+    // interrupted first, which leaves the request to be abandoned. A non-blocking engine's future
+    // only completes with the response, so a plain join() could outlive the run.
+    private boolean awaitResponse(CompletableFuture<Void> recorded) {
+        while (!recorded.isDone()) {
+            if (lifecycle.isAborted()) {
+                return false;
+            }
+            try {
+                recorded.get(RESPONSE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Checked again above; a failure is thrown by the join() below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        recorded.join();
+        return true;
+    }
+
+    // What a request needs besides its template, kept from one request to the next so a steady
+    // run allocates none of it: the result a blocking engine fills in, the check and the bindings
+    private static final class RequestState {
+        final ResponseDetails details = new ResponseDetails();
+        ResponseCheck check;
+        TemplateVariables.Bindings bindings;
+    }
+
+    // sendAndRecord with an idle state, given back once sendAndRecord returns. By then a blocking
+    // engine's request is recorded; a non-blocking engine has only used the bindings.
+    private CompletableFuture<Void> sendWithIdleState(int userIndex, long requestIndex, RequestTemplate template,
+                                                      long intendedStartNanos) {
+        RequestState state = idleRequestStates.poll();
+        if (state == null) {
+            state = new RequestState();
+        }
+        try {
+            return sendAndRecord(userIndex, requestIndex, template, intendedStartNanos, state);
+        } finally {
+            idleRequestStates.offer(state);
+        }
+    }
+
+    // Fills in this user's ${...} values, if the template has any, sends the request and records
+    // the result; header and body rules are checked as the response streams in. A blocking engine
+    // runs the request on this thread, filling in the state's details, and returns a completed
+    // future; a non-blocking engine returns at once and records from its own thread with a result
+    // of its own. The state is not used again once this returns.
+    private CompletableFuture<Void> sendAndRecord(int userIndex, long requestIndex, RequestTemplate template,
+                                                  long intendedStartNanos, RequestState state) {
+        ResponseDetails details = state.details;
+        RequestTemplate request = template;
+        if (template.isParameterized()) {
+            try {
+                state.bindings = variables.rebind(state.bindings, userIndex);
+                request = template.bind(state.bindings);
+            } catch (IllegalArgumentException e) {
+                details.reset().fail(RequestError.INVALID_REQUEST);
+                long failedNanos = System.nanoTime();
+                record(userIndex, requestIndex, template, details, failedNanos, failedNanos, intendedStartNanos);
+                return COMPLETED;
+            }
+        }
+        // A blocking engine finishes the request before this returns, so the state's check can be
+        // reused; a non-blocking engine can still be reading this response when the state sends again
+        ResponseCheck check;
+        if (requestEngine.isNonBlocking()) {
+            check = responseRules.newCheck();
+        } else {
+            check = responseRules.reuseCheck(state.check);
+            state.check = check;
+        }
+        // The response time starts here, once the generator's own work on the request is done;
+        // the corrected time still counts that work, from the intended start
+        long requestStartNanos = System.nanoTime();
+        if (!requestEngine.isNonBlocking()) {
+            requestEngine.execute(userIndex, request, check, details);
+            // The response time ends with the response, before the assertions and extractors run
+            long requestEndNanos = System.nanoTime();
+            if (check != null) {
+                check.complete(details, variables, userIndex);
+            }
+            record(userIndex, requestIndex, template, details, requestStartNanos, requestEndNanos, intendedStartNanos);
+            return COMPLETED;
+        }
+        return requestEngine.send(userIndex, request, check).thenAccept(responseDetails -> {
+            long requestEndNanos = System.nanoTime();
+            if (check != null) {
+                check.complete(responseDetails, variables, userIndex);
+            }
+            record(userIndex, requestIndex, template, responseDetails, requestStartNanos, requestEndNanos,
+                    intendedStartNanos);
+        });
+    }
+
+    // Actual send, completion and intended start, all from System.nanoTime()
+    private void record(int userIndex, long requestIndex, RequestTemplate template, ResponseDetails details,
+                        long requestStartNanos, long requestEndNanos, long intendedStartNanos) {
+        // An abandoned request that comes back while the reports are written is left out
+        if (lifecycle.isClosed()) {
+            return;
+        }
+        long responseMicros = (requestEndNanos - requestStartNanos) / 1000;
+        long correctedMicros = (requestEndNanos - intendedStartNanos) / 1000;
+        recordResponse(userIndex + 1, requestIndex + 1, template, details, requestEndNanos, responseMicros,
+                correctedMicros);
+    }
+
+    // The scenario has run out: the run stops sending with that as its outcome, before the wait for
+    // what is still in flight would call it completed
+    private void endScenario() {
+        scenarioExhausted = true;
+        lifecycle.finishSending(RunLifecycle.Outcome.SCENARIO_EXHAUSTED);
+    }
+
+    // The configured request, or the scenario's next one; null when the scenario has run out
+    private RequestTemplate nextTemplate(int userIndex) {
+        return scenario != null ? scenario.next(userIndex) : requestTemplate;
+    }
+
+    // Relative paths in the log are sent to target
+    private void runReplay(String target, TestProgressCallback callback) {
+        callback.onProgress("Replaying " + replayLogFile + " at " + replaySpeed + "x, at most "
+                + replayMaxInFlight + " in flight");
+
+        // Like the open model, a blocking engine gets a worker per in-flight request and a
+        // non-blocking engine is called straight from the dispatcher thread
+        replayScheduler = new ReplayScheduler(replaySpeed, replayMaxInFlight);
+        ExecutorService executor = null;
+        if (!requestEngine.isNonBlocking()) {
+            executor = executorMode == ExecutorMode.VIRTUAL
+                    ? Executors.newVirtualThreadPerTaskExecutor()
+                    : Executors.newCachedThreadPool();
+        }
+        Executor dispatchExecutor = executor != null ? executor : Runnable::run;
+        try (AccessLogReader log = new AccessLogReader(replayLogFile, replayFormat, target, authHeader)) {
+            replayScheduler.run(log, dispatchExecutor, () -> !lifecycle.isSending(),
+                    (requestIndex, template, intendedStartNanos) -> {
+                if (!lifecycle.tryStartRequest()) {
+                    return COMPLETED;
+                }
+                int userIndex = (int) (requestIndex % users);
+                return sendWithIdleState(userIndex, requestIndex, template, intendedStartNanos);
+            });
+            replayFormatDetected = log.getFormat();
+            replaySkippedLines = log.getSkippedLines();
+        } catch (IOException | IllegalArgumentException e) {
+            callback.onProgress("Error reading replay log: " + e.getMessage());
+        }
+        callback.onProgress(String.format("Replayed %d requests, %d lines skipped, finished %.2f ms behind schedule",
+                replayScheduler.getDispatched(), replaySkippedLines, replayScheduler.getFinalLagNanos() / 1_000_000.0));
+
+        drain(replayScheduler::getInFlight, callback);
+        if (executor != null) {
+            shutdownExecutor(executor);
+        }
+    }
+
+    private void recordResponse(int userNumber, long requestNumber, RequestTemplate template,
+                                ResponseDetails responseDetails, long completedNanos, long responseMicros,
+                                long correctedMicros) {
+        totalRequestsCount.incrementAndGet();
+
+        int statusCode = responseDetails.getStatusCode();
+        String failure = responseRules.evaluate(statusCode, responseMicros, responseDetails.getAssertionFailure());
+        boolean success = failure == null;
+        if (success) {
+            successfulResponses.incrementAndGet();
+        } else {
+            failedResponses.incrementAndGet();
+            assertionFailures.computeIfAbsent(failure, k -> new LongAdder()).increment();
+        }
+
+        // Aggregates plus compact primitive rows; every result is also streamed to the binary result log
+        responseTimes.recordValue(responseMicros);
+        correctedResponseTimes.recordValue(correctedMicros);
+        transferStats.record(responseDetails);
+        errorBreakdown.record(responseDetails.getError(), statusCode, responseMicros);
+        long elapsedNanos = completedNanos - testStartNanos;
+        countCompletion((int) (elapsedNanos / 1_000_000_000L));
+        requestResults.append(statusCode, success, responseMicros, testStartTime + elapsedNanos / 1_000_000);
+        if (template != requestTemplate) {
+            endpointStatsFor(template.getName()).record(success, responseMicros);
+        }
+        ResultLogWriter log = resultLog;
+        if (log != null) {
+            log.append((completedNanos - testStartNanos) / 1000, userNumber, statusCode, success, responseMicros,
+                    correctedMicros, responseDetails);
+        }
+        progressRing.offer(userNumber, requestNumber, statusCode, success, completedNanos, responseMicros, correctedMicros);
+    }
+
+    // Most completions fall in the same second as the previous one and skip the map and its boxed key
+    private void countCompletion(int second) {
+        SecondCount last = lastSecond;
+        if (last == null || last.second != second) {
+            last = new SecondCount(second, completedPerSecond.computeIfAbsent(second, k -> new LongAdder()));
+            lastSecond = last;
+        }
+        last.count.increment();
+    }
+
+    private static final class SecondCount {
+        final int second;
+        final LongAdder count;
+
+        SecondCount(int second, LongAdder count) {
+            this.second = second;
+            this.count = count;
+        }
+    }
+
+    private EndpointStats endpointStatsFor(String name) {
+        EndpointStats stats = endpointStats.get(name);
+        if (stats == null) {
+            String key = endpointStats.size() < MAX_ENDPOINTS ? name : OTHER_ENDPOINTS;
+            stats = endpointStats.computeIfAbsent(key, EndpointStats::new);
+        }
+        return stats;
+    }
+
+    private void generateSummaryReport(LoadTestResult result) {
         try {
             String summaryPath = Paths.get(reportDirectory, "summary_report.txt").toString();
+            long duration = result.getDuration();
             StringBuilder report = new StringBuilder();
             report.append("Load Test Summary Report\n");
             report.append("=======================\n\n");
-            report.append("Test Configuration:\n");
-            report.append("------------------\n");
-            report.append("URL: ").append(url).append("\n");
-            report.append("HTTP Method: ").append(httpMethod).append("\n");
-            report.append("Number of Users: ").append(users).append("\n");
-            report.append("Ramp-up Time: ").append(rampUpTime).append(" seconds\n");
-            report.append("Loop Count: ").append(loopCount).append("\n");
-            report.append("Requests per Second: ").append(requestsPerSecond).append("\n\n");
-            
-            report.append("Test Results:\n");
-            report.append("-------------\n");
-            report.append("Test Start Time: ").append(new java.util.Date(testStartTime)).append("\n");
-            report.append("Test End Time: ").append(new java.util.Date(testStartTime + duration)).append("\n");
-            report.append("Test Duration: ").append(String.format("%.2f", duration / 1000.0)).append(" seconds\n");
-            report.append("Total Requests: ").append(totalRequests).append("\n");
-            report.append("Successful Requests: ").append(successfulResponses).append("\n");
-            report.append("Failed Requests: ").append(failedResponses).append("\n");
-            report.append("Average Response Time: ").append(String.format("%.2f", totalResponseTime / (double)totalRequests)).append(" ms\n");
+            report.append(buildConfigurationSection());
+            appendResultSections(report, result);
+
+            // Failed requests by the first rule they broke, in rule order
+            if (!assertionFailures.isEmpty()) {
+                report.append("Assertions:\n");
+                report.append("-----------\n");
+                List<String> rules = new ArrayList<>();
+                rules.add(ResponseRules.NO_RESPONSE);
+                rules.addAll(responseRules.getDescriptions());
+                for (String rule : rules) {
+                    LongAdder failures = assertionFailures.get(rule);
+                    if (failures != null) {
+                        report.append(String.format("%-50s %10d failed%n", rule, failures.sum()));
+                    }
+                }
+                report.append("\n");
+            }
+
+            report.append("Termination:\n");
+            report.append("------------\n");
+            report.append("Outcome: ").append(describeOutcome()).append("\n");
+            report.append("Run Limits: ").append(describeRunLimits()).append("\n\n");
+
+            report.append("Request Engine:\n");
+            report.append("---------------\n");
+            report.append("Engine: ").append(requestEngine.getName()).append("\n");
+            report.append("Timeouts: ").append(requestTimeouts.describe()).append("\n\n");
+
+            if (calibration != null) {
+                LatencyHistogram added = calibration.getResponseTimes();
+                report.append("Generator Calibration:\n");
+                report.append("----------------------\n");
+                report.append("Concurrency: ").append(calibration.getConcurrency()).append("\n");
+                report.append("Max Throughput: ").append(String.format("%.2f", calibration.getMaxRequestsPerSecond())).append(" requests/s\n");
+                report.append("Added Latency p50 / p99 / max: ")
+                        .append(String.format("%.3f / %.3f / %.3f", added.getValueAtPercentile(50) / 1000.0,
+                                added.getValueAtPercentile(99) / 1000.0, added.getMax() / 1000.0)).append(" ms\n");
+                report.append("Achieved / Calibrated Throughput: ").append(String.format("%.1f",
+                        result.getTotalRequests() / (Math.max(1, duration) / 1000.0) / calibration.getMaxRequestsPerSecond() * 100)).append(" %\n\n");
+            }
+
+            if (saturationSearch != null) {
+                double sustainable = saturationSearch.getMaxSustainableRate();
+                double failing = saturationSearch.getFirstFailingRate();
+                report.append("Saturation Search:\n");
+                report.append("------------------\n");
+                report.append("Steps: ").append(saturationSearch.getSteps().size()).append("\n");
+                report.append("Max Sustainable Rate: ").append(sustainable > 0 ? String.format("%.1f requests/s", sustainable) : "none").append("\n");
+                report.append("First Failing Rate: ").append(failing > 0 ? String.format("%.1f requests/s", failing) : "none").append("\n");
+                report.append("Curve: capacity_report.txt, capacity_curve.csv\n\n");
+            } else if (arrivalScheduler != null) {
+                report.append("Arrival Schedule:\n");
+                report.append("-----------------\n");
+                report.append("Dispatched Requests: ").append(arrivalScheduler.getDispatched()).append("\n");
+                report.append("Late Dispatches (> 1 ms): ").append(arrivalScheduler.getLateDispatches()).append("\n");
+                report.append("Dropped (in-flight cap): ").append(arrivalScheduler.getDroppedRequests()).append("\n");
+                report.append("Peak In-Flight Requests: ").append(arrivalScheduler.getPeakInFlight()).append("\n");
+                report.append("Max Dispatch Lag: ").append(String.format("%.2f", arrivalScheduler.getMaxDispatchLagNanos() / 1_000_000.0)).append(" ms\n");
+                report.append("Achieved Arrival Rate: ").append(String.format("%.2f", arrivalScheduler.getDispatched() / (duration / 1000.0))).append(" requests/s\n\n");
+            }
+
+            if (replayScheduler != null) {
+                LatencyHistogram lag = replayScheduler.getDispatchLag();
+                report.append("Replay Schedule:\n");
+                report.append("----------------\n");
+                report.append("Log Format: ").append(replayFormatDetected == AccessLogReader.Format.JSONL ? "JSONL" : "Common/combined log format").append("\n");
+                report.append("Replayed Requests: ").append(replayScheduler.getDispatched()).append("\n");
+                report.append("Skipped Lines: ").append(replaySkippedLines).append("\n");
+                report.append("Out-of-Order Entries (sent late): ").append(replayScheduler.getOutOfOrderEntries()).append("\n");
+                report.append("Log Time Replayed: ").append(String.format("%.2f", replayScheduler.getLogSpanMicros() / 1_000_000.0)).append(" seconds\n");
+                report.append("Late Dispatches (> 1 ms): ").append(replayScheduler.getLateDispatches()).append("\n");
+                report.append("Peak In-Flight Requests: ").append(replayScheduler.getPeakInFlight()).append("\n");
+                report.append("Behind Schedule p50 / p99 / max: ")
+                        .append(String.format("%.2f / %.2f / %.2f", lag.getValueAtPercentile(50) / 1000.0,
+                                lag.getValueAtPercentile(99) / 1000.0, lag.getMax() / 1000.0)).append(" ms\n");
+                report.append("Behind Schedule at End: ").append(String.format("%.2f", replayScheduler.getFinalLagNanos() / 1_000_000.0)).append(" ms\n\n");
+            }
+
+            if (requestEngine instanceof PooledHttpEngine httpEngine) {
+                report.append("Connection Pool:\n");
+                report.append("----------------\n");
+                report.append("Pool Mode: ").append(httpEngine.isPoolPerUser() ? "One pool per user" : "Shared").append("\n");
+                report.append("Pools: ").append(httpEngine.getPoolCount()).append("\n");
+                report.append("Max Connections per Route: ").append(httpEngine.getMaxConnectionsPerRoute()).append("\n");
+                report.append("Max Connections Total: ").append(httpEngine.getMaxConnectionsTotal())
+                        .append(httpEngine.isPoolPerUser() ? " (per pool)" : "").append("\n");
+                report.append("Keep-Alive: ").append(connectionPoolSettings.getKeepAliveMillis()).append(" ms\n");
+                report.append("Idle Eviction: ").append(connectionPoolSettings.getIdleEvictionMillis()).append(" ms\n");
+                report.append("Connections Opened: ").append(httpEngine.getConnectionsOpened()).append("\n");
+                report.append("Requests Executed: ").append(httpEngine.getRequestsExecuted()).append("\n");
+                report.append("Connection Reuse Rate: ").append(String.format("%.2f", httpEngine.getConnectionReuseRate() * 100)).append(" %\n");
+            }
             
             Files.write(Paths.get(summaryPath), report.toString().getBytes());
         } catch (IOException e) {
@@ -257,36 +1348,263 @@ public class LoadTest {
         }
     }
 
-    private void generateDetailedReport(List<ResponseDetails> responseDetailsList) {
-        StringBuilder detailedReportBuilder = new StringBuilder();
-        detailedReportBuilder.append("Detailed Report:\n");
-        detailedReportBuilder.append("Test Start Time: ").append(new java.util.Date(testStartTime)).append("\n");
-        detailedReportBuilder.append("Test End Time: ").append(new java.util.Date(testStartTime + (System.currentTimeMillis() - testStartTime))).append("\n");
-        detailedReportBuilder.append("Test Duration: ").append(String.format("%.2f", (System.currentTimeMillis() - testStartTime) / 1000.0)).append(" seconds\n\n");
+    private void generateCapacityReport(TestProgressCallback callback) {
+        try {
+            Files.write(Paths.get(reportDirectory, "capacity_report.txt"), saturationSearch.buildReport().getBytes());
+            Files.write(Paths.get(reportDirectory, "capacity_curve.csv"), saturationSearch.buildCurveCsv().getBytes());
+        } catch (IOException e) {
+            callback.onProgress("Error writing capacity report: " + e.getMessage());
+        }
+    }
+
+    // Written to the summary report and stored in the result log header
+    String buildConfigurationSection() {
+        StringBuilder report = new StringBuilder();
+        report.append("Test Configuration:\n");
+        report.append("------------------\n");
+        report.append("URL: ").append(url).append("\n");
+        if (stubTarget != null) {
+            report.append("Stub Target: embedded, ").append(stubTarget.getDescription()).append("\n");
+        }
+        report.append("HTTP Method: ").append(httpMethod).append("\n");
+        report.append("Number of Users: ").append(users).append("\n");
+        report.append("Ramp-up Time: ").append(rampUpTime).append(" seconds\n");
+        report.append("Loop Count: ").append(loopCount).append("\n");
+        report.append("Requests per Second: ").append(requestsPerSecond).append("\n");
+        if (scenarioFile != null) {
+            report.append("Scenario: ").append(scenarioFile).append(" (").append(scenarioModeName(scenarioMode)).append(")\n");
+        }
+        for (int i = 0; i < feederFiles.size(); i++) {
+            report.append("Data File: ").append(feederFiles.get(i)).append(" (").append(feederModeName(feederModes.get(i))).append(")\n");
+        }
+        if (!responseRules.isDefault()) {
+            report.append("Assertions: ").append(String.join("; ", responseRules.getDescriptions())).append("\n");
+            if (!responseRules.getExtractedNames().isEmpty()) {
+                report.append("Extracted Variables: ").append(String.join(", ", responseRules.getExtractedNames())).append("\n");
+            }
+        }
+        report.append("Executor Mode: ").append(executorMode == ExecutorMode.VIRTUAL ? "Virtual threads" : "Platform threads").append("\n");
+        if (saturationSearch != null) {
+            report.append("Workload Model: Saturation search (open model)\n");
+            report.append("Search: ").append(saturationSearch.describe()).append("\n");
+            report.append("SLO: ").append(saturationSearch.describeSlo()).append("\n");
+            report.append("Max In-Flight Requests: ").append(maxInFlight).append("\n\n");
+        } else if (replayLogFile != null) {
+            report.append("Workload Model: Access log replay\n");
+            report.append("Replay Log: ").append(replayLogFile).append("\n");
+            report.append("Replay Speed: ").append(replaySpeed).append("x\n");
+            report.append("Max In-Flight Requests: ").append(replayMaxInFlight).append("\n\n");
+        } else if (openModel && loadProfile != null) {
+            report.append("Workload Model: Open (load profile)\n");
+            report.append("Load Profile (requests/s): ").append(String.join("; ", loadProfile.getDescriptions())).append("\n");
+            report.append("Max In-Flight Requests: ").append(maxInFlight).append("\n\n");
+        } else if (openModel) {
+            report.append("Workload Model: Open (constant arrival rate)\n");
+            report.append("Arrival Rate: ").append(arrivalRate).append(" requests/s\n");
+            report.append("Max In-Flight Requests: ").append(maxInFlight).append("\n\n");
+        } else if (loadProfile != null) {
+            report.append("Workload Model: Closed (load profile, per-user pacing)\n");
+            report.append("Load Profile (users): ").append(String.join("; ", loadProfile.getDescriptions())).append("\n\n");
+        } else {
+            report.append("Workload Model: Closed (per-user pacing)\n\n");
+        }
+        return report.toString();
+    }
+
+    // Test results and latency distribution, shared with reports rebuilt from a result log
+    static void appendResultSections(StringBuilder report, LoadTestResult result) {
+        long duration = result.getDuration();
+        LatencyHistogram uncorrected = result.getResponseTimes();
+        LatencyHistogram corrected = result.getCorrectedResponseTimes();
+        report.append("Test Results:\n");
+        report.append("-------------\n");
+        report.append("Test Start Time: ").append(new java.util.Date(result.getTestStartTime())).append("\n");
+        report.append("Test End Time: ").append(new java.util.Date(result.getTestStartTime() + duration)).append("\n");
+        report.append("Test Duration: ").append(String.format("%.2f", duration / 1000.0)).append(" seconds\n");
+        report.append("Total Requests: ").append(result.getTotalRequests()).append("\n");
+        report.append("Successful Requests: ").append(result.getSuccessfulRequests()).append("\n");
+        report.append("Failed Requests: ").append(result.getFailedRequests()).append("\n");
+        report.append("Average Response Time: ").append(formatLatency(uncorrected.getMean())).append("\n");
+        report.append("Min Response Time: ").append(formatLatency(uncorrected.getMin())).append("\n");
+        report.append("Max Response Time: ").append(formatLatency(uncorrected.getMax())).append("\n\n");
 
-        for (ResponseDetails details : responseDetailsList) {
-            detailedReportBuilder.append("Response Code: ").append(details.getResponseCode())
-                    .append(" | Response Time: ").append(details.getResponseTime()).append(" ms\n");
+        // Uncorrected latency starts when the request was actually sent; corrected latency starts
+        // at its intended send time, which exposes coordinated omission during target stalls
+        LatencyUnit unit = LatencyUnit.of(corrected);
+        report.append("Latency Distribution (").append(unit.label).append("):\n");
+        report.append("--------------------------\n");
+        report.append(String.format("%-10s %14s %14s%n", "", "Uncorrected", "Corrected"));
+        for (int i = 0; i < PERCENTILE_LABELS.length; i++) {
+            report.append(String.format("%-10s %14s %14s%n", PERCENTILE_LABELS[i],
+                    unit.format(uncorrected.getValueAtPercentile(PERCENTILES[i])),
+                    unit.format(corrected.getValueAtPercentile(PERCENTILES[i]))));
         }
+        report.append("\n");
+        appendTransferSection(report, result);
 
-        String detailedReportPath = reportDirectory + File.separator + "detailed_report.txt";
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(detailedReportPath))) {
-            writer.write(detailedReportBuilder.toString());
+        if (!result.getEndpointStats().isEmpty()) {
+            report.append("Endpoints (ms):\n");
+            report.append("---------------\n");
+            report.append(String.format("%-30s %10s %8s %10s %10s %10s%n", "Name", "Requests", "Failed", "Average", "p50", "p99"));
+            for (EndpointStats endpoint : result.getEndpointStats().values()) {
+                LatencyHistogram histogram = endpoint.getResponseTimes();
+                report.append(String.format("%-30s %10d %8d %10.2f %10.2f %10.2f%n", endpoint.getName(),
+                        endpoint.getRequests(), endpoint.getFailures(), histogram.getMean() / 1000.0,
+                        histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0));
+            }
+            report.append("\n");
+        }
+
+        // No response by cause, then 4xx/5xx by status code; shares are of all requests
+        ErrorBreakdown errors = result.getErrorBreakdown();
+        if (!errors.isEmpty()) {
+            long requests = Math.max(1, result.getTotalRequests());
+            report.append("Errors (ms):\n");
+            report.append("------------\n");
+            report.append(String.format("%-30s %10s %8s %10s %10s %10s%n", "Class", "Requests", "Share", "Average", "p50", "p99"));
+            for (ErrorBreakdown.ErrorClass errorClass : errors.getClasses()) {
+                LatencyHistogram histogram = errorClass.getResponseTimes();
+                report.append(String.format("%-30s %10d %7.2f%% %10.2f %10.2f %10.2f%n", errorClass.getName(),
+                        errorClass.getCount(), errorClass.getCount() * 100.0 / requests, histogram.getMean() / 1000.0,
+                        histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0));
+            }
+            report.append("\n");
+        }
+    }
+
+    // Bytes on the wire as MB (10^6 bytes) per second of the run, and the per-phase distribution
+    private static void appendTransferSection(StringBuilder report, LoadTestResult result) {
+        TransferStats transfer = result.getTransferStats();
+        long requests = Math.max(1, result.getTotalRequests());
+        report.append("Transfer:\n");
+        report.append("---------\n");
+        report.append("Bytes Sent: ").append(transfer.getRequestBytes()).append(String.format(" (%.2f MB/s)%n",
+                TransferStats.megabytesPerSecond(transfer.getRequestBytes(), result.getDuration())));
+        report.append("Bytes Received: ").append(transfer.getResponseBytes()).append(String.format(" (%.2f MB/s)%n",
+                TransferStats.megabytesPerSecond(transfer.getResponseBytes(), result.getDuration())));
+        report.append("Average Request Size: ").append(transfer.getRequestBytes() / requests).append(" bytes\n");
+        report.append("Average Response Size: ").append(transfer.getResponseBytes() / requests).append(" bytes\n\n");
+
+        // Every phase counts from the start of the request; connect and TLS only for new connections
+        LatencyUnit unit = LatencyUnit.of(transfer.getLastByteTimes());
+        report.append("Request Phases (").append(unit.label).append("):\n");
+        report.append("--------------------\n");
+        report.append(String.format("%-16s %10s %10s %10s %10s %10s %10s%n", "", "Count", "Average", "p50", "p90",
+                "p99", "max"));
+        appendPhase(report, unit, "Connect", transfer.getConnectTimes());
+        appendPhase(report, unit, "TLS Handshake", transfer.getTlsHandshakeTimes());
+        appendPhase(report, unit, "First Byte", transfer.getFirstByteTimes());
+        appendPhase(report, unit, "Last Byte", transfer.getLastByteTimes());
+        report.append("\n");
+    }
+
+    private static void appendPhase(StringBuilder report, LatencyUnit unit, String name, LatencyHistogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            report.append(String.format("%-16s %10s%n", name, "-"));
+            return;
+        }
+        report.append(String.format("%-16s %10d %10s %10s %10s %10s %10s%n", name, histogram.getTotalCount(),
+                unit.format(histogram.getMean()), unit.format(histogram.getValueAtPercentile(50)),
+                unit.format(histogram.getValueAtPercentile(90)), unit.format(histogram.getValueAtPercentile(99)),
+                unit.format(histogram.getMax())));
+    }
+
+    // Unit of a report table: microseconds when the slowest 1 % of the column it is chosen by
+    // still answered within a millisecond, milliseconds otherwise
+    enum LatencyUnit {
+        MICROS("us", 1, "%.0f"),
+        MILLIS("ms", 1000.0, "%.2f");
+
+        final String label;
+        private final double divisor;
+        private final String pattern;
+
+        LatencyUnit(String label, double divisor, String pattern) {
+            this.label = label;
+            this.divisor = divisor;
+            this.pattern = pattern;
+        }
+
+        static LatencyUnit of(LatencyHistogram histogram) {
+            return histogram.getTotalCount() > 0 && histogram.getValueAtPercentile(99) < 1000 ? MICROS : MILLIS;
+        }
+
+        String format(double micros) {
+            return String.format(pattern, micros / divisor);
+        }
+    }
+
+    static String scenarioModeName(ScenarioLoader.Mode mode) {
+        switch (mode) {
+            case SEQUENTIAL:
+                return "Sequential per user";
+            case STREAM:
+                return "Stream in file order";
+            default:
+                return "Weighted";
+        }
+    }
+
+    static String feederModeName(DataFeeder.Mode mode) {
+        switch (mode) {
+            case SHARED:
+                return "Shared, in file order";
+            case RANDOM:
+                return "Random row";
+            default:
+                return "Per user";
+        }
+    }
+
+    private void openResultLog() {
+        try {
+            resultLog = new ResultLogWriter(Paths.get(reportDirectory, RESULT_LOG_FILE), testStartTime,
+                    buildConfigurationSection(), RESULT_LOG_FLUSH_MILLIS);
+        } catch (IOException e) {
+            System.err.println("Failed to save result log: " + e.getMessage());
+            resultLog = null;
+        }
+    }
+
+    // The detailed report is rendered from the result log, streaming, once the run is over
+    private void closeResultLog(long duration) {
+        ResultLogWriter log = resultLog;
+        if (log == null) {
+            return;
+        }
+        resultLog = null;
+        try {
+            log.close();
+            new ResultLogReader(log.getPath()).writeDetailedReport(
+                    Paths.get(reportDirectory, "detailed_report.txt"), duration);
         } catch (IOException e) {
             System.err.println("Failed to save detailed report: " + e.getMessage());
         }
     }
 
-    private void shutdownExecutor(ScheduledExecutorService executor) {
+    // Microseconds for display: whole microseconds below a millisecond, where two decimals of a
+    // millisecond would round most of a fast target's latency away, milliseconds above
+    static String formatLatency(double micros) {
+        return Math.round(micros) < 1000 ? String.format("%.0f us", micros) : String.format("%.2f ms", micros / 1000.0);
+    }
+
+    // Microseconds as milliseconds with three decimals, without going through String.format
+    static String formatMillis(long micros) {
+        long fraction = micros % 1000;
+        return (micros / 1000) + (fraction < 10 ? ".00" : fraction < 100 ? ".0" : ".") + fraction;
+    }
+
+    // Waits for what is left of the drain, then interrupts whatever still runs
+    private void shutdownExecutor(ExecutorService executor) {
         executor.shutdown();
         try {
-            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+            if (!executor.awaitTermination(lifecycle.remainingDrainNanos(), TimeUnit.NANOSECONDS)) {
                 executor.shutdownNow();
             }
         } catch (InterruptedException e) {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
-        } // timeout
+        }
     }
 
     public static void main(String[] args) {
@@ -302,34 +1620,29 @@ public class LoadTest {
             }
 
             @Override
-            public void onComplete(List<ResponseDetails> responseDetails) {
+            public void onIntervalStats(IntervalStats stats) {
+                LatencyHistogram interval = stats.getResponseTimes();
+                System.out.println(String.format("%.1f req/s | errors: %d | p50 %s | p95 %s | p99 %s",
+                        stats.getRequestsPerSecond(), stats.getErrors(),
+                        formatLatency(interval.getValueAtPercentile(50)),
+                        formatLatency(interval.getValueAtPercentile(95)),
+                        formatLatency(interval.getValueAtPercentile(99))));
+            }
+
+            @Override
+            public void onComplete(LoadTestResult result) {
                 System.out.println("\nTest completed!");
-                System.out.println("Total requests: " + responseDetails.size());
-                
-                // Calculate statistics
-                long totalTime = 0;
-                long minTime = Long.MAX_VALUE;
-                long maxTime = 0;
-                int successCount = 0;
-                
-                for (ResponseDetails detail : responseDetails) {
-                    long responseTime = detail.getResponseTime();
-                    totalTime += responseTime;
-                    minTime = Math.min(minTime, responseTime);
-                    maxTime = Math.max(maxTime, responseTime);
-                    if (detail.getResponseCode().equals("200")) {
-                        successCount++;
-                    }
-                }
+                System.out.println("Total requests: " + result.getTotalRequests());
                 
                 // Print statistics
+                LatencyHistogram responseTimes = result.getResponseTimes();
                 System.out.println("\nTest Statistics:");
-                System.out.println("Successful requests: " + successCount);
-                System.out.println("Failed requests: " + (responseDetails.size() - successCount));
-                System.out.println("Min response time: " + minTime + " ms");
-                System.out.println("Max response time: " + maxTime + " ms");
-                System.out.println("Average response time: " + 
-                    String.format("%.2f ms", (double)totalTime / responseDetails.size()));
+                System.out.println("Successful requests: " + result.getSuccessfulRequests());
+                System.out.println("Failed requests: " + result.getFailedRequests());
+                System.out.println("Min response time: " + formatLatency(responseTimes.getMin()));
+                System.out.println("Max response time: " + formatLatency(responseTimes.getMax()));
+                System.out.println("Average response time: " + formatLatency(responseTimes.getMean()));
+                System.out.println("p99 response time: " + formatLatency(responseTimes.getValueAtPercentile(99)));
             }
         });
     }
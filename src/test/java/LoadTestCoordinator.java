@@ -0,0 +1,334 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Drives one test across several LoadTestWorker processes: each worker gets an even share of the
+// users and arrival rate, all of them start at the same wall-clock instant, and their counters and
+// histograms are merged into one report.
+public class LoadTestCoordinator {
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 30000;
+    private static final int CLOCK_SAMPLES = 5;
+    // Leaves time for the START message to reach every worker before the common start instant
+    private static final long START_DELAY_MILLIS = 2000;
+
+    private final LoadTest plan;
+    private final List<InetSocketAddress> workerAddresses;
+    private final String reportDirectory;
+    private final String token;
+    // Copy-on-write, so stopTest can walk it from another thread while runTest adds and clears
+    private final List<WorkerConnection> connections = new CopyOnWriteArrayList<>();
+
+    private static class WorkerConnection {
+        final InetSocketAddress address;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        // Worker clock minus coordinator clock, in milliseconds
+        long clockOffset;
+        LoadTestResult result;
+        String error;
+
+        WorkerConnection(InetSocketAddress address, Socket socket) throws IOException {
+            this.address = address;
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+
+    // The plan is a configured LoadTest that is never run itself; its totals are split across
+    // workers. The token is the one the workers were started with.
+    public LoadTestCoordinator(LoadTest plan, List<InetSocketAddress> workerAddresses, String reportDirectory,
+                               String token) {
+        this.plan = plan;
+        this.workerAddresses = workerAddresses;
+        this.reportDirectory = reportDirectory;
+        this.token = token;
+    }
+
+    public void stopTest() {
+        for (WorkerConnection connection : connections) {
+            synchronized (connection.out) {
+                try {
+                    connection.out.writeInt(DistributedProtocol.STOP);
+                    connection.out.flush();
+                } catch (IOException e) {
+                    // the worker is gone already
+                }
+            }
+        }
+    }
+
+    // Throws IllegalArgumentException, before any worker is contacted, for a plan that cannot run
+    // distributed
+    public void runTest(LoadTest.TestProgressCallback callback) throws IOException {
+        plan.checkDistributable();
+        try {
+            int workerCount = workerAddresses.size();
+            for (int i = 0; i < workerCount; i++) {
+                WorkerConnection connection = connect(workerAddresses.get(i));
+                connections.add(connection);
+                connection.clockOffset = measureClockOffset(connection);
+                sendPlan(connection, i, workerCount);
+                callback.onProgress("Worker " + (i + 1) + " (" + connection.address + ") ready, clock offset "
+                        + connection.clockOffset + " ms");
+            }
+
+            long startAt = System.currentTimeMillis() + START_DELAY_MILLIS;
+            for (WorkerConnection connection : connections) {
+                connection.socket.setSoTimeout(0);
+                synchronized (connection.out) {
+                    connection.out.writeInt(DistributedProtocol.START);
+                    connection.out.writeLong(startAt + connection.clockOffset);
+                    connection.out.flush();
+                }
+            }
+            callback.onProgress("Starting test on " + workerCount + " workers...");
+
+            // One reader per worker forwards its progress and collects its result
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < connections.size(); i++) {
+                WorkerConnection connection = connections.get(i);
+                String prefix = "[worker " + (i + 1) + "] ";
+                Thread reader = new Thread(() -> readResults(connection, prefix, callback), "coordinator-reader-" + (i + 1));
+                reader.start();
+                readers.add(reader);
+            }
+            for (Thread reader : readers) {
+                try {
+                    reader.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopTest();
+                    return;
+                }
+            }
+
+            LoadTestResult result = mergeResults(callback);
+            generateSummaryReport(result);
+            callback.onProgress("Test completed. Reports generated in: " + reportDirectory);
+            callback.onComplete(result);
+        } finally {
+            for (WorkerConnection connection : connections) {
+                connection.socket.close();
+            }
+            connections.clear();
+        }
+    }
+
+    private WorkerConnection connect(InetSocketAddress address) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            return new WorkerConnection(address, socket);
+        } catch (IOException e) {
+            socket.close();
+            throw new IOException("Cannot connect to worker " + address + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Keeps the sample with the shortest round trip, assuming the reply was taken halfway through it
+    private long measureClockOffset(WorkerConnection connection) throws IOException {
+        long bestRoundTrip = Long.MAX_VALUE;
+        long offset = 0;
+        for (int i = 0; i < CLOCK_SAMPLES; i++) {
+            long sentAt = System.currentTimeMillis();
+            connection.out.writeInt(DistributedProtocol.CLOCK);
+            DistributedProtocol.writeString(connection.out, token);
+            connection.out.flush();
+            expect(connection, DistributedProtocol.CLOCK);
+            long workerTime = connection.in.readLong();
+            long receivedAt = System.currentTimeMillis();
+            if (receivedAt - sentAt < bestRoundTrip) {
+                bestRoundTrip = receivedAt - sentAt;
+                offset = workerTime - (sentAt + receivedAt) / 2;
+            }
+        }
+        return offset;
+    }
+
+    private void sendPlan(WorkerConnection connection, int workerIndex, int workerCount) throws IOException {
+        connection.out.writeInt(DistributedProtocol.PLAN);
+        plan.writePlan(connection.out, workerIndex, workerCount);
+        connection.out.flush();
+        expect(connection, DistributedProtocol.READY);
+    }
+
+    private void expect(WorkerConnection connection, int expectedType) throws IOException {
+        int type = connection.in.readInt();
+        if (type == DistributedProtocol.ERROR) {
+            throw new IOException("Worker " + connection.address + ": " + DistributedProtocol.readString(connection.in));
+        }
+        if (type != expectedType) {
+            throw new IOException("Worker " + connection.address + " sent unexpected message type " + type);
+        }
+    }
+
+    private void readResults(WorkerConnection connection, String prefix, LoadTest.TestProgressCallback callback) {
+        try {
+            while (true) {
+                int type = connection.in.readInt();
+                switch (type) {
+                    case DistributedProtocol.PROGRESS:
+                        callback.onProgress(prefix + DistributedProtocol.readString(connection.in));
+                        break;
+                    case DistributedProtocol.RESULT:
+                        connection.result = DistributedProtocol.readResult(connection.in);
+                        return;
+                    case DistributedProtocol.ERROR:
+                        connection.error = DistributedProtocol.readString(connection.in);
+                        callback.onProgress(prefix + connection.error);
+                        return;
+                    default:
+                        throw new IOException("unexpected message type " + type);
+                }
+            }
+        } catch (IOException e) {
+            connection.error = "Connection lost: " + e.getMessage();
+            callback.onProgress(prefix + connection.error);
+        }
+    }
+
+    // Worker times are moved onto the coordinator's clock before the timelines are combined
+    private LoadTestResult mergeResults(LoadTest.TestProgressCallback callback) {
+        long testStartTime = Long.MAX_VALUE;
+        long testEndTime = Long.MIN_VALUE;
+        for (WorkerConnection connection : connections) {
+            if (connection.result != null) {
+                long workerStart = connection.result.getTestStartTime() - connection.clockOffset;
+                testStartTime = Math.min(testStartTime, workerStart);
+                testEndTime = Math.max(testEndTime, workerStart + connection.result.getDuration());
+            }
+        }
+        if (testStartTime == Long.MAX_VALUE) {
+            testStartTime = System.currentTimeMillis();
+            testEndTime = testStartTime;
+        }
+
+        long totalRequests = 0;
+        long successfulRequests = 0;
+        long failedRequests = 0;
+        LatencyHistogram responseTimes = new LatencyHistogram();
+        LatencyHistogram correctedResponseTimes = new LatencyHistogram();
+        SortedMap<Integer, Long> completedPerSecond = new TreeMap<>();
+        SortedMap<String, EndpointStats> endpointStats = new TreeMap<>();
+        TransferStats transferStats = new TransferStats();
+        ErrorBreakdown errorBreakdown = new ErrorBreakdown();
+        for (WorkerConnection connection : connections) {
+            LoadTestResult result = connection.result;
+            if (result == null) {
+                callback.onProgress("Worker " + connection.address + " is missing from the results: " + connection.error);
+                continue;
+            }
+            totalRequests += result.getTotalRequests();
+            successfulRequests += result.getSuccessfulRequests();
+            failedRequests += result.getFailedRequests();
+            responseTimes.add(result.getResponseTimes());
+            correctedResponseTimes.add(result.getCorrectedResponseTimes());
+            long workerStart = result.getTestStartTime() - connection.clockOffset;
+            for (Map.Entry<Integer, Long> entry : result.getCompletedPerSecond().entrySet()) {
+                int second = (int) ((workerStart + entry.getKey() * 1000L - testStartTime) / 1000);
+                completedPerSecond.merge(second, entry.getValue(), Long::sum);
+            }
+            for (EndpointStats endpoint : result.getEndpointStats().values()) {
+                endpointStats.computeIfAbsent(endpoint.getName(), EndpointStats::new).add(endpoint);
+            }
+            transferStats.add(result.getTransferStats());
+            errorBreakdown.add(result.getErrorBreakdown());
+        }
+        return new LoadTestResult(testStartTime, testEndTime - testStartTime, totalRequests, successfulRequests,
+                failedRequests, responseTimes, correctedResponseTimes, completedPerSecond, new ResultColumns(0),
+                endpointStats, transferStats, errorBreakdown);
+    }
+
+    private void generateSummaryReport(LoadTestResult result) {
+        try {
+            Files.createDirectories(Paths.get(reportDirectory));
+            StringBuilder report = new StringBuilder();
+            report.append("Load Test Summary Report\n");
+            report.append("=======================\n\n");
+            report.append(plan.buildConfigurationSection());
+            LoadTest.appendResultSections(report, result);
+
+            report.append("Distributed Run:\n");
+            report.append("----------------\n");
+            report.append("Workers: ").append(connections.size()).append("\n");
+            for (int i = 0; i < connections.size(); i++) {
+                WorkerConnection connection = connections.get(i);
+                report.append("Worker ").append(i + 1).append(" (").append(connection.address).append("): ");
+                if (connection.result == null) {
+                    report.append("no result (").append(connection.error).append(")\n");
+                    continue;
+                }
+                LoadTestResult workerResult = connection.result;
+                report.append(workerResult.getTotalRequests()).append(" requests, ")
+                        .append(workerResult.getFailedRequests()).append(" failed, p99 ")
+                        .append(String.format("%.2f", workerResult.getResponseTimes().getValueAtPercentile(99) / 1000.0))
+                        .append(" ms, clock offset ").append(connection.clockOffset).append(" ms\n");
+            }
+
+            Files.write(Paths.get(reportDirectory, "summary_report.txt"), report.toString().getBytes());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Usage: LoadTestCoordinator <url> <users> <rampUpTime> <loopCount> <requestsPerSecond> <reportDirectory>
+    //        <host:port>[,<host:port>...] [httpMethod] [body]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 7) {
+            System.err.println("Usage: LoadTestCoordinator <url> <users> <rampUpTime> <loopCount> <requestsPerSecond>"
+                    + " <reportDirectory> <host:port>[,<host:port>...] [httpMethod] [body]");
+            return;
+        }
+        LoadTest plan = new LoadTest();
+        plan.configure(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                Integer.parseInt(args[4]), args[5], "", args.length > 8 ? args[8] : "",
+                args.length > 7 ? args[7] : "GET", null);
+
+        String token = System.getenv(DistributedProtocol.TOKEN_VARIABLE);
+        if (token == null || token.isEmpty()) {
+            System.err.println("Set " + DistributedProtocol.TOKEN_VARIABLE + " to the token the workers were started with");
+            return;
+        }
+
+        List<InetSocketAddress> workers = new ArrayList<>();
+        for (String worker : args[6].split(",")) {
+            int separator = worker.lastIndexOf(':');
+            workers.add(separator < 0
+                    ? new InetSocketAddress(worker, DistributedProtocol.DEFAULT_PORT)
+                    : new InetSocketAddress(worker.substring(0, separator), Integer.parseInt(worker.substring(separator + 1))));
+        }
+
+        new LoadTestCoordinator(plan, workers, args[5], token).runTest(new LoadTest.TestProgressCallback() {
+            @Override
+            public void onProgress(String message) {
+                System.out.println(message);
+            }
+
+            @Override
+            public void onComplete(LoadTestResult result) {
+                System.out.println("\nTest completed!");
+                System.out.println("Total requests: " + result.getTotalRequests());
+                System.out.println("Failed requests: " + result.getFailedRequests());
+                System.out.println("p99 response time: " +
+                    String.format("%.2f ms", result.getResponseTimes().getValueAtPercentile(99) / 1000.0));
+            }
+        });
+    }
+}
@@ -3,19 +3,27 @@ import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.category.LineAndShapeRenderer;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.xy.XYDataset;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.file.Paths;
 import java.util.Map;
 
 public class LoadTestGUI extends JFrame {
@@ -26,14 +34,25 @@ public class LoadTestGUI extends JFrame {
     private JTextField requestsPerSecondField;
     private JTextField reportDirectoryField;
     private JTextArea bodyArea;
+    private JTextArea assertionsArea;
     private JTextArea logArea;
     private JButton startButton;
     private JButton stopButton;
+    private JButton applyProfileButton;
+    private JButton abortButton;
     private JButton selectBodyFileButton;
     private JButton selectReportDirButton;
     private JTabbedPane tabbedPane;
     private JTable resultsTable;
     private DefaultTableModel tableModel;
+    private DefaultTableModel endpointTableModel;
+    private JTable requestTable;
+    private ResultTableModel requestTableModel;
+    private JComboBox<String> statusFilterCombo;
+    private JComboBox<String> statusClassCombo;
+    private JTextField minResponseTimeField;
+    private JTextField maxResponseTimeField;
+    private JLabel requestRowsLabel;
     private ChartPanel responseTimeChart;
     private ChartPanel throughputChart;
     private JPanel statsPanel;
@@ -43,11 +62,61 @@ public class LoadTestGUI extends JFrame {
     private JComboBox<String> httpMethodCombo;
     private JComboBox<String> authTypeCombo;
     private JTextField authTokenField;
+    private JTextField maxConnectionsPerRouteField;
+    private JTextField maxConnectionsTotalField;
+    private JTextField keepAliveField;
+    private JTextField idleEvictionField;
+    private JTextField connectTimeoutField;
+    private JTextField readTimeoutField;
+    private JCheckBox poolPerUserCheckBox;
+    private JComboBox<String> requestEngineCombo;
+    private JComboBox<String> workloadModelCombo;
+    private JComboBox<String> executorModeCombo;
+    private JTextField arrivalRateField;
+    private JTextField maxInFlightField;
+    private JTextField requestLogSampleField;
+    private JTextField loadProfileField;
+    private JTextField maxDurationField;
+    private JTextField maxRequestsField;
+    private JTextField drainTimeoutField;
+    private JTextField scenarioFileField;
+    private JComboBox<String> scenarioModeCombo;
+    private JButton selectScenarioFileButton;
+    private JTextField replayFileField;
+    private JComboBox<String> replayFormatCombo;
+    private JTextField replaySpeedField;
+    private JButton selectReplayFileButton;
+    private JTextField feederFileField;
+    private JComboBox<String> feederModeCombo;
+    private JButton selectFeederFileButton;
+    private JCheckBox stubTargetCheckBox;
+    private JTextField stubMinLatencyField;
+    private JTextField stubMaxLatencyField;
+    private JTextField stubResponseBytesField;
+    private JTextField stubErrorRateField;
+    private JTextField calibrationSecondsField;
+    private JCheckBox saturationCheckBox;
+    private JComboBox<String> saturationModeCombo;
+    private JTextField saturationStartRateField;
+    private JTextField saturationMaxRateField;
+    private JTextField saturationIncrementField;
+    private JTextField saturationStepSecondsField;
+    private JTextField sloP99Field;
+    private JTextField sloErrorPercentField;
+    private JComboBox<String> headerPresetCombo;
+    private transient JSONObject headerPresets = new JSONObject();
+    private static final String HEADER_PRESETS_FILE = "header_presets.json";
+    private JLabel liveStatusLabel;
+    // Live charts show the last five minutes of the run
+    private final transient LiveMetricsSeries liveMetrics = new LiveMetricsSeries(300);
+    // Older lines are dropped so a long test cannot grow the log without limit
+    private static final int MAX_LOG_LINES = 1000;
+    // Longer runs are averaged over buckets of several seconds, so a soak draws as fast as a short test
+    private static final int MAX_THROUGHPUT_POINTS = 1000;
     private static final String CONFIG_FILE = "loadtest_config.json";
     private JSONObject savedConfig;
     private LoadTest currentTest;
     private volatile boolean isTestRunning = false;
-    private long testStartTime;
 
     public LoadTestGUI() {
         try {
@@ -62,6 +131,7 @@ public class LoadTestGUI extends JFrame {
             
             tabbedPane = new JTabbedPane();
             tabbedPane.addTab("Configuration", createConfigurationPanel());
+            tabbedPane.addTab("Live", createLivePanel());
             tabbedPane.addTab("Results", createResultsPanel());
             mainPanel.add(tabbedPane, BorderLayout.CENTER);
             
@@ -89,11 +159,57 @@ public class LoadTestGUI extends JFrame {
         requestsPerSecondField = new JTextField();
         reportDirectoryField = new JTextField();
         authTokenField = new JTextField();
+        maxConnectionsPerRouteField = new JTextField();
+        maxConnectionsTotalField = new JTextField();
+        keepAliveField = new JTextField("30000");
+        idleEvictionField = new JTextField("10000");
+        connectTimeoutField = new JTextField("10000");
+        readTimeoutField = new JTextField("60000");
+        poolPerUserCheckBox = new JCheckBox("One connection pool per user");
+        requestEngineCombo = new JComboBox<>(new String[]{"Apache HttpClient (pooled, blocking)", "Java HttpClient (async)"});
+        workloadModelCombo = new JComboBox<>(new String[]{"Closed (per-user pacing)", "Open (arrival rate)"});
+        arrivalRateField = new JTextField();
+        executorModeCombo = new JComboBox<>(new String[]{"Platform threads", "Virtual threads"});
+        maxInFlightField = new JTextField("1000");
+        requestLogSampleField = new JTextField("0");
+        loadProfileField = new JTextField();
+        maxDurationField = new JTextField("0");
+        maxRequestsField = new JTextField("0");
+        drainTimeoutField = new JTextField("60");
+        scenarioFileField = new JTextField();
+        scenarioModeCombo = new JComboBox<>(new String[]{"Weighted", "Sequential per user", "Stream in file order"});
+        selectScenarioFileButton = new JButton("Browse");
+        replayFileField = new JTextField();
+        replayFormatCombo = new JComboBox<>(new String[]{"Auto-detect", "Common/combined log", "JSONL"});
+        replaySpeedField = new JTextField("1");
+        selectReplayFileButton = new JButton("Browse");
+        feederFileField = new JTextField();
+        feederModeCombo = new JComboBox<>(new String[]{"Per user (each user its own rows)", "Shared (file order)", "Random row"});
+        selectFeederFileButton = new JButton("Browse");
+        stubTargetCheckBox = new JCheckBox("Send requests to an embedded stub target instead of the URL's host");
+        stubMinLatencyField = new JTextField("0");
+        stubMaxLatencyField = new JTextField("0");
+        stubResponseBytesField = new JTextField("15");
+        stubErrorRateField = new JTextField("0");
+        calibrationSecondsField = new JTextField("0");
+        saturationCheckBox = new JCheckBox("Search for the max sustainable rate instead of running the workload");
+        saturationModeCombo = new JComboBox<>(new String[]{"Binary (double, then bisect)", "Exponential (double)", "Step (add increment)"});
+        saturationStartRateField = new JTextField("10");
+        saturationMaxRateField = new JTextField("10000");
+        saturationIncrementField = new JTextField("50");
+        saturationStepSecondsField = new JTextField("30");
+        sloP99Field = new JTextField("500");
+        sloErrorPercentField = new JTextField("1");
+        headerPresetCombo = new JComboBox<>();
+        loadHeaderPresets();
+        liveStatusLabel = new JLabel(" ");
         
         // Initialize text areas
         bodyArea = new JTextArea();
         bodyArea.setLineWrap(true);
         bodyArea.setWrapStyleWord(true);
+
+        assertionsArea = new JTextArea(6, 60);
         
         logArea = new JTextArea();
         logArea.setEditable(false);
@@ -123,12 +239,18 @@ public class LoadTestGUI extends JFrame {
         startButton = new JButton("Start Test");
         stopButton = new JButton("Stop Test");
         stopButton.setEnabled(false);
+        // Sends the profile field to the running test, starting from the load it is at
+        applyProfileButton = new JButton("Apply Profile");
+        applyProfileButton.setEnabled(false);
+        // Stop lets in-flight requests drain; abort abandons them and writes the reports at once
+        abortButton = new JButton("Abort Test");
+        abortButton.setEnabled(false);
         selectBodyFileButton = new JButton("Select Body File");
         selectReportDirButton = new JButton("Select Directory");
         
         // Initialize table
         tableModel = new DefaultTableModel(
-            new String[]{"Request #", "Response Time (ms)", "Status Code", "Success"}, 
+            new String[]{"Percentile", "Response Time (ms)", "Corrected Response Time (ms)"}, 
             0
         );
         resultsTable = new JTable(tableModel);
@@ -165,6 +287,45 @@ public class LoadTestGUI extends JFrame {
                 requestsPerSecondField.setText(config.optString("requestsPerSecond", ""));
                 reportDirectoryField.setText(config.optString("reportDirectory", ""));
                 bodyArea.setText(config.optString("body", ""));
+                maxConnectionsPerRouteField.setText(config.optString("maxConnectionsPerRoute", ""));
+                maxConnectionsTotalField.setText(config.optString("maxConnectionsTotal", ""));
+                keepAliveField.setText(config.optString("keepAliveMillis", "30000"));
+                idleEvictionField.setText(config.optString("idleEvictionMillis", "10000"));
+                connectTimeoutField.setText(config.optString("connectTimeoutMillis", "10000"));
+                readTimeoutField.setText(config.optString("readTimeoutMillis", "60000"));
+                poolPerUserCheckBox.setSelected(config.optBoolean("poolPerUser", false));
+                requestEngineCombo.setSelectedIndex(config.optBoolean("asyncEngine", false) ? 1 : 0);
+                workloadModelCombo.setSelectedIndex(config.optBoolean("openModel", false) ? 1 : 0);
+                arrivalRateField.setText(config.optString("arrivalRate", ""));
+                maxInFlightField.setText(config.optString("maxInFlight", "1000"));
+                executorModeCombo.setSelectedIndex(config.optBoolean("virtualThreads", false) ? 1 : 0);
+                requestLogSampleField.setText(config.optString("requestLogSampleRate", "0"));
+                loadProfileField.setText(config.optString("loadProfile", ""));
+                maxDurationField.setText(config.optString("maxDurationSeconds", "0"));
+                maxRequestsField.setText(config.optString("maxRequests", "0"));
+                drainTimeoutField.setText(config.optString("drainTimeoutSeconds", "60"));
+                scenarioFileField.setText(config.optString("scenarioFile", ""));
+                scenarioModeCombo.setSelectedIndex(Math.max(0, Math.min(2, config.optInt("scenarioMode", 0))));
+                replayFileField.setText(config.optString("replayFile", ""));
+                replayFormatCombo.setSelectedIndex(Math.max(0, Math.min(2, config.optInt("replayFormat", 0))));
+                replaySpeedField.setText(config.optString("replaySpeed", "1"));
+                feederFileField.setText(config.optString("feederFile", ""));
+                feederModeCombo.setSelectedIndex(Math.max(0, Math.min(2, config.optInt("feederMode", 0))));
+                assertionsArea.setText(config.optString("assertions", ""));
+                stubTargetCheckBox.setSelected(config.optBoolean("stubTarget", false));
+                stubMinLatencyField.setText(config.optString("stubMinLatencyMillis", "0"));
+                stubMaxLatencyField.setText(config.optString("stubMaxLatencyMillis", "0"));
+                stubResponseBytesField.setText(config.optString("stubResponseBytes", "15"));
+                stubErrorRateField.setText(config.optString("stubErrorPercent", "0"));
+                calibrationSecondsField.setText(config.optString("calibrationSeconds", "0"));
+                saturationCheckBox.setSelected(config.optBoolean("saturationSearch", false));
+                saturationModeCombo.setSelectedIndex(Math.max(0, Math.min(2, config.optInt("saturationMode", 0))));
+                saturationStartRateField.setText(config.optString("saturationStartRate", "10"));
+                saturationMaxRateField.setText(config.optString("saturationMaxRate", "10000"));
+                saturationIncrementField.setText(config.optString("saturationIncrement", "50"));
+                saturationStepSecondsField.setText(config.optString("saturationStepSeconds", "30"));
+                sloP99Field.setText(config.optString("sloP99Millis", "500"));
+                sloErrorPercentField.setText(config.optString("sloErrorPercent", "1"));
                 
                 // Load headers
                 headersPanel.removeAll();
@@ -210,6 +371,45 @@ public class LoadTestGUI extends JFrame {
                 config.put("requestsPerSecond", requestsPerSecondField.getText());
                 config.put("reportDirectory", reportDirectoryField.getText());
                 config.put("body", bodyArea.getText());
+                config.put("maxConnectionsPerRoute", maxConnectionsPerRouteField.getText());
+                config.put("maxConnectionsTotal", maxConnectionsTotalField.getText());
+                config.put("keepAliveMillis", keepAliveField.getText());
+                config.put("idleEvictionMillis", idleEvictionField.getText());
+                config.put("connectTimeoutMillis", connectTimeoutField.getText());
+                config.put("readTimeoutMillis", readTimeoutField.getText());
+                config.put("poolPerUser", poolPerUserCheckBox.isSelected());
+                config.put("asyncEngine", requestEngineCombo.getSelectedIndex() == 1);
+                config.put("openModel", isOpenModelSelected());
+                config.put("arrivalRate", arrivalRateField.getText());
+                config.put("maxInFlight", maxInFlightField.getText());
+                config.put("virtualThreads", executorModeCombo.getSelectedIndex() == 1);
+                config.put("requestLogSampleRate", requestLogSampleField.getText());
+                config.put("loadProfile", loadProfileField.getText());
+                config.put("maxDurationSeconds", maxDurationField.getText());
+                config.put("maxRequests", maxRequestsField.getText());
+                config.put("drainTimeoutSeconds", drainTimeoutField.getText());
+                config.put("scenarioFile", scenarioFileField.getText());
+                config.put("scenarioMode", scenarioModeCombo.getSelectedIndex());
+                config.put("replayFile", replayFileField.getText());
+                config.put("replayFormat", replayFormatCombo.getSelectedIndex());
+                config.put("replaySpeed", replaySpeedField.getText());
+                config.put("feederFile", feederFileField.getText());
+                config.put("feederMode", feederModeCombo.getSelectedIndex());
+                config.put("assertions", assertionsArea.getText());
+                config.put("stubTarget", stubTargetCheckBox.isSelected());
+                config.put("stubMinLatencyMillis", stubMinLatencyField.getText());
+                config.put("stubMaxLatencyMillis", stubMaxLatencyField.getText());
+                config.put("stubResponseBytes", stubResponseBytesField.getText());
+                config.put("stubErrorPercent", stubErrorRateField.getText());
+                config.put("calibrationSeconds", calibrationSecondsField.getText());
+                config.put("saturationSearch", saturationCheckBox.isSelected());
+                config.put("saturationMode", saturationModeCombo.getSelectedIndex());
+                config.put("saturationStartRate", saturationStartRateField.getText());
+                config.put("saturationMaxRate", saturationMaxRateField.getText());
+                config.put("saturationIncrement", saturationIncrementField.getText());
+                config.put("saturationStepSeconds", saturationStepSecondsField.getText());
+                config.put("sloP99Millis", sloP99Field.getText());
+                config.put("sloErrorPercent", sloErrorPercentField.getText());
                 
                 // Save headers
                 JSONArray headers = new JSONArray();
@@ -249,6 +449,42 @@ public class LoadTestGUI extends JFrame {
         }
     }
 
+    // Named header sets, e.g. {"comm": {"headers": [{"key": "apiKey", "value": "${apiKey}"}]}}
+    private void loadHeaderPresets() {
+        File presetsFile = new File(HEADER_PRESETS_FILE);
+        if (!presetsFile.exists()) {
+            return;
+        }
+        try {
+            headerPresets = new JSONObject(new String(Files.readAllBytes(presetsFile.toPath()), StandardCharsets.UTF_8));
+            for (String name : headerPresets.keySet()) {
+                headerPresetCombo.addItem(name);
+            }
+        } catch (Exception e) {
+            System.err.println("Error loading header presets: " + e.getMessage());
+        }
+    }
+
+    // Replaces the header rows with the selected preset's headers
+    private void applyHeaderPreset() {
+        String name = (String) headerPresetCombo.getSelectedItem();
+        JSONObject preset = name == null ? null : headerPresets.optJSONObject(name);
+        JSONArray headers = preset == null ? null : preset.optJSONArray("headers");
+        if (headers == null) {
+            return;
+        }
+        headersPanel.removeAll();
+        for (int i = 0; i < headers.length(); i++) {
+            JSONObject header = headers.getJSONObject(i);
+            addHeaderRow(headersPanel, header.optString("key", ""), header.optString("value", ""));
+        }
+        if (headersPanel.getComponentCount() == 0) {
+            addHeaderRow(headersPanel);
+        }
+        headersPanel.revalidate();
+        headersPanel.repaint();
+    }
+
     private void addHeaderRow(JPanel panel) {
         addHeaderRow(panel, "", "");
     }
@@ -403,6 +639,11 @@ public class LoadTestGUI extends JFrame {
         JButton addHeaderButton = new JButton("Add Header");
         addHeaderButton.addActionListener(e -> addHeaderRow(headersPanel));
         addHeaderButtonPanel.add(addHeaderButton);
+        JButton applyPresetButton = new JButton("Apply Preset");
+        applyPresetButton.addActionListener(e -> applyHeaderPreset());
+        addHeaderButtonPanel.add(new JLabel("Preset:"));
+        addHeaderButtonPanel.add(headerPresetCombo);
+        addHeaderButtonPanel.add(applyPresetButton);
         headersContainer.add(headersScroll, BorderLayout.CENTER);
         headersContainer.add(addHeaderButtonPanel, BorderLayout.SOUTH);
         requestConfigPane.addTab("Headers", headersContainer);
@@ -435,6 +676,141 @@ public class LoadTestGUI extends JFrame {
         
         authContainer.add(authContent, BorderLayout.CENTER);
         requestConfigPane.addTab("Authorization", authContainer);
+
+        // Connection Pool Tab
+        JPanel connectionContainer = new JPanel(new BorderLayout());
+        connectionContainer.setBorder(BorderFactory.createTitledBorder("Connection Pool"));
+        JPanel connectionContent = new JPanel(new GridLayout(8, 2, 5, 5));
+        connectionContent.add(new JLabel("Request Engine:"));
+        connectionContent.add(requestEngineCombo);
+        connectionContent.add(new JLabel("Max Connections per Route (empty = users):"));
+        connectionContent.add(maxConnectionsPerRouteField);
+        connectionContent.add(new JLabel("Max Connections Total (empty = users):"));
+        connectionContent.add(maxConnectionsTotalField);
+        connectionContent.add(new JLabel("Keep-Alive (ms):"));
+        connectionContent.add(keepAliveField);
+        connectionContent.add(new JLabel("Idle Eviction (ms, 0 = off):"));
+        connectionContent.add(idleEvictionField);
+        connectionContent.add(new JLabel("Connect Timeout (ms, 0 = none):"));
+        connectionContent.add(connectTimeoutField);
+        connectionContent.add(new JLabel("Read Timeout (ms, 0 = none):"));
+        connectionContent.add(readTimeoutField);
+        connectionContent.add(new JLabel("Pool Mode:"));
+        connectionContent.add(poolPerUserCheckBox);
+        connectionContainer.add(connectionContent, BorderLayout.NORTH);
+        requestConfigPane.addTab("Connection", connectionContainer);
+
+        // Data Tab
+        JPanel dataContainer = new JPanel(new BorderLayout());
+        dataContainer.setBorder(BorderFactory.createTitledBorder("Test Data"));
+        JPanel dataContent = new JPanel(new GridLayout(3, 2, 5, 5));
+        JPanel feederFilePanel = new JPanel(new BorderLayout(5, 0));
+        feederFilePanel.add(feederFileField, BorderLayout.CENTER);
+        feederFilePanel.add(selectFeederFileButton, BorderLayout.EAST);
+        dataContent.add(new JLabel("Data File (CSV with header row, or JSONL):"));
+        dataContent.add(feederFilePanel);
+        dataContent.add(new JLabel("Row Selection:"));
+        dataContent.add(feederModeCombo);
+        dataContent.add(new JLabel("Use columns as ${name} in URL, headers and body"));
+        dataContainer.add(dataContent, BorderLayout.NORTH);
+        requestConfigPane.addTab("Data", dataContainer);
+
+        // Assertions Tab
+        JPanel assertionsContainer = new JPanel(new BorderLayout(5, 5));
+        assertionsContainer.setBorder(BorderFactory.createTitledBorder("Response Assertions"));
+        assertionsContainer.add(new JLabel("<html>One rule per line, e.g. <tt>status 200-299,304</tt>, <tt>maxLatency 500</tt>, "
+                + "<tt>header X-Request-Id</tt>, <tt>body not contains \"error\"</tt>, <tt>json $.status == \"ok\"</tt>, "
+                + "<tt>extract token json $.access_token</tt> (then use ${token}). Empty = any 2xx passes.</html>"),
+                BorderLayout.NORTH);
+        assertionsContainer.add(new JScrollPane(assertionsArea), BorderLayout.CENTER);
+        requestConfigPane.addTab("Assertions", assertionsContainer);
+
+        // Workload Tab
+        JPanel workloadContainer = new JPanel(new BorderLayout());
+        workloadContainer.setBorder(BorderFactory.createTitledBorder("Workload Model"));
+        JPanel workloadContent = new JPanel(new GridLayout(14, 2, 5, 5));
+        workloadContent.add(new JLabel("Model:"));
+        workloadContent.add(workloadModelCombo);
+        workloadContent.add(new JLabel("Executor:"));
+        workloadContent.add(executorModeCombo);
+        workloadContent.add(new JLabel("Arrival Rate (requests/s, open model):"));
+        workloadContent.add(arrivalRateField);
+        workloadContent.add(new JLabel("Max In-Flight Requests (open model, replay):"));
+        workloadContent.add(maxInFlightField);
+        // Stages of "<duration> <target>": users in the closed model, requests/s in the open model
+        workloadContent.add(new JLabel("Load Profile (e.g. 1m 50, 10m 50, 0s 200, 1m 200, 1m 0; empty = off):"));
+        workloadContent.add(loadProfileField);
+        // Limits end the run early, whatever the workload above still has to send
+        workloadContent.add(new JLabel("Max Duration (seconds, 0 = no limit):"));
+        workloadContent.add(maxDurationField);
+        workloadContent.add(new JLabel("Max Requests (0 = no limit):"));
+        workloadContent.add(maxRequestsField);
+        workloadContent.add(new JLabel("Drain Timeout for In-Flight Requests (seconds):"));
+        workloadContent.add(drainTimeoutField);
+        workloadContent.add(new JLabel("Log Every Nth Request (0 = off):"));
+        workloadContent.add(requestLogSampleField);
+        // A scenario file replaces the single request above with a mix of requests, one JSON per line
+        JPanel scenarioFilePanel = new JPanel(new BorderLayout(5, 0));
+        scenarioFilePanel.add(scenarioFileField, BorderLayout.CENTER);
+        scenarioFilePanel.add(selectScenarioFileButton, BorderLayout.EAST);
+        workloadContent.add(new JLabel("Scenario File (JSONL, empty = single request):"));
+        workloadContent.add(scenarioFilePanel);
+        workloadContent.add(new JLabel("Scenario Mode:"));
+        workloadContent.add(scenarioModeCombo);
+        // Replaying an access log replaces the workload model; requests go to the host of the URL above
+        JPanel replayFilePanel = new JPanel(new BorderLayout(5, 0));
+        replayFilePanel.add(replayFileField, BorderLayout.CENTER);
+        replayFilePanel.add(selectReplayFileButton, BorderLayout.EAST);
+        workloadContent.add(new JLabel("Replay Access Log (empty = off):"));
+        workloadContent.add(replayFilePanel);
+        workloadContent.add(new JLabel("Replay Log Format:"));
+        workloadContent.add(replayFormatCombo);
+        workloadContent.add(new JLabel("Replay Speed (1 = original pace):"));
+        workloadContent.add(replaySpeedField);
+        workloadContainer.add(workloadContent, BorderLayout.NORTH);
+        requestConfigPane.addTab("Workload", workloadContainer);
+
+        // Stub Target Tab: a local target with known behaviour, to tell generator limits from target limits
+        JPanel stubContainer = new JPanel(new BorderLayout());
+        stubContainer.setBorder(BorderFactory.createTitledBorder("Stub Target and Calibration"));
+        JPanel stubContent = new JPanel(new GridLayout(6, 2, 5, 5));
+        stubContent.add(new JLabel("Stub Target:"));
+        stubContent.add(stubTargetCheckBox);
+        stubContent.add(new JLabel("Min Latency (ms):"));
+        stubContent.add(stubMinLatencyField);
+        stubContent.add(new JLabel("Max Latency (ms, = min for fixed latency):"));
+        stubContent.add(stubMaxLatencyField);
+        stubContent.add(new JLabel("Response Size (bytes):"));
+        stubContent.add(stubResponseBytesField);
+        stubContent.add(new JLabel("Error Rate (% answered with 500):"));
+        stubContent.add(stubErrorRateField);
+        stubContent.add(new JLabel("Calibrate Generator First (seconds, 0 = off):"));
+        stubContent.add(calibrationSecondsField);
+        stubContainer.add(stubContent, BorderLayout.NORTH);
+        requestConfigPane.addTab("Stub Target", stubContainer);
+
+        // Capacity Tab: steps the open-model rate up until the SLO breaks
+        JPanel capacityContainer = new JPanel(new BorderLayout());
+        capacityContainer.setBorder(BorderFactory.createTitledBorder("Saturation Search"));
+        JPanel capacityContent = new JPanel(new GridLayout(8, 2, 5, 5));
+        capacityContent.add(new JLabel("Saturation Search:"));
+        capacityContent.add(saturationCheckBox);
+        capacityContent.add(new JLabel("Search:"));
+        capacityContent.add(saturationModeCombo);
+        capacityContent.add(new JLabel("Start Rate (requests/s):"));
+        capacityContent.add(saturationStartRateField);
+        capacityContent.add(new JLabel("Max Rate (requests/s):"));
+        capacityContent.add(saturationMaxRateField);
+        capacityContent.add(new JLabel("Increment (requests/s, step search):"));
+        capacityContent.add(saturationIncrementField);
+        capacityContent.add(new JLabel("Step Length (seconds):"));
+        capacityContent.add(saturationStepSecondsField);
+        capacityContent.add(new JLabel("SLO p99 (ms):"));
+        capacityContent.add(sloP99Field);
+        capacityContent.add(new JLabel("SLO Error Rate (%):"));
+        capacityContent.add(sloErrorPercentField);
+        capacityContainer.add(capacityContent, BorderLayout.NORTH);
+        requestConfigPane.addTab("Capacity", capacityContainer);
         
         gbc.gridy = 4;
         mainPanel.add(requestConfigPane, gbc);
@@ -463,7 +839,10 @@ public class LoadTestGUI extends JFrame {
 
         // Log Area
         gbc.gridy = 7;
-        mainPanel.add(new JLabel("Test Log:"), gbc);
+        JPanel logHeader = new JPanel(new BorderLayout());
+        logHeader.add(new JLabel("Test Log:"), BorderLayout.WEST);
+        logHeader.add(liveStatusLabel, BorderLayout.EAST);
+        mainPanel.add(logHeader, gbc);
         gbc.gridy = 8;
         gbc.weighty = 0.3;
         gbc.fill = GridBagConstraints.BOTH;
@@ -475,6 +854,8 @@ public class LoadTestGUI extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         buttonPanel.add(startButton);
         buttonPanel.add(stopButton);
+        buttonPanel.add(abortButton);
+        buttonPanel.add(applyProfileButton);
         gbc.gridy = 9;
         gbc.weighty = 0.0;
         gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -618,47 +999,205 @@ public class LoadTestGUI extends JFrame {
                 (String) httpMethodCombo.getSelectedItem(),
                 getAuthHeader()
             );
+            currentTest.configureConnectionPool(
+                parseIntOrDefault(maxConnectionsPerRouteField.getText(), 0),
+                parseIntOrDefault(maxConnectionsTotalField.getText(), 0),
+                parseIntOrDefault(keepAliveField.getText(), 30000),
+                parseIntOrDefault(idleEvictionField.getText(), 10000),
+                poolPerUserCheckBox.isSelected()
+            );
+            currentTest.configureTimeouts(
+                parseIntOrDefault(connectTimeoutField.getText(), 10000),
+                parseIntOrDefault(readTimeoutField.getText(), 60000)
+            );
+            currentTest.configureRequestEngine(requestEngineCombo.getSelectedIndex() == 1
+                ? LoadTest.RequestEngineType.JAVA_ASYNC
+                : LoadTest.RequestEngineType.APACHE_POOLED,
+                Runtime.getRuntime().availableProcessors());
+            currentTest.configureExecutorMode(executorModeCombo.getSelectedIndex() == 1
+                ? LoadTest.ExecutorMode.VIRTUAL
+                : LoadTest.ExecutorMode.PLATFORM);
+            currentTest.configureProgress(250, parseIntOrDefault(requestLogSampleField.getText(), 0));
+            String scenarioFile = scenarioFileField.getText().trim();
+            if (!scenarioFile.isEmpty()) {
+                ScenarioLoader.Mode scenarioMode;
+                switch (scenarioModeCombo.getSelectedIndex()) {
+                    case 1:
+                        scenarioMode = ScenarioLoader.Mode.SEQUENTIAL;
+                        break;
+                    case 2:
+                        scenarioMode = ScenarioLoader.Mode.STREAM;
+                        break;
+                    default:
+                        scenarioMode = ScenarioLoader.Mode.WEIGHTED;
+                        break;
+                }
+                currentTest.configureScenario(Paths.get(scenarioFile), scenarioMode);
+            }
+            String feederFile = feederFileField.getText().trim();
+            if (!feederFile.isEmpty()) {
+                DataFeeder.Mode feederMode;
+                switch (feederModeCombo.getSelectedIndex()) {
+                    case 1:
+                        feederMode = DataFeeder.Mode.SHARED;
+                        break;
+                    case 2:
+                        feederMode = DataFeeder.Mode.RANDOM;
+                        break;
+                    default:
+                        feederMode = DataFeeder.Mode.PER_USER;
+                        break;
+                }
+                currentTest.configureFeeder(Paths.get(feederFile), feederMode);
+            }
+            try {
+                currentTest.configureAssertions(ResponseRules.parse(assertionsArea.getText()));
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(this, "Invalid assertions: " + e.getMessage());
+                return;
+            }
+            if (stubTargetCheckBox.isSelected()) {
+                try {
+                    long minLatency = parseIntOrDefault(stubMinLatencyField.getText(), 0);
+                    currentTest.configureStubTarget(new StubTargetSettings(minLatency,
+                        Math.max(minLatency, parseIntOrDefault(stubMaxLatencyField.getText(), 0)),
+                        parseIntOrDefault(stubResponseBytesField.getText(), 15),
+                        stubErrorRateField.getText().trim().isEmpty() ? 0
+                            : Double.parseDouble(stubErrorRateField.getText().trim()) / 100));
+                } catch (IllegalArgumentException e) {
+                    JOptionPane.showMessageDialog(this, e.getMessage());
+                    return;
+                }
+            }
+            currentTest.configureCalibration(parseIntOrDefault(calibrationSecondsField.getText(), 0) * 1000L);
+            currentTest.configureTermination(parseIntOrDefault(maxDurationField.getText(), 0) * 1000L,
+                parseIntOrDefault(maxRequestsField.getText(), 0),
+                parseIntOrDefault(drainTimeoutField.getText(), 60) * 1000L);
+            String replayFile = replayFileField.getText().trim();
+            if (!replayFile.isEmpty()) {
+                AccessLogReader.Format replayFormat;
+                switch (replayFormatCombo.getSelectedIndex()) {
+                    case 1:
+                        replayFormat = AccessLogReader.Format.COMMON;
+                        break;
+                    case 2:
+                        replayFormat = AccessLogReader.Format.JSONL;
+                        break;
+                    default:
+                        replayFormat = AccessLogReader.Format.AUTO;
+                        break;
+                }
+                currentTest.configureReplay(Paths.get(replayFile), replayFormat,
+                    Double.parseDouble(replaySpeedField.getText().trim()),
+                    parseIntOrDefault(maxInFlightField.getText(), 1000));
+            }
+            String loadProfile = loadProfileField.getText().trim();
+            if (!loadProfile.isEmpty()) {
+                try {
+                    currentTest.configureLoadProfile(LoadProfile.parse(loadProfile));
+                } catch (IllegalArgumentException e) {
+                    JOptionPane.showMessageDialog(this, "Invalid load profile: " + e.getMessage());
+                    return;
+                }
+            }
+            if (isOpenModelSelected()) {
+                if (arrivalRateField.getText().trim().isEmpty() && loadProfile.isEmpty()
+                        && !saturationCheckBox.isSelected()) {
+                    JOptionPane.showMessageDialog(this, "Please enter arrival rate for the open model");
+                    return;
+                }
+                currentTest.configureOpenModel(
+                    parseIntOrDefault(arrivalRateField.getText(), 0),
+                    parseIntOrDefault(maxInFlightField.getText(), 1000)
+                );
+            }
+            if (saturationCheckBox.isSelected()) {
+                SaturationSearch.Mode searchMode;
+                switch (saturationModeCombo.getSelectedIndex()) {
+                    case 1:
+                        searchMode = SaturationSearch.Mode.EXPONENTIAL;
+                        break;
+                    case 2:
+                        searchMode = SaturationSearch.Mode.STEP;
+                        break;
+                    default:
+                        searchMode = SaturationSearch.Mode.BINARY;
+                        break;
+                }
+                try {
+                    currentTest.configureSaturationSearch(new SaturationSearch(searchMode,
+                        Double.parseDouble(saturationStartRateField.getText().trim()),
+                        Double.parseDouble(saturationMaxRateField.getText().trim()),
+                        saturationIncrementField.getText().trim().isEmpty() ? 0
+                            : Double.parseDouble(saturationIncrementField.getText().trim()),
+                        parseIntOrDefault(saturationStepSecondsField.getText(), 30) * 1000L,
+                        parseIntOrDefault(sloP99Field.getText(), 500),
+                        sloErrorPercentField.getText().trim().isEmpty() ? 0
+                            : Double.parseDouble(sloErrorPercentField.getText().trim()) / 100),
+                        parseIntOrDefault(maxInFlightField.getText(), 1000));
+                } catch (IllegalArgumentException e) {
+                    JOptionPane.showMessageDialog(this, "Invalid saturation search: " + e.getMessage());
+                    return;
+                }
+            }
 
             // Start test in separate thread
             isTestRunning = true;
-            testStartTime = System.currentTimeMillis();
             new Thread(() -> {
                 try {
                     startButton.setEnabled(false);
                     stopButton.setEnabled(true);
+                    abortButton.setEnabled(true);
+                    applyProfileButton.setEnabled(true);
                     logArea.append("Starting test...\n");
+                    SwingUtilities.invokeLater(liveMetrics::clear);
                     currentTest.runTest(new LoadTest.TestProgressCallback() {
                         @Override
                         public void onProgress(String message) {
+                            SwingUtilities.invokeLater(() -> appendLog(message));
+                        }
+
+                        @Override
+                        public void onIntervalStats(IntervalStats stats) {
+                            LatencyHistogram interval = stats.getResponseTimes();
+                            String status = String.format("%d requests | %.1f req/s | %d errors | p50 %s | p95 %s | p99 %s",
+                                stats.getTotalRequests(), stats.getRequestsPerSecond(), stats.getErrors(),
+                                LoadTest.formatLatency(interval.getValueAtPercentile(50)),
+                                LoadTest.formatLatency(interval.getValueAtPercentile(95)),
+                                LoadTest.formatLatency(interval.getValueAtPercentile(99)));
                             SwingUtilities.invokeLater(() -> {
-                                logArea.append(message + "\n");
-                                logArea.setCaretPosition(logArea.getDocument().getLength());
+                                liveStatusLabel.setText(status);
+                                liveMetrics.add(stats);
                             });
                         }
 
                         @Override
-                        public void onComplete(List<ResponseDetails> responseDetails) {
+                        public void onComplete(LoadTestResult result) {
                             SwingUtilities.invokeLater(() -> {
-                                startButton.setEnabled(true);
-                                stopButton.setEnabled(false);
-                                isTestRunning = false;
                                 logArea.append("Test completed!\n");
-                                updateResults(responseDetails);
-                                tabbedPane.setSelectedIndex(1);
+                                liveMetrics.flush();
+                                updateResults(result);
+                                tabbedPane.setSelectedIndex(2);
                             });
                         }
                     });
                 } catch (Exception e) {
                     SwingUtilities.invokeLater(() -> {
-                        startButton.setEnabled(true);
-                        stopButton.setEnabled(false);
-                        isTestRunning = false;
                         logArea.append("Error during test: " + e.getMessage() + "\n");
                         JOptionPane.showMessageDialog(LoadTestGUI.this, 
                             "Error during test: " + e.getMessage(),
                             "Error",
                             JOptionPane.ERROR_MESSAGE);
                     });
+                } finally {
+                    // The run is over however it ended, reports written or not
+                    SwingUtilities.invokeLater(() -> {
+                        startButton.setEnabled(true);
+                        stopButton.setEnabled(false);
+                        abortButton.setEnabled(false);
+                        applyProfileButton.setEnabled(false);
+                        isTestRunning = false;
+                    });
                 }
             }).start();
 
@@ -669,87 +1208,165 @@ public class LoadTestGUI extends JFrame {
         }
     }
 
+    private void appendLog(String message) {
+        logArea.append(message + "\n");
+        int excessLines = logArea.getLineCount() - MAX_LOG_LINES;
+        if (excessLines > 0) {
+            try {
+                logArea.replaceRange("", 0, logArea.getLineStartOffset(excessLines));
+            } catch (BadLocationException e) {
+                logArea.setText("");
+            }
+        }
+        logArea.setCaretPosition(logArea.getDocument().getLength());
+    }
+
+    private boolean isOpenModelSelected() {
+        return workloadModelCombo.getSelectedIndex() == 1;
+    }
+
+    private int parseIntOrDefault(String text, int defaultValue) {
+        String value = text.trim();
+        return value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
     private void stopTest() {
         if (currentTest != null && isTestRunning) {
             currentTest.stopTest();
-            isTestRunning = false;
-            startButton.setEnabled(true);
             stopButton.setEnabled(false);
-            logArea.append("Test stopped by user.\n");
+            applyProfileButton.setEnabled(false);
+            logArea.append("Stopping: waiting for in-flight requests, Abort Test to skip the wait...\n");
+        }
+    }
+
+    private void abortTest() {
+        if (currentTest != null && isTestRunning) {
+            currentTest.abortTest();
+            stopButton.setEnabled(false);
+            abortButton.setEnabled(false);
+            applyProfileButton.setEnabled(false);
+            logArea.append("Aborting: in-flight requests abandoned, writing partial reports...\n");
+        }
+    }
+
+    private void applyLoadProfile() {
+        if (currentTest == null || !isTestRunning) {
+            return;
+        }
+        try {
+            LoadProfile profile = LoadProfile.parse(loadProfileField.getText());
+            if (currentTest.changeLoadProfile(profile)) {
+                appendLog("Load profile changed: " + String.join("; ", profile.getDescriptions()));
+            } else {
+                appendLog("The running test has no load profile; start it with one to change it live");
+            }
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Invalid load profile: " + e.getMessage());
         }
     }
 
-    private void updateResults(List<ResponseDetails> responseDetails) {
-        // Update statistics
-        long totalTime = 0;
-        long minTime = Long.MAX_VALUE;
-        long maxTime = 0;
-        int successCount = 0;
-        int failureCount = 0;
+    private void updateResults(LoadTestResult result) {
+        LatencyHistogram responseTimes = result.getResponseTimes();
+        LatencyHistogram correctedResponseTimes = result.getCorrectedResponseTimes();
         
         DefaultCategoryDataset responseTimeDataset = new DefaultCategoryDataset();
-        DefaultCategoryDataset throughputDataset = new DefaultCategoryDataset();
         
         // Clear existing data
         tableModel.setRowCount(0);
         
-        // Group requests by time intervals for throughput calculation
-        Map<Integer, Integer> requestsPerSecond = new HashMap<>();
-        
-        for (int i = 0; i < responseDetails.size(); i++) {
-            ResponseDetails detail = responseDetails.get(i);
-            long responseTime = detail.getResponseTime();
-            boolean isSuccess = detail.getResponseCode().equals("200");
-            
-            // Update statistics
-            totalTime += responseTime;
-            minTime = Math.min(minTime, responseTime);
-            maxTime = Math.max(maxTime, responseTime);
-            if (isSuccess) successCount++; else failureCount++;
-            
-            // Add to table
+        // One row and one chart point per percentile, whatever the number of requests
+        String[] labels = {"p50", "p90", "p99", "p99.9", "max"};
+        double[] percentiles = {50, 90, 99, 99.9, 100};
+        // Three decimals keep sub-millisecond targets readable
+        for (int i = 0; i < labels.length; i++) {
+            double responseTime = responseTimes.getValueAtPercentile(percentiles[i]) / 1000.0;
+            double correctedResponseTime = correctedResponseTimes.getValueAtPercentile(percentiles[i]) / 1000.0;
             tableModel.addRow(new Object[]{
-                i + 1,
-                responseTime,
-                detail.getResponseCode(),
-                isSuccess ? "Yes" : "No"
+                labels[i],
+                String.format("%.3f", responseTime),
+                String.format("%.3f", correctedResponseTime)
             });
-            
-            // Add to response time chart
-            responseTimeDataset.addValue(responseTime, "Response Time", String.valueOf(i + 1));
-            
-            // Calculate throughput (group by second)
-            int second = i / 10; // Assuming 10 requests per second
-            requestsPerSecond.put(second, requestsPerSecond.getOrDefault(second, 0) + 1);
+            responseTimeDataset.addValue(responseTime, "Response Time", labels[i]);
+            responseTimeDataset.addValue(correctedResponseTime, "Corrected Response Time", labels[i]);
         }
         
-        // Add throughput data
-        for (Map.Entry<Integer, Integer> entry : requestsPerSecond.entrySet()) {
-            throughputDataset.addValue(entry.getValue(), "Throughput", String.valueOf(entry.getKey()));
+        // Per-endpoint breakdown, only filled when the test ran a scenario
+        endpointTableModel.setRowCount(0);
+        for (EndpointStats endpoint : result.getEndpointStats().values()) {
+            LatencyHistogram endpointTimes = endpoint.getResponseTimes();
+            endpointTableModel.addRow(new Object[]{
+                endpoint.getName(),
+                endpoint.getRequests(),
+                endpoint.getFailures(),
+                String.format("%.3f", endpointTimes.getMean() / 1000.0),
+                String.format("%.3f", endpointTimes.getValueAtPercentile(50) / 1000.0),
+                String.format("%.3f", endpointTimes.getValueAtPercentile(99) / 1000.0)
+            });
+        }
+
+        // Throughput per second of the run, counted when each request completed
+        XYSeries throughput = new XYSeries("Throughput", true, false);
+        if (!result.getCompletedPerSecond().isEmpty()) {
+            int lastSecond = result.getCompletedPerSecond().lastKey();
+            int bucketSeconds = lastSecond / MAX_THROUGHPUT_POINTS + 1;
+            long[] buckets = new long[lastSecond / bucketSeconds + 1];
+            for (Map.Entry<Integer, Long> entry : result.getCompletedPerSecond().entrySet()) {
+                buckets[entry.getKey() / bucketSeconds] += entry.getValue();
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                throughput.add(i * bucketSeconds, (double) buckets[i] / bucketSeconds, false);
+            }
         }
         
-        // Calculate test duration
-        long testDuration = System.currentTimeMillis() - testStartTime;
+        long testDuration = result.getDuration();
         
         // Update statistics panel
         statsPanel.removeAll();
-        statsPanel.add(createStatLabel("Total Requests", String.valueOf(responseDetails.size())));
-        statsPanel.add(createStatLabel("Successful", String.valueOf(successCount)));
-        statsPanel.add(createStatLabel("Failed", String.valueOf(failureCount)));
-        statsPanel.add(createStatLabel("Min Response Time", minTime + " ms"));
-        statsPanel.add(createStatLabel("Max Response Time", maxTime + " ms"));
+        statsPanel.add(createStatLabel("Total Requests", String.valueOf(result.getTotalRequests())));
+        statsPanel.add(createStatLabel("Successful", String.valueOf(result.getSuccessfulRequests())));
+        statsPanel.add(createStatLabel("Failed", String.valueOf(result.getFailedRequests())));
+        statsPanel.add(createStatLabel("Min Response Time", 
+            LoadTest.formatLatency(responseTimes.getMin())));
+        statsPanel.add(createStatLabel("Max Response Time", 
+            LoadTest.formatLatency(responseTimes.getMax())));
         statsPanel.add(createStatLabel("Avg Response Time", 
-            String.format("%.2f ms", (double)totalTime / responseDetails.size())));
+            LoadTest.formatLatency(responseTimes.getMean())));
+        statsPanel.add(createStatLabel("p50 Response Time", 
+            LoadTest.formatLatency(responseTimes.getValueAtPercentile(50))));
+        statsPanel.add(createStatLabel("p99 Response Time", 
+            LoadTest.formatLatency(responseTimes.getValueAtPercentile(99))));
+        statsPanel.add(createStatLabel("p99 Corrected", 
+            LoadTest.formatLatency(correctedResponseTimes.getValueAtPercentile(99))));
         statsPanel.add(createStatLabel("Test Duration", 
             String.format("%.2f seconds", testDuration / 1000.0)));
         statsPanel.add(createStatLabel("Start Time", 
-            new java.util.Date(testStartTime).toString()));
+            new java.util.Date(result.getTestStartTime()).toString()));
         statsPanel.add(createStatLabel("End Time", 
-            new java.util.Date(testStartTime + testDuration).toString()));
+            new java.util.Date(result.getTestStartTime() + testDuration).toString()));
+        TransferStats transfer = result.getTransferStats();
+        statsPanel.add(createStatLabel("Sent", String.format("%.2f MB/s",
+            TransferStats.megabytesPerSecond(transfer.getRequestBytes(), testDuration))));
+        statsPanel.add(createStatLabel("Received", String.format("%.2f MB/s",
+            TransferStats.megabytesPerSecond(transfer.getResponseBytes(), testDuration))));
+        statsPanel.add(createStatLabel("p99 First Byte",
+            LoadTest.formatLatency(transfer.getFirstByteTimes().getValueAtPercentile(99))));
+        statsPanel.add(createStatLabel("p99 Connect", transfer.getConnectTimes().getTotalCount() == 0 ? "-"
+            : LoadTest.formatLatency(transfer.getConnectTimes().getValueAtPercentile(99))));
+        ErrorBreakdown errors = result.getErrorBreakdown();
+        ErrorBreakdown.ErrorClass topError = errors.getMostFrequent();
+        statsPanel.add(createStatLabel("No Response", String.valueOf(errors.getNoResponseCount())));
+        statsPanel.add(createStatLabel("HTTP 4xx", String.valueOf(errors.getStatusCount(400, 499))));
+        statsPanel.add(createStatLabel("HTTP 5xx", String.valueOf(errors.getStatusCount(500, 599))));
+        statsPanel.add(createStatLabel("Top Error", topError == null ? "-"
+            : topError.getName() + " (" + topError.getCount() + ")"));
         
+        // Per-request rows are read straight from the primitive columns
+        requestTableModel.setColumns(result.getRequestResults());
+        updateRequestRowsLabel();
+
         // Update charts
         responseTimeChart.getChart().getCategoryPlot().setDataset(responseTimeDataset);
-        throughputChart.getChart().getCategoryPlot().setDataset(throughputDataset);
+        throughputChart.getChart().getXYPlot().setDataset(new XYSeriesCollection(throughput));
         
         statsPanel.revalidate();
         statsPanel.repaint();
@@ -764,6 +1381,8 @@ public class LoadTestGUI extends JFrame {
     private void setupActionListeners() {
         startButton.addActionListener(e -> startTest());
         stopButton.addActionListener(e -> stopTest());
+        abortButton.addActionListener(e -> abortTest());
+        applyProfileButton.addActionListener(e -> applyLoadProfile());
         
         selectBodyFileButton.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
@@ -778,6 +1397,29 @@ public class LoadTestGUI extends JFrame {
             }
         });
 
+        selectScenarioFileButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("JSON Lines Files", "jsonl", "json"));
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                scenarioFileField.setText(fileChooser.getSelectedFile().getAbsolutePath());
+            }
+        });
+
+        selectFeederFileButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Data Files", "csv", "tsv", "jsonl"));
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                feederFileField.setText(fileChooser.getSelectedFile().getAbsolutePath());
+            }
+        });
+
+        selectReplayFileButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                replayFileField.setText(fileChooser.getSelectedFile().getAbsolutePath());
+            }
+        });
+
         selectReportDirButton.addActionListener(e -> {
             JFileChooser dirChooser = new JFileChooser();
             dirChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -791,14 +1433,20 @@ public class LoadTestGUI extends JFrame {
         JPanel panel = new JPanel(new BorderLayout());
         
         // Create stats panel
-        statsPanel = new JPanel(new GridLayout(3, 3, 10, 10));
+        statsPanel = new JPanel(new GridLayout(5, 4, 10, 10));
         statsPanel.setBorder(BorderFactory.createTitledBorder("Test Statistics"));
         
-        // Create table for detailed results
-        String[] columnNames = {"Request #", "Response Time (ms)", "Status Code", "Success"};
+        // Create table for the latency distribution
+        String[] columnNames = {"Percentile", "Response Time (ms)", "Corrected Response Time (ms)"};
         tableModel = new DefaultTableModel(columnNames, 0);
         resultsTable = new JTable(tableModel);
         JScrollPane tableScroll = new JScrollPane(resultsTable);
+        JTabbedPane tablesPane = new JTabbedPane();
+        tablesPane.addTab("Latency Distribution", tableScroll);
+        tablesPane.addTab("Requests", createRequestsPanel());
+        endpointTableModel = new DefaultTableModel(
+            new String[]{"Endpoint", "Requests", "Failed", "Average (ms)", "p50 (ms)", "p99 (ms)"}, 0);
+        tablesPane.addTab("Endpoints", new JScrollPane(new JTable(endpointTableModel)));
         
         // Create charts with proper styling
         responseTimeChart = new ChartPanel(createResponseTimeChart());
@@ -814,18 +1462,133 @@ public class LoadTestGUI extends JFrame {
         
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
             new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, responseTimeChart, throughputChart),
-            tableScroll);
+            tablesPane);
         splitPane.setDividerLocation(400);
         panel.add(splitPane, BorderLayout.CENTER);
         
         return panel;
     }
 
+    private JPanel createLivePanel() {
+        JPanel panel = new JPanel(new GridLayout(3, 1, 5, 5));
+        panel.add(new ChartPanel(createLiveChart("Throughput", "Requests/sec", liveMetrics.getThroughputDataset(), Color.GREEN)));
+        panel.add(new ChartPanel(createLiveChart("Error Rate", "Errors (%)", liveMetrics.getErrorRateDataset(), Color.RED)));
+        panel.add(new ChartPanel(createLiveChart("Response Time Percentiles", "Response Time (ms)", liveMetrics.getLatencyDataset(), Color.BLUE)));
+        return panel;
+    }
+
+    private JFreeChart createLiveChart(String title, String valueAxisLabel, XYDataset dataset, Color firstSeriesColor) {
+        JFreeChart chart = ChartFactory.createTimeSeriesChart(
+            title,
+            "Time",
+            valueAxisLabel,
+            dataset,
+            true,
+            true,
+            false
+        );
+
+        // Customize chart appearance
+        chart.setBackgroundPaint(Color.WHITE);
+        chart.getTitle().setFont(new Font("Arial", Font.BOLD, 14));
+
+        // Customize plot appearance
+        XYPlot plot = chart.getXYPlot();
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+        plot.setDomainGridlinePaint(Color.LIGHT_GRAY);
+        plot.getRenderer().setSeriesPaint(0, firstSeriesColor);
+        plot.getRenderer().setSeriesPaint(1, Color.ORANGE);
+        plot.getRenderer().setSeriesPaint(2, Color.RED);
+
+        return chart;
+    }
+
+    private JPanel createRequestsPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        requestTableModel = new ResultTableModel();
+        requestTable = new JTable(requestTableModel);
+        requestTable.setAutoCreateRowSorter(false);
+        // Sorting is done by the model on primitive columns; a click on a header toggles the order
+        requestTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = requestTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    requestTableModel.toggleSort(requestTable.convertColumnIndexToModel(column));
+                    updateRequestRowsLabel();
+                }
+            }
+        });
+
+        statusFilterCombo = new JComboBox<>(new String[]{"All", "Successful", "Errors"});
+        // In ResultTableModel.StatusClass order
+        statusClassCombo = new JComboBox<>(new String[]{"All", "No response", "1xx", "2xx", "3xx", "4xx", "5xx"});
+        minResponseTimeField = new JTextField(6);
+        maxResponseTimeField = new JTextField(6);
+        JButton applyFilterButton = new JButton("Apply Filter");
+        applyFilterButton.addActionListener(e -> applyRequestFilter());
+        requestRowsLabel = new JLabel(" ");
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Status:"));
+        filterPanel.add(statusFilterCombo);
+        filterPanel.add(new JLabel("Code:"));
+        filterPanel.add(statusClassCombo);
+        filterPanel.add(new JLabel("Response Time (ms) from:"));
+        filterPanel.add(minResponseTimeField);
+        filterPanel.add(new JLabel("to:"));
+        filterPanel.add(maxResponseTimeField);
+        filterPanel.add(applyFilterButton);
+        filterPanel.add(requestRowsLabel);
+
+        panel.add(filterPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(requestTable), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void applyRequestFilter() {
+        ResultTableModel.StatusFilter statusFilter;
+        switch (statusFilterCombo.getSelectedIndex()) {
+            case 1:
+                statusFilter = ResultTableModel.StatusFilter.SUCCESS;
+                break;
+            case 2:
+                statusFilter = ResultTableModel.StatusFilter.ERRORS;
+                break;
+            default:
+                statusFilter = ResultTableModel.StatusFilter.ALL;
+                break;
+        }
+        try {
+            String min = minResponseTimeField.getText().trim();
+            String max = maxResponseTimeField.getText().trim();
+            ResultTableModel.StatusClass statusClass =
+                    ResultTableModel.StatusClass.values()[statusClassCombo.getSelectedIndex()];
+            requestTableModel.setFilter(statusFilter, statusClass,
+                min.isEmpty() ? 0 : (long) (Double.parseDouble(min) * 1000),
+                max.isEmpty() ? Long.MAX_VALUE : (long) (Double.parseDouble(max) * 1000));
+            updateRequestRowsLabel();
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Please enter valid response times in milliseconds");
+        }
+    }
+
+    private void updateRequestRowsLabel() {
+        String text = requestTableModel.getRowCount() + " rows";
+        long truncatedRows = requestTableModel.getColumns().getTruncatedRows();
+        if (truncatedRows > 0) {
+            text += " (" + truncatedRows + " more requests not kept)";
+        }
+        requestRowsLabel.setText(text);
+    }
+
     private JFreeChart createResponseTimeChart() {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
         JFreeChart chart = ChartFactory.createLineChart(
-            "Response Time Over Time",
-            "Request Number",
+            "Response Time Percentiles",
+            "Percentile",
             "Response Time (ms)",
             dataset,
             PlotOrientation.VERTICAL,
@@ -849,14 +1612,17 @@ public class LoadTestGUI extends JFrame {
         renderer.setSeriesPaint(0, Color.BLUE);
         renderer.setSeriesStroke(0, new BasicStroke(2.0f));
         renderer.setSeriesShapesVisible(0, true);
+        renderer.setSeriesPaint(1, Color.RED);
+        renderer.setSeriesStroke(1, new BasicStroke(2.0f));
+        renderer.setSeriesShapesVisible(1, true);
         plot.setRenderer(renderer);
         
         return chart;
     }
 
     private JFreeChart createThroughputChart() {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        JFreeChart chart = ChartFactory.createLineChart(
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        JFreeChart chart = ChartFactory.createXYLineChart(
             "Throughput Over Time",
             "Time (s)",
             "Requests/sec",
@@ -872,16 +1638,15 @@ public class LoadTestGUI extends JFrame {
         chart.getTitle().setFont(new Font("Arial", Font.BOLD, 16));
         
         // Customize plot appearance
-        CategoryPlot plot = chart.getCategoryPlot();
+        XYPlot plot = chart.getXYPlot();
         plot.setBackgroundPaint(Color.WHITE);
         plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
         plot.setDomainGridlinePaint(Color.LIGHT_GRAY);
         
-        // Customize renderer
-        LineAndShapeRenderer renderer = new LineAndShapeRenderer();
+        // Customize renderer; no shapes, a long run has too many points for them
+        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, false);
         renderer.setSeriesPaint(0, Color.GREEN);
         renderer.setSeriesStroke(0, new BasicStroke(2.0f));
-        renderer.setSeriesShapesVisible(0, true);
         plot.setRenderer(renderer);
         
         return chart;
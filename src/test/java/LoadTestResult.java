@@ -0,0 +1,93 @@
+import java.util.Collections;
+import java.util.SortedMap;
+
+public class LoadTestResult {
+    private final long testStartTime;
+    private final long duration;
+    private final long totalRequests;
+    private final long successfulRequests;
+    private final long failedRequests;
+    private final LatencyHistogram responseTimes;
+    private final LatencyHistogram correctedResponseTimes;
+    private final SortedMap<Integer, Long> completedPerSecond;
+    private final ResultColumns requestResults;
+    private final SortedMap<String, EndpointStats> endpointStats;
+    private final TransferStats transferStats;
+    private final ErrorBreakdown errorBreakdown;
+
+    public LoadTestResult(long testStartTime, long duration, long totalRequests,
+                          long successfulRequests, long failedRequests,
+                          LatencyHistogram responseTimes, LatencyHistogram correctedResponseTimes,
+                          SortedMap<Integer, Long> completedPerSecond, ResultColumns requestResults,
+                          SortedMap<String, EndpointStats> endpointStats, TransferStats transferStats,
+                          ErrorBreakdown errorBreakdown) {
+        this.testStartTime = testStartTime;
+        this.duration = duration;
+        this.totalRequests = totalRequests;
+        this.successfulRequests = successfulRequests;
+        this.failedRequests = failedRequests;
+        this.responseTimes = responseTimes;
+        this.correctedResponseTimes = correctedResponseTimes;
+        this.completedPerSecond = completedPerSecond;
+        this.requestResults = requestResults;
+        this.endpointStats = Collections.unmodifiableSortedMap(endpointStats);
+        this.transferStats = transferStats;
+        this.errorBreakdown = errorBreakdown;
+    }
+
+    public long getTestStartTime() {
+        return testStartTime;
+    }
+
+    // milliseconds
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public long getSuccessfulRequests() {
+        return successfulRequests;
+    }
+
+    public long getFailedRequests() {
+        return failedRequests;
+    }
+
+    // Latency from the actual send, in microseconds
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    // Latency from the intended send time, in microseconds
+    public LatencyHistogram getCorrectedResponseTimes() {
+        return correctedResponseTimes;
+    }
+
+    // Completed requests keyed by seconds since the test started
+    public SortedMap<Integer, Long> getCompletedPerSecond() {
+        return completedPerSecond;
+    }
+
+    // One row per completed request, up to the configured row limit
+    public ResultColumns getRequestResults() {
+        return requestResults;
+    }
+
+    // Breakdown by endpoint name when the test ran a scenario, empty otherwise
+    public SortedMap<String, EndpointStats> getEndpointStats() {
+        return endpointStats;
+    }
+
+    // Bytes sent and received and the timing of each request phase
+    public TransferStats getTransferStats() {
+        return transferStats;
+    }
+
+    // Requests without a response by cause and 4xx/5xx responses by status code
+    public ErrorBreakdown getErrorBreakdown() {
+        return errorBreakdown;
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// Runs its share of a distributed test for a LoadTestCoordinator: one coordinator connection,
+// and one test, at a time. Start one worker per machine (or several on localhost, one per port).
+// A worker sends load wherever its plan says, so it only takes plans from a coordinator that
+// knows its token, and by default only listens on the loopback interface.
+public class LoadTestWorker {
+    private final ServerSocket serverSocket;
+    private final String reportDirectory;
+    private final byte[] token;
+
+    public LoadTestWorker(ServerSocket serverSocket, String reportDirectory, String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("A worker needs a shared token");
+        }
+        this.serverSocket = serverSocket;
+        this.reportDirectory = reportDirectory;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Serves coordinators until the server socket is closed
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                socket.setTcpNoDelay(true);
+                handle(socket);
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Coordinator connection failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        LoadTest test = null;
+        boolean authenticated = false;
+        while (true) {
+            int type;
+            try {
+                type = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            switch (type) {
+                case DistributedProtocol.CLOCK:
+                    String offered = DistributedProtocol.readString(in, DistributedProtocol.MAX_TOKEN_BYTES);
+                    // Constant time, so the comparison does not leak how much of the token matched
+                    if (offered == null || !MessageDigest.isEqual(token, offered.getBytes(StandardCharsets.UTF_8))) {
+                        System.err.println("Rejected coordinator " + socket.getRemoteSocketAddress() + ": wrong token");
+                        send(out, DistributedProtocol.ERROR, "Wrong worker token");
+                        return;
+                    }
+                    authenticated = true;
+                    out.writeInt(DistributedProtocol.CLOCK);
+                    out.writeLong(System.currentTimeMillis());
+                    out.flush();
+                    break;
+                case DistributedProtocol.PLAN:
+                    if (!authenticated) {
+                        send(out, DistributedProtocol.ERROR, "Not authenticated");
+                        return;
+                    }
+                    try {
+                        test = LoadTest.readPlan(in, reportDirectory);
+                        out.writeInt(DistributedProtocol.READY);
+                    } catch (IllegalArgumentException e) {
+                        out.writeInt(DistributedProtocol.ERROR);
+                        DistributedProtocol.writeString(out, "Invalid test plan: " + e.getMessage());
+                    }
+                    out.flush();
+                    break;
+                case DistributedProtocol.START:
+                    long startAt = in.readLong();
+                    if (!authenticated || test == null) {
+                        out.writeInt(DistributedProtocol.ERROR);
+                        DistributedProtocol.writeString(out, "No test plan received");
+                        out.flush();
+                        return;
+                    }
+                    run(test, startAt, in, out);
+                    return;
+                default:
+                    throw new IOException("Unexpected message type: " + type);
+            }
+        }
+    }
+
+    private void run(LoadTest test, long startAt, DataInputStream in, DataOutputStream out) throws IOException {
+        // The coordinator may send STOP while the test runs; losing the coordinator stops it too
+        Thread stopListener = new Thread(() -> {
+            try {
+                if (in.readInt() == DistributedProtocol.STOP) {
+                    test.stopTest();
+                }
+            } catch (IOException e) {
+                test.stopTest();
+            }
+        }, "worker-stop-listener");
+        stopListener.setDaemon(true);
+        stopListener.start();
+
+        // Every worker starts at the same instant; startAt is already in this machine's clock
+        long waitMillis = startAt - System.currentTimeMillis();
+        if (waitMillis > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                send(out, DistributedProtocol.ERROR, "Interrupted before start");
+                return;
+            }
+        }
+
+        LoadTestResult[] result = new LoadTestResult[1];
+        try {
+            test.runTest(new LoadTest.TestProgressCallback() {
+                @Override
+                public void onProgress(String message) {
+                    System.out.println(message);
+                    send(out, DistributedProtocol.PROGRESS, message);
+                }
+
+                @Override
+                public void onComplete(LoadTestResult testResult) {
+                    result[0] = testResult;
+                }
+            });
+        } catch (RuntimeException e) {
+            send(out, DistributedProtocol.ERROR, "Test failed: " + e.getMessage());
+            return;
+        }
+
+        synchronized (out) {
+            if (result[0] == null) {
+                out.writeInt(DistributedProtocol.ERROR);
+                DistributedProtocol.writeString(out, "Test did not complete");
+            } else {
+                out.writeInt(DistributedProtocol.RESULT);
+                DistributedProtocol.writeResult(out, result[0]);
+            }
+            out.flush();
+        }
+    }
+
+    // Progress is best effort: a coordinator that went away must not fail the test
+    private static void send(DataOutputStream out, int type, String message) {
+        synchronized (out) {
+            try {
+                out.writeInt(type);
+                DistributedProtocol.writeString(out, message);
+                out.flush();
+            } catch (IOException e) {
+                // reported when the result cannot be delivered either
+            }
+        }
+    }
+
+    // Usage: LoadTestWorker [port] [report directory] [bind address]
+    // The shared token comes from the LOADTEST_TOKEN environment variable. The worker listens on
+    // the loopback interface unless a bind address is given, e.g. 0.0.0.0 for every interface.
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DistributedProtocol.DEFAULT_PORT;
+        String reportDirectory = args.length > 1 ? args[1] : "worker-reports-" + port;
+        InetAddress bindAddress = args.length > 2 ? InetAddress.getByName(args[2]) : InetAddress.getLoopbackAddress();
+        String token = System.getenv(DistributedProtocol.TOKEN_VARIABLE);
+        if (token == null || token.isEmpty()) {
+            System.err.println("Set " + DistributedProtocol.TOKEN_VARIABLE + " to the token the coordinator will send");
+            return;
+        }
+        LoadTestWorker worker = new LoadTestWorker(new ServerSocket(port, 0, bindAddress), reportDirectory, token);
+        System.out.println("Worker listening on " + bindAddress.getHostAddress() + ":" + worker.getPort());
+        worker.serve();
+    }
+}
@@ -0,0 +1,451 @@
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.HttpHost;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultHttpResponseParserFactory;
+import org.apache.http.impl.conn.DefaultManagedHttpClientConnection;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.entity.LaxContentLengthStrategy;
+import org.apache.http.impl.entity.StrictContentLengthStrategy;
+import org.apache.http.impl.io.DefaultHttpRequestWriterFactory;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PooledHttpEngine implements RequestEngine {
+    // Response bodies are read into this and thrown away; concurrent overwrites are harmless
+    private static final byte[] DISCARD_BUFFER = new byte[8192];
+    // Bodies that are checked are read into a buffer of the request thread's own
+    private static final ThreadLocal<byte[]> CHECK_BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+    // Requests are blocking, so connecting, writing the request and reading the response all happen
+    // on the thread that sent it: its meter sees exactly that request's bytes and connection setup
+    private static final ThreadLocal<WireMeter> METER = ThreadLocal.withInitial(WireMeter::new);
+
+    private final ConnectionPoolSettings settings;
+    private final PreparedRequest defaultRequest;
+    private final ConcurrentHashMap<RequestTemplate, PreparedRequest> preparedRequests = new ConcurrentHashMap<>();
+    private final PoolingHttpClientConnectionManager[] connectionManagers;
+    private final CloseableHttpClient[] clients;
+    private final ScheduledExecutorService evictor;
+    private final int maxConnectionsPerRoute;
+    private final int maxConnectionsTotal;
+    private final AtomicLong connectionsOpened = new AtomicLong(0);
+    private final AtomicLong requestsExecuted = new AtomicLong(0);
+
+    public PooledHttpEngine(ConnectionPoolSettings settings, RequestTimeouts timeouts, int users,
+                            int maxConcurrentRequests, RequestTemplate template) {
+        this.settings = settings;
+        this.defaultRequest = new PreparedRequest(template);
+        int pools = settings.isPoolPerUser() ? users : 1;
+        // Default pool size: enough connections for every request that can be in flight at once
+        int concurrentPerPool = (maxConcurrentRequests + pools - 1) / pools;
+        this.maxConnectionsPerRoute = settings.getMaxConnectionsPerRoute() > 0
+                ? settings.getMaxConnectionsPerRoute() : concurrentPerPool;
+        this.maxConnectionsTotal = settings.getMaxConnectionsTotal() > 0
+                ? settings.getMaxConnectionsTotal() : Math.max(maxConnectionsPerRoute, concurrentPerPool);
+
+        // Count physical connections so the report can show how often one was reused
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = (route, config) -> {
+            long id = connectionsOpened.incrementAndGet();
+            return new MeteredConnection("http-outgoing-" + id, config != null ? config : ConnectionConfig.DEFAULT);
+        };
+        // The stock socket factories, timed
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", new TimedSocketFactory())
+                .register("https", new TimedTlsSocketFactory())
+                .build();
+
+        // Honour the server's Keep-Alive header but never keep a connection longer than configured
+        long keepAliveMillis = settings.getKeepAliveMillis();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+        };
+
+        // 0 is no limit here too; the read timeout is the socket timeout, so it applies to every read
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) Math.min(Integer.MAX_VALUE, timeouts.getConnectTimeoutMillis()))
+                .setSocketTimeout((int) Math.min(Integer.MAX_VALUE, timeouts.getReadTimeoutMillis()))
+                .build();
+
+        connectionManagers = new PoolingHttpClientConnectionManager[pools];
+        clients = new CloseableHttpClient[pools];
+        for (int i = 0; i < pools; i++) {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactories, connectionFactory);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            connectionManager.setMaxTotal(maxConnectionsTotal);
+            connectionManagers[i] = connectionManager;
+            // Cookies and connection state are disabled so every request behaves like a fresh client
+            // did before, while the underlying connections stay reusable across users
+            clients[i] = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(keepAliveStrategy)
+                    .setDefaultRequestConfig(requestConfig)
+                    .disableCookieManagement()
+                    .disableConnectionState()
+                    .build();
+        }
+
+        // One evictor thread for all pools instead of one per client
+        if (settings.getIdleEvictionMillis() > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "connection-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = settings.getIdleEvictionMillis();
+            evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    // Headers and the body entity are immutable, so every request from a template shares the same instances
+    private static class PreparedRequest {
+        final RequestTemplate template;
+        final Header[] headers;
+        final HttpEntity entity;
+
+        PreparedRequest(RequestTemplate template) {
+            this.template = template;
+            this.headers = new Header[template.getHeaderCount()];
+            for (int i = 0; i < headers.length; i++) {
+                headers[i] = new BasicHeader(template.getHeaderName(i), template.getHeaderValue(i));
+            }
+            this.entity = template.getBody() == null ? null
+                    : new ByteArrayEntity(template.getBody(), ContentType.create("text/plain", StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public CompletableFuture<ResponseDetails> send(int userIndex, RequestTemplate template, ResponseCheck check) {
+        ResponseDetails details = new ResponseDetails();
+        performRequest(userIndex, prepare(template), check, details);
+        return CompletableFuture.completedFuture(details);
+    }
+
+    @Override
+    public void execute(int userIndex, RequestTemplate template, ResponseCheck check, ResponseDetails details) {
+        performRequest(userIndex, prepare(template), check, details);
+    }
+
+    private PreparedRequest prepare(RequestTemplate template) {
+        if (template == defaultRequest.template) {
+            return defaultRequest;
+        } else if (template.isReusable()) {
+            return preparedRequests.computeIfAbsent(template, PreparedRequest::new);
+        }
+        return new PreparedRequest(template);
+    }
+
+    private void performRequest(int userIndex, PreparedRequest prepared, ResponseCheck check, ResponseDetails details) {
+        RequestTemplate template = prepared.template;
+        details.reset();
+        try {
+            HttpRequestBase request;
+            
+            // Create request based on HTTP method; URI, headers and entity come pre-built from the template
+            switch (template.getMethod()) {
+                case GET:
+                    request = new HttpGet(template.getUri());
+                    break;
+                case POST:
+                    HttpPost post = new HttpPost(template.getUri());
+                    post.setEntity(prepared.entity);
+                    request = post;
+                    break;
+                case PUT:
+                    HttpPut put = new HttpPut(template.getUri());
+                    put.setEntity(prepared.entity);
+                    request = put;
+                    break;
+                case PATCH:
+                    HttpPatch patch = new HttpPatch(template.getUri());
+                    patch.setEntity(prepared.entity);
+                    request = patch;
+                    break;
+                case DELETE:
+                    request = new HttpDelete(template.getUri());
+                    break;
+                case HEAD:
+                    request = new HttpHead(template.getUri());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported HTTP method: " + template.getMethod());
+            }
+            request.setHeaders(prepared.headers);
+            
+            WireMeter meter = METER.get();
+            meter.start();
+            long startNanos = System.nanoTime();
+            requestsExecuted.incrementAndGet();
+            try (CloseableHttpResponse response = clients[userIndex % clients.length].execute(request)) {
+                // execute() returns as soon as the status line and headers are parsed
+                long firstByteNanos = System.nanoTime() - startNanos;
+                // The body has to be consumed for the connection to go back to the pool
+                if (check == null) {
+                    consume(response.getEntity());
+                } else {
+                    check.onHeaders(name -> {
+                        Header header = response.getFirstHeader(name);
+                        return header == null ? null : header.getValue();
+                    });
+                    consume(response.getEntity(), check);
+                }
+                long lastByteNanos = System.nanoTime() - startNanos;
+                details.respond(response.getStatusLine().getStatusCode());
+                details.setTransfer(meter.bytesWritten - meter.writtenAtStart, meter.bytesRead - meter.readAtStart);
+                details.setPhases(meter.connectNanos, meter.tlsHandshakeNanos, firstByteNanos, lastByteNanos);
+            }
+        } catch (ConnectTimeoutException e) {
+            // Wraps the socket's own timeout, which on its own would read as a read timeout
+            details.fail(RequestError.CONNECT_TIMEOUT);
+        } catch (NoHttpResponseException e) {
+            // The server closed a connection, usually a reused one, without answering
+            details.fail(RequestError.CONNECTION_RESET);
+        } catch (IOException e) {
+            details.fail(RequestError.classify(e));
+        } catch (IllegalStateException e) {
+            // The pool was shut down under a request abandoned at the end of a run; its retry fails here
+            details.fail(RequestError.IO_ERROR);
+        }
+    }
+
+    // Reads the body to the end and closes the stream like EntityUtils.consume; the meter counts it
+    private static void consume(HttpEntity entity) throws IOException {
+        if (entity == null || !entity.isStreaming()) {
+            return;
+        }
+        try (InputStream content = entity.getContent()) {
+            while (content.read(DISCARD_BUFFER) != -1) {
+                // discard
+            }
+        }
+    }
+
+    // Like consume, but passes the body to the check until it has seen enough
+    private static void consume(HttpEntity entity, ResponseCheck check) throws IOException {
+        if (entity == null) {
+            return;
+        }
+        byte[] buffer = CHECK_BUFFER.get();
+        try (InputStream content = entity.getContent()) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                check.onBody(buffer, 0, read);
+            }
+        }
+    }
+
+    // What the current thread's requests wrote to and read from their connections, plus the setup of
+    // the connection the current request opened, if it opened one
+    private static final class WireMeter {
+        long bytesWritten;
+        long bytesRead;
+        long writtenAtStart;
+        long readAtStart;
+        long connectNanos;
+        long tlsHandshakeNanos;
+
+        void start() {
+            writtenAtStart = bytesWritten;
+            readAtStart = bytesRead;
+            connectNanos = -1;
+            tlsHandshakeNanos = -1;
+        }
+    }
+
+    // The stock connection, counting bytes between the socket and its session buffers, i.e. HTTP as it
+    // crosses the wire: chunked and compressed bodies at their transferred size, without TLS records.
+    // The connection config's charset is not applied; this engine never sets one.
+    private static final class MeteredConnection extends DefaultManagedHttpClientConnection {
+        MeteredConnection(String id, ConnectionConfig config) {
+            super(id, config.getBufferSize(), config.getFragmentSizeHint(), null, null,
+                    config.getMessageConstraints(), LaxContentLengthStrategy.INSTANCE,
+                    StrictContentLengthStrategy.INSTANCE, DefaultHttpRequestWriterFactory.INSTANCE,
+                    DefaultHttpResponseParserFactory.INSTANCE);
+        }
+
+        @Override
+        protected InputStream getSocketInputStream(Socket socket) throws IOException {
+            return new FilterInputStream(super.getSocketInputStream(socket)) {
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    if (b >= 0) {
+                        METER.get().bytesRead++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) throws IOException {
+                    int read = in.read(bytes, offset, length);
+                    if (read > 0) {
+                        METER.get().bytesRead += read;
+                    }
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        protected OutputStream getSocketOutputStream(Socket socket) throws IOException {
+            return new FilterOutputStream(super.getSocketOutputStream(socket)) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    METER.get().bytesWritten++;
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);
+                    METER.get().bytesWritten += length;
+                }
+            };
+        }
+    }
+
+    private static class TimedSocketFactory implements ConnectionSocketFactory {
+        private static final ConnectionSocketFactory PLAIN = PlainConnectionSocketFactory.getSocketFactory();
+
+        @Override
+        public Socket createSocket(HttpContext context) throws IOException {
+            return PLAIN.createSocket(context);
+        }
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            Socket connected = PLAIN.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            METER.get().connectNanos = System.nanoTime() - start;
+            return connected;
+        }
+    }
+
+    // Connects like the plain factory, then shakes hands the way SSLConnectionSocketFactory would
+    // after its own connect, so the two phases can be timed apart
+    private static final class TimedTlsSocketFactory extends TimedSocketFactory implements LayeredConnectionSocketFactory {
+        private static final LayeredConnectionSocketFactory TLS = SSLConnectionSocketFactory.getSocketFactory();
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, HttpContext context) throws IOException {
+            Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            long start = System.nanoTime();
+            Socket secured = TLS.createLayeredSocket(connected, host.getHostName(), remoteAddress.getPort(), context);
+            METER.get().tlsHandshakeNanos = System.nanoTime() - start;
+            return secured;
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+            return TLS.createLayeredSocket(socket, target, port, context);
+        }
+    }
+
+    private void evictIdleConnections() {
+        for (PoolingHttpClientConnectionManager connectionManager : connectionManagers) {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(settings.getIdleEvictionMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        return "Apache HttpClient (pooled, blocking)";
+    }
+
+    public boolean isPoolPerUser() {
+        return settings.isPoolPerUser();
+    }
+
+    public int getPoolCount() {
+        return clients.length;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public long getRequestsExecuted() {
+        return requestsExecuted.get();
+    }
+
+    public double getConnectionReuseRate() {
+        long requests = requestsExecuted.get();
+        if (requests == 0) {
+            return 0;
+        }
+        return Math.max(0, 1.0 - (double) connectionsOpened.get() / requests);
+    }
+
+    @Override
+    public void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (CloseableHttpClient client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close HTTP client: " + e.getMessage());
+            }
+        }
+    }
+}
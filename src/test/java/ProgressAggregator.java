@@ -0,0 +1,91 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Single consumer of the progress ring: wakes up once per interval, folds the new events into
+// interval stats and hands them to the callback. All formatting happens here, off the request threads.
+public class ProgressAggregator {
+    private final ProgressEventRing ring;
+    private final LoadTest.TestProgressCallback callback;
+    private final long intervalMillis;
+    private final int requestLogSampleRate;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private LatencyHistogram intervalHistogram = new LatencyHistogram();
+    private long intervalRequests = 0;
+    private long intervalErrors = 0;
+    private long totalRequests = 0;
+
+    // requestLogSampleRate: forward every Nth request as a log line, 0 disables per-request logging
+    public ProgressAggregator(ProgressEventRing ring, LoadTest.TestProgressCallback callback,
+                              long intervalMillis, int requestLogSampleRate) {
+        this.ring = ring;
+        this.callback = callback;
+        this.intervalMillis = Math.max(1, intervalMillis);
+        this.requestLogSampleRate = Math.max(0, requestLogSampleRate);
+        this.thread = new Thread(this::run, "progress-aggregator");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    // Publishes whatever is left in the ring as a final, possibly shorter interval
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        long originNanos = System.nanoTime();
+        long originTime = System.currentTimeMillis();
+        // The first interval ends on a wall-clock multiple of the interval length, so with an
+        // interval that divides a second no interval straddles two wall-clock seconds
+        long deadline = originNanos + TimeUnit.MILLISECONDS.toNanos(intervalMillis - originTime % intervalMillis);
+        long intervalStartTime = originTime;
+        while (running) {
+            long remaining;
+            while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            long intervalEndTime = originTime + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - originNanos);
+            ring.drain(this::onEvent);
+            publish(intervalStartTime, intervalEndTime - intervalStartTime);
+            intervalStartTime = intervalEndTime;
+            deadline += intervalNanos;
+        }
+    }
+
+    private void onEvent(int userIndex, long requestNumber, int statusCode, boolean passed, long completedNanos,
+                         long responseMicros, long correctedMicros) {
+        intervalRequests++;
+        totalRequests++;
+        if (!passed) {
+            intervalErrors++;
+        }
+        intervalHistogram.recordValue(responseMicros);
+
+        if (requestLogSampleRate > 0 && totalRequests % requestLogSampleRate == 0) {
+            callback.onProgress("User " + userIndex + " - Request " + requestNumber + " completed with status "
+                    + (statusCode > 0 ? String.valueOf(statusCode) : "failed")
+                    + (statusCode > 0 && !passed ? " (assertion failed)" : "")
+                    + " in " + LoadTest.formatMillis(responseMicros) + " ms");
+        }
+    }
+
+    private void publish(long intervalStartTime, long elapsedMillis) {
+        IntervalStats stats = new IntervalStats(intervalStartTime, elapsedMillis, intervalRequests, intervalErrors,
+                totalRequests, ring.getDropped(), intervalHistogram);
+        intervalHistogram = new LatencyHistogram();
+        intervalRequests = 0;
+        intervalErrors = 0;
+        callback.onIntervalStats(stats);
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer, single-consumer ring of completed-request events stored in primitive
+// arrays. Producers never block: when the consumer falls behind, new events are dropped and counted.
+public class ProgressEventRing {
+    public interface EventHandler {
+        void onEvent(int userIndex, long requestNumber, int statusCode, boolean passed, long completedNanos,
+                     long responseMicros, long correctedMicros);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] userIndexes;
+    private final long[] requestNumbers;
+    private final int[] statusCodes;
+    private final boolean[] passed;
+    private final long[] completedNanos;
+    private final long[] responseMicros;
+    private final long[] correctedMicros;
+    // Slot n holds sequence + 1 once the event for that sequence is fully written
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private volatile long head = 0;
+
+    public ProgressEventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.userIndexes = new int[capacity];
+        this.requestNumbers = new long[capacity];
+        this.statusCodes = new int[capacity];
+        this.passed = new boolean[capacity];
+        this.completedNanos = new long[capacity];
+        this.responseMicros = new long[capacity];
+        this.correctedMicros = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    public boolean offer(int userIndex, long requestNumber, int statusCode, boolean success, long completedAt,
+                         long response, long corrected) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        userIndexes[slot] = userIndex;
+        requestNumbers[slot] = requestNumber;
+        statusCodes[slot] = statusCode;
+        passed[slot] = success;
+        completedNanos[slot] = completedAt;
+        responseMicros[slot] = response;
+        correctedMicros[slot] = corrected;
+        published.set(slot, sequence + 1);
+        return true;
+    }
+
+    // Consumer side: hands every published event to the handler and frees the slots
+    public int drain(EventHandler handler) {
+        long next = head;
+        int drained = 0;
+        while (true) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) != next + 1) {
+                break;
+            }
+            handler.onEvent(userIndexes[slot], requestNumbers[slot], statusCodes[slot], passed[slot],
+                    completedNanos[slot], responseMicros[slot], correctedMicros[slot]);
+            next++;
+            drained++;
+        }
+        head = next;
+        return drained;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+// Replays access log entries at their original relative times, divided by a speed factor.
+// A single dispatcher thread reads the log ahead into a priority queue ordered by timestamp and
+// sleeps until the earliest entry is due, so pending requests cost a queue slot, not a thread.
+// The read-ahead also puts back in order lines that were logged slightly out of order.
+public class ReplayScheduler {
+    // A dispatch this far behind its slot counts as late
+    private static final long LATE_THRESHOLD_NANOS = 1_000_000;
+    // Log time read ahead of the next dispatch; entries logged later than this out of order are sent late
+    private static final long REORDER_WINDOW_MICROS = 2_000_000;
+    // Upper bound on entries held in the queue however dense the log is
+    private static final int MAX_QUEUED = 100_000;
+
+    public interface ReplayTask {
+        // The request counts as in flight until the returned future completes
+        CompletableFuture<?> run(long requestIndex, RequestTemplate template, long intendedStartNanos);
+    }
+
+    private static class Pending {
+        final long sequence;
+        final AccessLogReader.Entry entry;
+
+        Pending(long sequence, AccessLogReader.Entry entry) {
+            this.sequence = sequence;
+            this.entry = entry;
+        }
+    }
+
+    private final double speedFactor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger peakInFlight = new AtomicInteger(0);
+    private final AtomicLong dispatched = new AtomicLong(0);
+    private final AtomicLong lateDispatches = new AtomicLong(0);
+    private final AtomicLong outOfOrderEntries = new AtomicLong(0);
+    // How far behind its slot every request was sent, in microseconds
+    private final LatencyHistogram dispatchLag = new LatencyHistogram();
+    private volatile long finalLagNanos = 0;
+    private volatile long logSpanMicros = 0;
+
+    public ReplayScheduler(double speedFactor, int maxInFlight) {
+        if (!(speedFactor > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive: " + speedFactor);
+        }
+        this.speedFactor = speedFactor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // Dispatches every entry of the log on its replay schedule. Runs on the calling thread and returns
+    // once the last entry has been dispatched. When maxInFlight requests are outstanding the dispatcher
+    // waits for one to finish rather than dropping, so a slow target shows up as schedule lag.
+    public void run(AccessLogReader log, Executor workers, BooleanSupplier shouldStop, ReplayTask task) throws IOException {
+        PriorityQueue<Pending> queue = new PriorityQueue<>((a, b) -> {
+            int byTime = Long.compare(a.entry.getTimestampMicros(), b.entry.getTimestampMicros());
+            return byTime != 0 ? byTime : Long.compare(a.sequence, b.sequence);
+        });
+        AccessLogReader.Entry lookahead = log.next();
+        if (lookahead == null) {
+            return;
+        }
+        long firstTimestamp = lookahead.getTimestampMicros();
+        long lastDispatchedTimestamp = firstTimestamp;
+        long sequence = 0;
+        long scheduleStart = System.nanoTime();
+
+        while (true) {
+            // Fill the queue until it covers the reorder window past its earliest entry
+            while (lookahead != null && queue.size() < MAX_QUEUED && (queue.isEmpty()
+                    || lookahead.getTimestampMicros() - queue.peek().entry.getTimestampMicros() < REORDER_WINDOW_MICROS)) {
+                if (lookahead.getTimestampMicros() < lastDispatchedTimestamp) {
+                    outOfOrderEntries.incrementAndGet();
+                }
+                queue.add(new Pending(sequence++, lookahead));
+                lookahead = log.next();
+            }
+            Pending next = queue.poll();
+            if (next == null) {
+                break;
+            }
+
+            // An entry that arrived after later ones were sent goes out immediately
+            long timestamp = Math.max(next.entry.getTimestampMicros(), lastDispatchedTimestamp);
+            lastDispatchedTimestamp = timestamp;
+            long intendedStart = scheduleStart + (long) ((timestamp - firstTimestamp) * 1000 / speedFactor);
+            long now;
+            while ((now = System.nanoTime()) < intendedStart) {
+                if (shouldStop.getAsBoolean()) {
+                    return;
+                }
+                // Wake up now and then so a stop is noticed during long gaps in the log
+                LockSupport.parkNanos(Math.min(intendedStart - now, 100_000_000));
+            }
+            while (inFlight.get() >= maxInFlight && !shouldStop.getAsBoolean()) {
+                LockSupport.parkNanos(100_000);
+            }
+            if (shouldStop.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            now = System.nanoTime();
+            long lag = now - intendedStart;
+            if (lag > LATE_THRESHOLD_NANOS) {
+                lateDispatches.incrementAndGet();
+            }
+            dispatchLag.recordValue(lag / 1000);
+            finalLagNanos = lag;
+            logSpanMicros = timestamp - firstTimestamp;
+
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            final long requestIndex = dispatched.getAndIncrement();
+            final RequestTemplate template = next.entry.getTemplate();
+            try {
+                workers.execute(() -> {
+                    CompletableFuture<?> completion;
+                    try {
+                        completion = task.run(requestIndex, template, intendedStart);
+                    } catch (RuntimeException e) {
+                        inFlight.decrementAndGet();
+                        throw e;
+                    }
+                    // Blocking engines hand back a future that is already done
+                    if (completion.isDone()) {
+                        inFlight.decrementAndGet();
+                    } else {
+                        completion.whenComplete((result, error) -> inFlight.decrementAndGet());
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    // Waits for dispatched requests to finish; returns false if some are still in flight at the deadline
+    public boolean awaitCompletion(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.parkNanos(1_000_000);
+        }
+        return true;
+    }
+
+    public double getSpeedFactor() {
+        return speedFactor;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public long getDispatched() {
+        return dispatched.get();
+    }
+
+    public long getLateDispatches() {
+        return lateDispatches.get();
+    }
+
+    public long getOutOfOrderEntries() {
+        return outOfOrderEntries.get();
+    }
+
+    // microseconds
+    public LatencyHistogram getDispatchLag() {
+        return dispatchLag;
+    }
+
+    // How far behind schedule the last dispatched request was sent
+    public long getFinalLagNanos() {
+        return finalLagNanos;
+    }
+
+    // Log time covered by the dispatched requests, from the first entry to the last one sent
+    public long getLogSpanMicros() {
+        return logSpanMicros;
+    }
+}
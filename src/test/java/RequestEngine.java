@@ -0,0 +1,25 @@
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+// Sends a request on behalf of a virtual user. Blocking engines complete the
+// future before returning; non-blocking engines return at once and complete it from their
+// own I/O threads, so callers must not block inside the completion.
+public interface RequestEngine extends Closeable {
+    // check, when not null, is given the response headers and streamed the body before the
+    // future completes; without one the body is only counted and thrown away
+    CompletableFuture<ResponseDetails> send(int userIndex, RequestTemplate template, ResponseCheck check);
+
+    // Sends on the calling thread and fills in details, which belong to the caller and are reused
+    // between requests. Blocking engines do this without allocating a result; the default waits
+    // for send() and copies.
+    default void execute(int userIndex, RequestTemplate template, ResponseCheck check, ResponseDetails details) {
+        details.copyFrom(send(userIndex, template, check).join());
+    }
+
+    boolean isNonBlocking();
+
+    String getName();
+
+    @Override
+    void close();
+}
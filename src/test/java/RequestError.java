@@ -0,0 +1,81 @@
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import javax.net.ssl.SSLException;
+
+// Why a request got no HTTP response. A constant instead of an exception message, so a failed
+// request is recorded without building a string.
+public enum RequestError {
+    NONE("None"),
+    INVALID_REQUEST("Invalid request"),
+    IO_ERROR("I/O error"),
+    CONNECT_TIMEOUT("Connect timeout"),
+    READ_TIMEOUT("Read timeout"),
+    CONNECTION_REFUSED("Connection refused"),
+    CONNECTION_RESET("Connection reset"),
+    UNKNOWN_HOST("Unknown host"),
+    TLS("TLS error");
+
+    private static final RequestError[] VALUES = values();
+    // Deep enough for the wrappers the HTTP clients put around the exception that matters
+    private static final int MAX_CAUSE_DEPTH = 5;
+
+    private final String description;
+
+    RequestError(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // IO_ERROR for an ordinal this version does not know, e.g. from a newer result log
+    public static RequestError fromOrdinal(int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : IO_ERROR;
+    }
+
+    // The class of a failure from the exception or one of its causes; IO_ERROR when none is known.
+    // Engines check their client's own exception types first.
+    public static RequestError classify(Throwable failure) {
+        Throwable current = failure;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            RequestError error = classifyOne(current);
+            if (error != IO_ERROR) {
+                return error;
+            }
+            current = current.getCause();
+        }
+        return IO_ERROR;
+    }
+
+    private static RequestError classifyOne(Throwable failure) {
+        // Subclasses before the classes they extend
+        if (failure instanceof HttpConnectTimeoutException) {
+            return CONNECT_TIMEOUT;
+        }
+        if (failure instanceof HttpTimeoutException || failure instanceof SocketTimeoutException) {
+            return READ_TIMEOUT;
+        }
+        if (failure instanceof ConnectException) {
+            return CONNECTION_REFUSED;
+        }
+        if (failure instanceof UnknownHostException) {
+            return UNKNOWN_HOST;
+        }
+        if (failure instanceof SSLException) {
+            return TLS;
+        }
+        if (failure instanceof SocketException) {
+            // The JDK has no exception type for these, only the message
+            String message = failure.getMessage();
+            if (message != null && (message.contains("reset") || message.contains("Broken pipe"))) {
+                return CONNECTION_RESET;
+            }
+        }
+        return IO_ERROR;
+    }
+}
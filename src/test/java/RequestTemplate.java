@@ -0,0 +1,208 @@
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Request parsed once when the test is configured: engines only copy references on the hot path
+public class RequestTemplate {
+    public enum Method {
+        GET,
+        POST,
+        PUT,
+        PATCH,
+        DELETE,
+        HEAD;
+
+        public boolean hasBody() {
+            return this == POST || this == PUT || this == PATCH;
+        }
+    }
+
+    private final String name;
+    private final boolean reusable;
+    private final Method method;
+    private final URI uri;
+    private final String[] headerNames;
+    private final String[] headerValues;
+    private final byte[] body;
+    // Set only on templates with ${...} placeholders, see withVariables()
+    private final String url;
+    private final ByteTemplate urlTemplate;
+    private final ByteTemplate[] headerValueTemplates;
+    private final ByteTemplate bodyTemplate;
+
+    private RequestTemplate(String name, boolean reusable, Method method, URI uri, String url,
+                            String[] headerNames, String[] headerValues, byte[] body) {
+        this(name, reusable, method, uri, url, headerNames, headerValues, body, null, null, null);
+    }
+
+    private RequestTemplate(String name, boolean reusable, Method method, URI uri, String url,
+                            String[] headerNames, String[] headerValues, byte[] body,
+                            ByteTemplate urlTemplate, ByteTemplate[] headerValueTemplates, ByteTemplate bodyTemplate) {
+        this.name = name;
+        this.reusable = reusable;
+        this.method = method;
+        this.uri = uri;
+        this.url = url;
+        this.headerNames = headerNames;
+        this.headerValues = headerValues;
+        this.body = body;
+        this.urlTemplate = urlTemplate;
+        this.headerValueTemplates = headerValueTemplates;
+        this.bodyTemplate = bodyTemplate;
+    }
+
+    public static RequestTemplate compile(String url, String httpMethod, String headers, String body, String authHeader) {
+        return compile(url, httpMethod, headers, body, authHeader, null, true);
+    }
+
+    // name: label for the per-endpoint breakdown, "METHOD /path" when null.
+    // reusable: the template is sent many times, so engines may cache what they build from it;
+    // false for one-off requests such as lines streamed from a large scenario file.
+    public static RequestTemplate compile(String url, String httpMethod, String headers, String body, String authHeader,
+                                          String name, boolean reusable) {
+        Method method;
+        try {
+            method = Method.valueOf(httpMethod);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unsupported HTTP method: " + httpMethod);
+        }
+        // A URL with placeholders is only a valid URI once they are filled in
+        URI uri = url.contains("${") ? null : URI.create(url);
+
+        // "Key: Value" per line; malformed lines are skipped
+        List<String> names = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        if (headers != null) {
+            for (String headerLine : headers.split("\n")) {
+                String[] parts = headerLine.split(":", 2);
+                if (parts.length == 2) {
+                    setHeader(names, values, parts[0].trim(), parts[1].trim());
+                }
+            }
+        }
+
+        // Add authorization header if present
+        if (authHeader != null && !authHeader.isEmpty()) {
+            setHeader(names, values, "Authorization", authHeader);
+        }
+
+        byte[] bodyBytes = null;
+        if (method.hasBody()) {
+            bodyBytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        }
+        String endpointName = name != null && !name.isEmpty() ? name : method + " " + pathOf(url);
+        return new RequestTemplate(endpointName, reusable, method, uri, url,
+                names.toArray(new String[0]), values.toArray(new String[0]), bodyBytes);
+    }
+
+    // Path of an absolute URL, placeholders left as they are, for the default endpoint name
+    private static String pathOf(String url) {
+        int authority = url.indexOf("://");
+        int pathStart = url.indexOf('/', authority < 0 ? 0 : authority + 3);
+        if (pathStart < 0) {
+            return "/";
+        }
+        int pathEnd = url.length();
+        for (int i = pathStart; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                pathEnd = i;
+                break;
+            }
+        }
+        return url.substring(pathStart, pathEnd);
+    }
+
+    // Compiles the ${...} placeholders in the URL, header values and body against the variables.
+    // Returns this template when there are none; otherwise the result has to be bound per request.
+    public RequestTemplate withVariables(TemplateVariables variables) {
+        ByteTemplate urlTemplate = ByteTemplate.compile(url, variables);
+        ByteTemplate[] headerValueTemplates = null;
+        for (int i = 0; i < headerValues.length; i++) {
+            ByteTemplate headerValueTemplate = ByteTemplate.compile(headerValues[i], variables);
+            if (headerValueTemplate != null) {
+                if (headerValueTemplates == null) {
+                    headerValueTemplates = new ByteTemplate[headerValues.length];
+                }
+                headerValueTemplates[i] = headerValueTemplate;
+            }
+        }
+        ByteTemplate bodyTemplate = body == null ? null
+                : ByteTemplate.compile(new String(body, StandardCharsets.UTF_8), variables);
+        if (urlTemplate == null && headerValueTemplates == null && bodyTemplate == null) {
+            if (uri == null) {
+                throw new IllegalArgumentException("Invalid URL: " + url);
+            }
+            return this;
+        }
+        return new RequestTemplate(name, reusable, method, uri, url, headerNames, headerValues, body,
+                urlTemplate, headerValueTemplates, bodyTemplate);
+    }
+
+    public boolean isParameterized() {
+        return urlTemplate != null || headerValueTemplates != null || bodyTemplate != null;
+    }
+
+    // A one-off request with every placeholder filled from the bindings. It keeps this template's
+    // name, so the per-endpoint breakdown groups requests by template rather than by value.
+    public RequestTemplate bind(TemplateVariables.Bindings bindings) {
+        URI boundUri = urlTemplate == null ? uri : URI.create(urlTemplate.renderString(bindings));
+        String[] boundHeaderValues = headerValues;
+        if (headerValueTemplates != null) {
+            boundHeaderValues = headerValues.clone();
+            for (int i = 0; i < headerValueTemplates.length; i++) {
+                if (headerValueTemplates[i] != null) {
+                    boundHeaderValues[i] = headerValueTemplates[i].renderString(bindings);
+                }
+            }
+        }
+        byte[] boundBody = bodyTemplate == null ? body : bodyTemplate.render(bindings);
+        return new RequestTemplate(name, false, method, boundUri, null, headerNames, boundHeaderValues, boundBody);
+    }
+
+    // Same semantics as setting a header on a request: a later value replaces an earlier one
+    private static void setHeader(List<String> names, List<String> values, String name, String value) {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equalsIgnoreCase(name)) {
+                values.set(i, value);
+                return;
+            }
+        }
+        names.add(name);
+        values.add(value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getHeaderCount() {
+        return headerNames.length;
+    }
+
+    public String getHeaderName(int index) {
+        return headerNames[index];
+    }
+
+    public String getHeaderValue(int index) {
+        return headerValues[index];
+    }
+
+    // UTF-8 encoded once and shared by every request; null for methods without a body. Do not modify.
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,32 @@
+// How long a request may wait for a connection to open and for the server to answer, 0 for no
+// limit. The pooled engine applies the read timeout to every read of the socket; the async engine,
+// which has no per-read timeout, to the wait for the response headers.
+public class RequestTimeouts {
+    private final long connectTimeoutMillis;
+    private final long readTimeoutMillis;
+
+    public RequestTimeouts(long connectTimeoutMillis, long readTimeoutMillis) {
+        this.connectTimeoutMillis = Math.max(0, connectTimeoutMillis);
+        this.readTimeoutMillis = Math.max(0, readTimeoutMillis);
+    }
+
+    public static RequestTimeouts defaults() {
+        return new RequestTimeouts(10000, 60000);
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public String describe() {
+        return "connect " + describe(connectTimeoutMillis) + ", read " + describe(readTimeoutMillis);
+    }
+
+    private static String describe(long millis) {
+        return millis > 0 ? millis + " ms" : "none";
+    }
+}
@@ -0,0 +1,203 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+
+// The state of ResponseRules for one request. Engines hand it the headers and then the body as it
+// is read; once every body rule has its answer, wantsBody() turns false and the rest of the body
+// is only drained. Used from one thread at a time.
+public class ResponseCheck {
+    // Looks for one thing in the body as it streams past
+    interface BodyProbe {
+        void feed(byte[] bytes, int offset, int length);
+
+        // End of the body
+        void finish();
+
+        boolean isDone();
+
+        boolean isFound();
+
+        // What was found: the JSON value or the regex group, null when nothing was found
+        byte[] getValue();
+
+        // Ready for another body; buffers grown so far are kept
+        void reset();
+    }
+
+    private final ResponseRules rules;
+    // One per body assertion, then one per extractor; null for header extractors
+    private final BodyProbe[] probes;
+    private final byte[][] headerValues;
+    private boolean responded;
+    private boolean wantsBody;
+    private String headerFailure;
+    private byte[] scratch;
+
+    ResponseCheck(ResponseRules rules) {
+        this.rules = rules;
+        List<ResponseRules.BodyAssertion> assertions = rules.getBodyAssertions();
+        List<ResponseRules.Extractor> extractors = rules.getExtractors();
+        this.probes = new BodyProbe[assertions.size() + extractors.size()];
+        for (int i = 0; i < assertions.size(); i++) {
+            probes[i] = assertions.get(i).newProbe();
+        }
+        for (int i = 0; i < extractors.size(); i++) {
+            ResponseRules.Extractor extractor = extractors.get(i);
+            if (extractor.source == ResponseRules.FROM_JSON) {
+                probes[assertions.size() + i] = new StreamingJsonPath(extractor.path);
+            } else if (extractor.source == ResponseRules.FROM_REGEX) {
+                probes[assertions.size() + i] = new StreamingTextMatcher(extractor.pattern);
+            }
+        }
+        this.headerValues = new byte[extractors.size()][];
+        this.wantsBody = probes.length > 0;
+    }
+
+    // Status line and headers have arrived; headers looks a header up by name, null when absent
+    public void onHeaders(Function<String, String> headers) {
+        responded = true;
+        List<String> required = rules.getRequiredHeaders();
+        for (int i = 0; i < required.size() && headerFailure == null; i++) {
+            if (headers.apply(required.get(i)) == null) {
+                headerFailure = rules.getHeaderDescriptions().get(i);
+            }
+        }
+        List<ResponseRules.Extractor> extractors = rules.getExtractors();
+        for (int i = 0; i < extractors.size(); i++) {
+            ResponseRules.Extractor extractor = extractors.get(i);
+            if (extractor.source != ResponseRules.FROM_HEADER) {
+                continue;
+            }
+            String value = headers.apply(extractor.headerName);
+            if (value != null && extractor.pattern != null) {
+                Matcher matcher = extractor.pattern.matcher(value);
+                value = !matcher.find() ? null : matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+            }
+            if (value != null) {
+                headerValues[i] = value.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    ResponseRules getRules() {
+        return rules;
+    }
+
+    // Ready for another request, with the probes and buffers this one grew
+    ResponseCheck reset() {
+        for (BodyProbe probe : probes) {
+            if (probe != null) {
+                probe.reset();
+            }
+        }
+        Arrays.fill(headerValues, null);
+        responded = false;
+        wantsBody = probes.length > 0;
+        headerFailure = null;
+        return this;
+    }
+
+    public boolean wantsBody() {
+        return wantsBody;
+    }
+
+    public void onBody(byte[] bytes, int offset, int length) {
+        if (!wantsBody) {
+            return;
+        }
+        boolean pending = false;
+        for (BodyProbe probe : probes) {
+            if (probe != null && !probe.isDone()) {
+                probe.feed(bytes, offset, length);
+                pending |= !probe.isDone();
+            }
+        }
+        wantsBody = pending;
+    }
+
+    // Leaves the buffer's position alone
+    public void onBody(ByteBuffer buffer) {
+        if (!wantsBody) {
+            return;
+        }
+        if (buffer.hasArray()) {
+            onBody(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        if (scratch == null) {
+            scratch = new byte[8192];
+        }
+        ByteBuffer source = buffer.duplicate();
+        while (source.hasRemaining() && wantsBody) {
+            int count = Math.min(scratch.length, source.remaining());
+            source.get(scratch, 0, count);
+            onBody(scratch, 0, count);
+        }
+    }
+
+    // Called once the body has been read: checks the rules, stores what the extractors found as
+    // this user's variables and sets the first broken rule, if any, on the details, which are
+    // returned. A request that got no response is left as it is.
+    public ResponseDetails complete(ResponseDetails details, TemplateVariables variables, int userIndex) {
+        if (!responded) {
+            return details;
+        }
+        for (BodyProbe probe : probes) {
+            if (probe != null) {
+                probe.finish();
+            }
+        }
+
+        List<ResponseRules.Extractor> extractors = rules.getExtractors();
+        int assertionCount = rules.getBodyAssertions().size();
+        for (int i = 0; i < extractors.size(); i++) {
+            BodyProbe probe = probes[assertionCount + i];
+            byte[] value = probe != null ? probe.getValue() : headerValues[i];
+            int slot = variables.slotOf(extractors.get(i).name);
+            if (value != null && slot >= 0) {
+                variables.set(userIndex, slot, value);
+            }
+        }
+
+        String failure = getFailure();
+        if (failure != null) {
+            details.setAssertionFailure(failure);
+        }
+        return details;
+    }
+
+    // The first header or body rule the response broke, null when it passed them all
+    String getFailure() {
+        if (headerFailure != null) {
+            return headerFailure;
+        }
+        List<ResponseRules.BodyAssertion> assertions = rules.getBodyAssertions();
+        for (int i = 0; i < assertions.size(); i++) {
+            if (!passes(assertions.get(i), probes[i])) {
+                return assertions.get(i).description;
+            }
+        }
+        return null;
+    }
+
+    private static boolean passes(ResponseRules.BodyAssertion assertion, BodyProbe probe) {
+        switch (assertion.kind) {
+            case ResponseRules.BODY_CONTAINS:
+            case ResponseRules.BODY_MATCHES:
+                return probe.isFound() != assertion.negated;
+            case ResponseRules.JSON_EXISTS:
+                return probe.isFound();
+            case ResponseRules.JSON_MISSING:
+                return !probe.isFound();
+            case ResponseRules.JSON_EQUALS:
+                return probe.isFound() && Arrays.equals(probe.getValue(), assertion.expected);
+            case ResponseRules.JSON_NOT_EQUALS:
+                return !probe.isFound() || !Arrays.equals(probe.getValue(), assertion.expected);
+            default:
+                return true;
+        }
+    }
+}
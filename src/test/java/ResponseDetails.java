@@ -0,0 +1,123 @@
+// The outcome of one request, as primitives. Blocking engines fill in an instance owned by the
+// sending thread, which reuses it for every request it sends, so no result is allocated per
+// request; whoever reads one must be done with it before that thread sends again.
+public class ResponseDetails {
+    private int statusCode;
+    private RequestError error = RequestError.NONE;
+    private long requestBytes;
+    private long responseBytes;
+    // Phase timings in nanoseconds since the request started, -1 when not measured
+    private long connectNanos = -1;
+    private long tlsHandshakeNanos = -1;
+    private long firstByteNanos = -1;
+    private long lastByteNanos = -1;
+    private String assertionFailure;
+
+    // A request that got no response
+    static ResponseDetails failed(RequestError error) {
+        return new ResponseDetails().fail(error);
+    }
+
+    public ResponseDetails reset() {
+        statusCode = 0;
+        error = RequestError.NONE;
+        requestBytes = 0;
+        responseBytes = 0;
+        connectNanos = -1;
+        tlsHandshakeNanos = -1;
+        firstByteNanos = -1;
+        lastByteNanos = -1;
+        assertionFailure = null;
+        return this;
+    }
+
+    // The response time is not kept here: the load test measures it around the engine call
+    public ResponseDetails respond(int statusCode) {
+        this.statusCode = statusCode;
+        this.error = RequestError.NONE;
+        return this;
+    }
+
+    public ResponseDetails fail(RequestError error) {
+        this.statusCode = 0;
+        this.error = error;
+        return this;
+    }
+
+    public void setTransfer(long requestBytes, long responseBytes) {
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    public void setPhases(long connectNanos, long tlsHandshakeNanos, long firstByteNanos, long lastByteNanos) {
+        this.connectNanos = connectNanos;
+        this.tlsHandshakeNanos = tlsHandshakeNanos;
+        this.firstByteNanos = firstByteNanos;
+        this.lastByteNanos = lastByteNanos;
+    }
+
+    public void setAssertionFailure(String assertionFailure) {
+        this.assertionFailure = assertionFailure;
+    }
+
+    public void copyFrom(ResponseDetails other) {
+        statusCode = other.statusCode;
+        error = other.error;
+        requestBytes = other.requestBytes;
+        responseBytes = other.responseBytes;
+        connectNanos = other.connectNanos;
+        tlsHandshakeNanos = other.tlsHandshakeNanos;
+        firstByteNanos = other.firstByteNanos;
+        lastByteNanos = other.lastByteNanos;
+        assertionFailure = other.assertionFailure;
+    }
+
+    // 0 when the request failed before a response arrived, see getError()
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public RequestError getError() {
+        return error;
+    }
+
+    // Request line, headers and body as written to the connection
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    // Status line, headers and body as read from the connection, before any decoding
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    // TCP connect, -1 when an open connection was reused
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    // TLS handshake, -1 for plain http or a reused connection
+    public long getTlsHandshakeNanos() {
+        return tlsHandshakeNanos;
+    }
+
+    // Until the status line and headers had arrived
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    // Until the body had been read to the end
+    public long getLastByteNanos() {
+        return lastByteNanos;
+    }
+
+    // The header or body rule the response broke, null when it passed them or was not checked
+    public String getAssertionFailure() {
+        return assertionFailure;
+    }
+
+    // Nanoseconds to microseconds, keeping -1 for "not measured"
+    static long micros(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1000;
+    }
+}
@@ -0,0 +1,375 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// What makes a response a success, and which values to pull out of it. One rule per line:
+//   status 200-299,304                   allowed status codes (default 200-299)
+//   maxLatency 500                       response time limit in ms
+//   header X-Request-Id                  the header must be present
+//   body contains "Welcome"              also: body not contains "...", body matches "regex",
+//                                        body not matches "regex"
+//   json $.status == "ok"                also: != value, exists, missing
+//   extract token json $.access_token    stores the value as ${token} for the same user's
+//   extract id regex "id=(\d+)"          later requests; a header extractor can take a regex
+//   extract sid header Set-Cookie "SID=([^;]+)"
+// Quoted text may use \" and \\; every other backslash is kept as written, for regexes.
+// Blank lines and lines starting with # are ignored. JSON values are compared as text.
+public final class ResponseRules {
+    public static final ResponseRules DEFAULT = parse("");
+    static final String NO_RESPONSE = "No response";
+
+    static final int BODY_CONTAINS = 0;
+    static final int BODY_MATCHES = 1;
+    static final int JSON_EXISTS = 2;
+    static final int JSON_MISSING = 3;
+    static final int JSON_EQUALS = 4;
+    static final int JSON_NOT_EQUALS = 5;
+
+    static final int FROM_JSON = 0;
+    static final int FROM_REGEX = 1;
+    static final int FROM_HEADER = 2;
+
+    // A check on the response body; the description is the rule as written
+    static final class BodyAssertion {
+        final String description;
+        final int kind;
+        final boolean negated;
+        final StreamingLiteralMatcher.Needle needle;
+        final Pattern pattern;
+        final StreamingJsonPath.Path path;
+        final byte[] expected;
+
+        BodyAssertion(String description, int kind, boolean negated, StreamingLiteralMatcher.Needle needle,
+                      Pattern pattern, StreamingJsonPath.Path path, byte[] expected) {
+            this.description = description;
+            this.kind = kind;
+            this.negated = negated;
+            this.needle = needle;
+            this.pattern = pattern;
+            this.path = path;
+            this.expected = expected;
+        }
+
+        ResponseCheck.BodyProbe newProbe() {
+            if (path != null) {
+                return new StreamingJsonPath(path);
+            }
+            return needle != null ? new StreamingLiteralMatcher(needle) : new StreamingTextMatcher(pattern);
+        }
+    }
+
+    static final class Extractor {
+        final String name;
+        final int source;
+        final StreamingJsonPath.Path path;
+        final Pattern pattern;
+        final String headerName;
+
+        Extractor(String name, int source, StreamingJsonPath.Path path, Pattern pattern, String headerName) {
+            this.name = name;
+            this.source = source;
+            this.path = path;
+            this.pattern = pattern;
+            this.headerName = headerName;
+        }
+    }
+
+    private final String text;
+    private final int[] statusLow;
+    private final int[] statusHigh;
+    private final String statusDescription;
+    private final long maxLatencyMicros;
+    private final String latencyDescription;
+    private final List<String> requiredHeaders;
+    private final List<String> headerDescriptions;
+    private final List<BodyAssertion> bodyAssertions;
+    private final List<Extractor> extractors;
+
+    private ResponseRules(String text, int[] statusLow, int[] statusHigh, String statusDescription,
+                          long maxLatencyMicros, String latencyDescription, List<String> requiredHeaders,
+                          List<String> headerDescriptions, List<BodyAssertion> bodyAssertions,
+                          List<Extractor> extractors) {
+        this.text = text;
+        this.statusLow = statusLow;
+        this.statusHigh = statusHigh;
+        this.statusDescription = statusDescription;
+        this.maxLatencyMicros = maxLatencyMicros;
+        this.latencyDescription = latencyDescription;
+        this.requiredHeaders = Collections.unmodifiableList(requiredHeaders);
+        this.headerDescriptions = Collections.unmodifiableList(headerDescriptions);
+        this.bodyAssertions = Collections.unmodifiableList(bodyAssertions);
+        this.extractors = Collections.unmodifiableList(extractors);
+    }
+
+    public static ResponseRules parse(String text) {
+        String source = text == null ? "" : text;
+        List<int[]> statusRanges = new ArrayList<>();
+        String statusDescription = "status 200-299";
+        long maxLatencyMicros = Long.MAX_VALUE;
+        String latencyDescription = null;
+        List<String> requiredHeaders = new ArrayList<>();
+        List<String> headerDescriptions = new ArrayList<>();
+        List<BodyAssertion> bodyAssertions = new ArrayList<>();
+        List<Extractor> extractors = new ArrayList<>();
+
+        String[] lines = source.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                List<String> words = split(line);
+                switch (words.get(0)) {
+                    case "status":
+                        expectWords(words, 2, 2);
+                        for (String range : words.get(1).split(",")) {
+                            statusRanges.add(parseStatusRange(range.trim()));
+                        }
+                        statusDescription = line;
+                        break;
+                    case "maxLatency":
+                        expectWords(words, 2, 2);
+                        maxLatencyMicros = Long.parseLong(words.get(1)) * 1000;
+                        latencyDescription = line;
+                        break;
+                    case "header":
+                        expectWords(words, 2, 2);
+                        requiredHeaders.add(words.get(1));
+                        headerDescriptions.add(line);
+                        break;
+                    case "body":
+                        bodyAssertions.add(parseBodyRule(line, words));
+                        break;
+                    case "json":
+                        bodyAssertions.add(parseJsonRule(line, words));
+                        break;
+                    case "extract":
+                        extractors.add(parseExtractor(words));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown rule \"" + words.get(0) + "\"");
+                }
+            } catch (IllegalArgumentException e) {
+                // Also covers bad numbers and regexes
+                throw new IllegalArgumentException("Assertion line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (statusRanges.isEmpty()) {
+            statusRanges.add(new int[]{200, 299});
+        }
+
+        int[] low = new int[statusRanges.size()];
+        int[] high = new int[statusRanges.size()];
+        for (int i = 0; i < low.length; i++) {
+            low[i] = statusRanges.get(i)[0];
+            high[i] = statusRanges.get(i)[1];
+        }
+        return new ResponseRules(source.trim(), low, high, statusDescription, maxLatencyMicros, latencyDescription,
+                requiredHeaders, headerDescriptions, bodyAssertions, extractors);
+    }
+
+    private static int[] parseStatusRange(String range) {
+        int dash = range.indexOf('-');
+        if (dash < 0) {
+            int status = Integer.parseInt(range);
+            return new int[]{status, status};
+        }
+        return new int[]{Integer.parseInt(range.substring(0, dash).trim()), Integer.parseInt(range.substring(dash + 1).trim())};
+    }
+
+    // body [not] contains|matches "text"
+    private static BodyAssertion parseBodyRule(String line, List<String> words) {
+        boolean negated = words.size() > 1 && words.get(1).equals("not");
+        int operator = negated ? 2 : 1;
+        expectWords(words, operator + 2, operator + 2);
+        String argument = words.get(operator + 1);
+        switch (words.get(operator)) {
+            case "contains":
+                return new BodyAssertion(line, BODY_CONTAINS, negated, StreamingLiteralMatcher.Needle.compile(argument),
+                        null, null, null);
+            case "matches":
+                return new BodyAssertion(line, BODY_MATCHES, negated, null, Pattern.compile(argument), null, null);
+            default:
+                throw new IllegalArgumentException("expected contains or matches after body");
+        }
+    }
+
+    // json <path> exists|missing|== value|!= value
+    private static BodyAssertion parseJsonRule(String line, List<String> words) {
+        expectWords(words, 3, 4);
+        StreamingJsonPath.Path path = StreamingJsonPath.Path.compile(words.get(1));
+        String operator = words.get(2);
+        switch (operator) {
+            case "exists":
+            case "missing":
+                expectWords(words, 3, 3);
+                return new BodyAssertion(line, operator.equals("exists") ? JSON_EXISTS : JSON_MISSING, false,
+                        null, null, path, null);
+            case "==":
+            case "!=":
+                expectWords(words, 4, 4);
+                return new BodyAssertion(line, operator.equals("==") ? JSON_EQUALS : JSON_NOT_EQUALS, false,
+                        null, null, path, words.get(3).getBytes(StandardCharsets.UTF_8));
+            default:
+                throw new IllegalArgumentException("expected exists, missing, == or != after the JSON path");
+        }
+    }
+
+    // extract <name> json <path> | regex "pattern" | header <name> ["pattern"]
+    private static Extractor parseExtractor(List<String> words) {
+        expectWords(words, 4, 5);
+        String name = words.get(1);
+        switch (words.get(2)) {
+            case "json":
+                expectWords(words, 4, 4);
+                return new Extractor(name, FROM_JSON, StreamingJsonPath.Path.compile(words.get(3)), null, null);
+            case "regex":
+                expectWords(words, 4, 4);
+                return new Extractor(name, FROM_REGEX, null, Pattern.compile(words.get(3)), null);
+            case "header":
+                return new Extractor(name, FROM_HEADER, null,
+                        words.size() > 4 ? Pattern.compile(words.get(4)) : null, words.get(3));
+            default:
+                throw new IllegalArgumentException("expected json, regex or header after the variable name");
+        }
+    }
+
+    private static void expectWords(List<String> words, int min, int max) {
+        if (words.size() < min || words.size() > max) {
+            throw new IllegalArgumentException("wrong number of arguments for " + words.get(0));
+        }
+    }
+
+    // Words separated by spaces; a quoted word keeps its spaces
+    private static List<String> split(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '\\' && i + 1 < line.length() && (line.charAt(i + 1) == '"' || line.charAt(i + 1) == '\\')) {
+                    word.append(line.charAt(++i));
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    word.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inWord = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    // A fresh check for one request, or null when nothing but the status and latency is looked at
+    public ResponseCheck newCheck() {
+        if (requiredHeaders.isEmpty() && bodyAssertions.isEmpty() && extractors.isEmpty()) {
+            return null;
+        }
+        return new ResponseCheck(this);
+    }
+
+    // Like newCheck(), but previous, reset, instead of a fresh one when these rules made it. Only
+    // once the request previous was checking has been completed.
+    public ResponseCheck reuseCheck(ResponseCheck previous) {
+        if (requiredHeaders.isEmpty() && bodyAssertions.isEmpty() && extractors.isEmpty()) {
+            return null;
+        }
+        return previous != null && previous.getRules() == this ? previous.reset() : new ResponseCheck(this);
+    }
+
+    // The first rule the response broke, or null when it passed. checkFailure comes from the
+    // request's ResponseCheck, if it had one.
+    public String evaluate(int statusCode, long responseMicros, String checkFailure) {
+        if (statusCode <= 0) {
+            return NO_RESPONSE;
+        }
+        if (!isAllowedStatus(statusCode)) {
+            return statusDescription;
+        }
+        if (checkFailure != null) {
+            return checkFailure;
+        }
+        return responseMicros > maxLatencyMicros ? latencyDescription : null;
+    }
+
+    public boolean isAllowedStatus(int statusCode) {
+        for (int i = 0; i < statusLow.length; i++) {
+            if (statusCode >= statusLow[i] && statusCode <= statusHigh[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Names of the variables the extractors fill in
+    public List<String> getExtractedNames() {
+        List<String> names = new ArrayList<>();
+        for (Extractor extractor : extractors) {
+            if (!names.contains(extractor.name)) {
+                names.add(extractor.name);
+            }
+        }
+        return names;
+    }
+
+    // Every rule in the order they are checked, for reports
+    public List<String> getDescriptions() {
+        List<String> descriptions = new ArrayList<>();
+        descriptions.add(statusDescription);
+        descriptions.addAll(headerDescriptions);
+        for (BodyAssertion assertion : bodyAssertions) {
+            descriptions.add(assertion.description);
+        }
+        if (latencyDescription != null) {
+            descriptions.add(latencyDescription);
+        }
+        return descriptions;
+    }
+
+    // The rules as they were written, so they can be saved and shipped to workers
+    public String getText() {
+        return text;
+    }
+
+    public boolean isDefault() {
+        return text.isEmpty();
+    }
+
+    List<String> getRequiredHeaders() {
+        return requiredHeaders;
+    }
+
+    List<String> getHeaderDescriptions() {
+        return headerDescriptions;
+    }
+
+    List<BodyAssertion> getBodyAssertions() {
+        return bodyAssertions;
+    }
+
+    List<Extractor> getExtractors() {
+        return extractors;
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Per-request results in primitive columns, allocated in fixed-size chunks as the test runs.
+// Rows are numbered in completion order, so the sequence column is the row index itself.
+// Appends are lock-free; read only after the test has finished.
+public class ResultColumns {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static class Chunk {
+        final int[] statusCodes = new int[CHUNK_SIZE];
+        final boolean[] passed = new boolean[CHUNK_SIZE];
+        final long[] responseMicros = new long[CHUNK_SIZE];
+        final long[] completedAt = new long[CHUNK_SIZE];
+    }
+
+    private final int maxRows;
+    private final AtomicReferenceArray<Chunk> chunks;
+    private final AtomicLong claimed = new AtomicLong(0);
+
+    // Rows past maxRows are counted but not stored
+    public ResultColumns(int maxRows) {
+        this.maxRows = Math.max(0, maxRows);
+        this.chunks = new AtomicReferenceArray<>((this.maxRows + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    public void append(int statusCode, boolean success, long responseMicros, long completedAtMillis) {
+        long row = claimed.getAndIncrement();
+        if (row >= maxRows) {
+            return;
+        }
+        Chunk chunk = chunk((int) (row >>> CHUNK_BITS));
+        int offset = (int) (row & CHUNK_MASK);
+        chunk.statusCodes[offset] = statusCode;
+        chunk.passed[offset] = success;
+        chunk.responseMicros[offset] = responseMicros;
+        chunk.completedAt[offset] = completedAtMillis;
+    }
+
+    private Chunk chunk(int index) {
+        Chunk chunk = chunks.get(index);
+        if (chunk == null) {
+            Chunk created = new Chunk();
+            chunk = chunks.compareAndSet(index, null, created) ? created : chunks.get(index);
+        }
+        return chunk;
+    }
+
+    public int size() {
+        return (int) Math.min(claimed.get(), maxRows);
+    }
+
+    // Requests that completed after the row limit was reached
+    public long getTruncatedRows() {
+        return Math.max(0, claimed.get() - maxRows);
+    }
+
+    // HTTP status, 0 when the request failed before a response arrived
+    public int getStatusCode(int row) {
+        return chunks.get(row >>> CHUNK_BITS).statusCodes[row & CHUNK_MASK];
+    }
+
+    // Whether the request met the test's response assertions
+    public boolean isPassed(int row) {
+        return chunks.get(row >>> CHUNK_BITS).passed[row & CHUNK_MASK];
+    }
+
+    public long getResponseMicros(int row) {
+        return chunks.get(row >>> CHUNK_BITS).responseMicros[row & CHUNK_MASK];
+    }
+
+    // Wall-clock completion time, epoch milliseconds
+    public long getCompletedAt(int row) {
+        return chunks.get(row >>> CHUNK_BITS).completedAt[row & CHUNK_MASK];
+    }
+}
@@ -0,0 +1,263 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Reads a result log written by ResultLogWriter, record by record, and renders the reports from it.
+// A log cut short by a crash is read up to its last complete record.
+public class ResultLogReader {
+    public interface RecordHandler {
+        // The record is only valid during the call; it moves on to the next one afterwards
+        void onRecord(Record record) throws IOException;
+    }
+
+    // A view of one record in the read buffer
+    public static final class Record {
+        private ByteBuffer buffer;
+        private int base;
+
+        void moveTo(ByteBuffer buffer, int base) {
+            this.buffer = buffer;
+            this.base = base;
+        }
+
+        // microseconds since the test started; the three points in a request's life are all on
+        // the run's monotonic clock
+        public long getCompletedMicros() {
+            return buffer.getLong(base);
+        }
+
+        // When the request went out, microseconds since the test started
+        public long getSentMicros() {
+            return Math.max(0, getCompletedMicros() - getResponseMicros());
+        }
+
+        // When the schedule wanted it to go out, microseconds since the test started
+        public long getIntendedStartMicros() {
+            return Math.max(0, getCompletedMicros() - getCorrectedMicros());
+        }
+
+        public int getUser() {
+            return buffer.getInt(base + 32);
+        }
+
+        // 0 when no response arrived
+        public int getStatusCode() {
+            return buffer.getInt(base + 36);
+        }
+
+        public boolean isPassed() {
+            int outcome = buffer.getInt(base + 44) & ((1 << ResultLogWriter.ERROR_SHIFT) - 1);
+            return outcome == ResultLogWriter.OUTCOME_PASSED;
+        }
+
+        // NONE when a response arrived
+        public RequestError getError() {
+            return RequestError.fromOrdinal(buffer.getInt(base + 44) >>> ResultLogWriter.ERROR_SHIFT);
+        }
+
+        public long getResponseMicros() {
+            return buffer.getLong(base + 8);
+        }
+
+        public long getCorrectedMicros() {
+            return buffer.getLong(base + 16);
+        }
+
+        public long getResponseBytes() {
+            return buffer.getLong(base + 24);
+        }
+
+        public long getRequestBytes() {
+            return buffer.getLong(base + 48);
+        }
+
+        // The phase timings are -1 when not measured
+        public long getConnectMicros() {
+            return buffer.getInt(base + 56);
+        }
+
+        public long getTlsHandshakeMicros() {
+            return buffer.getInt(base + 60);
+        }
+
+        public long getFirstByteMicros() {
+            return buffer.getInt(base + 64);
+        }
+
+        public long getLastByteMicros() {
+            return buffer.getInt(base + 68);
+        }
+    }
+
+    private static final int RECORDS_PER_READ = 4096;
+
+    private final Path path;
+    private final long testStartTime;
+    private final String configuration;
+    private final long dataOffset;
+
+    public ResultLogReader(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(20);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.remaining() < 20 || header.getInt() != ResultLogWriter.MAGIC) {
+                throw new IOException("Not a result log: " + path);
+            }
+            int version = header.getInt();
+            if (version != ResultLogWriter.VERSION) {
+                throw new IOException("Unsupported result log version " + version + ": " + path);
+            }
+            this.testStartTime = header.getLong();
+            int configurationLength = header.getInt();
+
+            ByteBuffer configurationBytes = ByteBuffer.allocate(configurationLength);
+            readFully(channel, configurationBytes, 20);
+            if (configurationBytes.hasRemaining()) {
+                throw new IOException("Truncated result log header: " + path);
+            }
+            this.configuration = new String(configurationBytes.array(), StandardCharsets.UTF_8);
+            this.dataOffset = (20 + configurationLength + 7) & ~7L;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return;
+            }
+            position += read;
+        }
+    }
+
+    // epoch milliseconds
+    public long getTestStartTime() {
+        return testStartTime;
+    }
+
+    // The "Test Configuration" section of the run that wrote the log
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    // Streams every complete record to the handler and returns how many there were
+    public long forEach(RecordHandler handler) throws IOException {
+        long records = 0;
+        Record record = new Record();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORDS_PER_READ * ResultLogWriter.RECORD_SIZE);
+            long position = dataOffset;
+            while (true) {
+                buffer.clear();
+                readFully(channel, buffer, position);
+                buffer.flip();
+                int available = buffer.remaining() / ResultLogWriter.RECORD_SIZE;
+                for (int i = 0; i < available; i++) {
+                    int base = i * ResultLogWriter.RECORD_SIZE;
+                    if (buffer.getInt(base + 40) != ResultLogWriter.RECORD_MARKER) {
+                        return records;
+                    }
+                    record.moveTo(buffer, base);
+                    handler.onRecord(record);
+                    records++;
+                }
+                if (available < RECORDS_PER_READ) {
+                    return records;
+                }
+                position += (long) available * ResultLogWriter.RECORD_SIZE;
+            }
+        }
+    }
+
+    // Aggregates the log into the same result a live run produces, minus the per-request table
+    public LoadTestResult rebuildResult() throws IOException {
+        LatencyHistogram responseTimes = new LatencyHistogram();
+        LatencyHistogram correctedResponseTimes = new LatencyHistogram();
+        SortedMap<Integer, Long> completedPerSecond = new TreeMap<>();
+        TransferStats transferStats = new TransferStats();
+        ErrorBreakdown errorBreakdown = new ErrorBreakdown();
+        long[] counts = new long[3]; // successful, failed, last completion (us)
+        long total = forEach(record -> {
+            counts[record.isPassed() ? 0 : 1]++;
+            counts[2] = Math.max(counts[2], record.getCompletedMicros());
+            responseTimes.recordValue(record.getResponseMicros());
+            correctedResponseTimes.recordValue(record.getCorrectedMicros());
+            completedPerSecond.merge((int) (record.getCompletedMicros() / 1_000_000), 1L, Long::sum);
+            transferStats.record(record.getRequestBytes(), record.getResponseBytes(), record.getConnectMicros(),
+                    record.getTlsHandshakeMicros(), record.getFirstByteMicros(), record.getLastByteMicros());
+            errorBreakdown.record(record.getError(), record.getStatusCode(), record.getResponseMicros());
+        });
+        return new LoadTestResult(testStartTime, counts[2] / 1000, total, counts[0], counts[1],
+                responseTimes, correctedResponseTimes, completedPerSecond, new ResultColumns(0), new TreeMap<>(),
+                transferStats, errorBreakdown);
+    }
+
+    public void writeDetailedReport(Path reportPath, long duration) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            writer.write("Detailed Report:\n");
+            writer.write("Test Start Time: " + new java.util.Date(testStartTime) + "\n\n");
+            forEach(record -> {
+                int statusCode = record.getStatusCode();
+                writer.write("Time: +" + LoadTest.formatMillis(record.getCompletedMicros() / 1000) + " s"
+                        + " (intended +" + LoadTest.formatMillis(record.getIntendedStartMicros() / 1000) + " s"
+                        + ", sent +" + LoadTest.formatMillis(record.getSentMicros() / 1000) + " s)"
+                        + " | User: " + record.getUser()
+                        + " | Response Code: " + (statusCode == 0 ? "failed (" + record.getError().getDescription() + ")"
+                                : String.valueOf(statusCode))
+                        + (statusCode != 0 && !record.isPassed() ? " (assertion failed)" : "")
+                        + " | Response Time: " + LoadTest.formatMillis(record.getResponseMicros()) + " ms"
+                        + " | Corrected Response Time: " + LoadTest.formatMillis(record.getCorrectedMicros()) + " ms"
+                        + " | Bytes Sent: " + record.getRequestBytes()
+                        + " | Bytes Received: " + record.getResponseBytes()
+                        + formatPhase(" | Connect: ", record.getConnectMicros())
+                        + formatPhase(" | TLS: ", record.getTlsHandshakeMicros())
+                        + formatPhase(" | First Byte: ", record.getFirstByteMicros())
+                        + formatPhase(" | Last Byte: ", record.getLastByteMicros()) + "\n");
+            });
+            writer.write("\nTest End Time: " + new java.util.Date(testStartTime + duration) + "\n");
+            writer.write("Test Duration: " + String.format("%.2f", duration / 1000.0) + " seconds\n");
+        }
+    }
+
+    private static String formatPhase(String label, long micros) {
+        return micros < 0 ? "" : label + LoadTest.formatMillis(micros) + " ms";
+    }
+
+    // Engine, pool and arrival statistics are not in the log, so the rebuilt summary leaves them out
+    public void writeSummaryReport(Path reportPath, LoadTestResult result) throws IOException {
+        StringBuilder report = new StringBuilder();
+        report.append("Load Test Summary Report\n");
+        report.append("=======================\n\n");
+        report.append(configuration);
+        LoadTest.appendResultSections(report, result);
+        report.append("Rebuilt from result log: ").append(path).append("\n");
+        Files.write(reportPath, report.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Usage: ResultLogReader <results.bin> [output directory]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ResultLogReader <results.bin> [output directory]");
+            return;
+        }
+        Path logPath = Paths.get(args[0]);
+        Path outputDirectory = args.length > 1 ? Paths.get(args[1]) : logPath.toAbsolutePath().getParent();
+        Files.createDirectories(outputDirectory);
+
+        ResultLogReader reader = new ResultLogReader(logPath);
+        LoadTestResult result = reader.rebuildResult();
+        reader.writeSummaryReport(outputDirectory.resolve("summary_report.txt"), result);
+        reader.writeDetailedReport(outputDirectory.resolve("detailed_report.txt"), result.getDuration());
+        System.out.println("Rebuilt reports for " + result.getTotalRequests() + " requests in: " + outputDirectory);
+    }
+}
@@ -0,0 +1,157 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Append-only binary log of every completed request, written through memory-mapped segments.
+// Records land in the OS page cache as soon as they are written, so a crash of the JVM loses
+// nothing; a flusher thread forces them to disk periodically.
+//
+// Layout: int magic, int version, long test start time (epoch ms), int length + UTF-8 test
+// configuration text, then fixed-size records starting at a multiple of 8:
+//   0 long completion time (us since test start)   8 long response time (us)
+//  16 long corrected response time (us)          24 long response bytes
+//  32 int user                                    36 int status code (0 = no response)
+//  40 int record marker, written last            44 int outcome (1 = passed, 2 = failed) |
+//                                                        RequestError ordinal << 8
+//  48 long request bytes                          56 int connect time (us, -1 = not measured)
+//  60 int TLS handshake time (us, -1)             64 int time to first byte (us, -1)
+//  68 int time to last byte (us, -1)
+public final class ResultLogWriter implements Closeable {
+    static final int MAGIC = 0x4C54524C; // "LTRL"
+    static final int VERSION = 1;
+    static final int RECORD_SIZE = 72;
+    static final int RECORD_MARKER = 0x52454331; // "REC1"
+    static final int OUTCOME_PASSED = 1;
+    static final int OUTCOME_FAILED = 2;
+    static final int ERROR_SHIFT = 8;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final long SEGMENT_BYTES = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long dataOffset;
+    private final AtomicLong nextRecord = new AtomicLong(0);
+    private final ScheduledExecutorService flusher;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile boolean failed = false;
+
+    public ResultLogWriter(Path path, long testStartTime, String configuration, long flushIntervalMillis) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        byte[] configurationBytes = configuration.getBytes(StandardCharsets.UTF_8);
+        int headerLength = 4 + 4 + 8 + 4 + configurationBytes.length;
+        this.dataOffset = (headerLength + 7) & ~7L;
+        ByteBuffer header = ByteBuffer.allocate((int) dataOffset);
+        header.putInt(MAGIC).putInt(VERSION).putLong(testStartTime)
+                .putInt(configurationBytes.length).put(configurationBytes);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "result-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Safe to call from any number of threads: each record gets its own slot
+    public void append(long completedMicros, int user, int statusCode, boolean success, long responseMicros,
+                       long correctedMicros, ResponseDetails details) {
+        if (failed) {
+            return;
+        }
+        long record = nextRecord.getAndIncrement();
+        MappedByteBuffer segment;
+        try {
+            segment = segment((int) (record / RECORDS_PER_SEGMENT));
+        } catch (IOException e) {
+            failed = true;
+            System.err.println("Failed to save result log: " + e.getMessage());
+            return;
+        }
+        int base = (int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        segment.putLong(base, completedMicros);
+        segment.putLong(base + 8, responseMicros);
+        segment.putLong(base + 16, correctedMicros);
+        segment.putLong(base + 24, details.getResponseBytes());
+        segment.putInt(base + 32, user);
+        segment.putInt(base + 36, statusCode);
+        segment.putInt(base + 44, (success ? OUTCOME_PASSED : OUTCOME_FAILED) | details.getError().ordinal() << ERROR_SHIFT);
+        segment.putLong(base + 48, details.getRequestBytes());
+        segment.putInt(base + 56, clampMicros(ResponseDetails.micros(details.getConnectNanos())));
+        segment.putInt(base + 60, clampMicros(ResponseDetails.micros(details.getTlsHandshakeNanos())));
+        segment.putInt(base + 64, clampMicros(ResponseDetails.micros(details.getFirstByteNanos())));
+        segment.putInt(base + 68, clampMicros(ResponseDetails.micros(details.getLastByteNanos())));
+        segment.putInt(base + 40, RECORD_MARKER);
+    }
+
+    // Phases longer than the int range (about 35 minutes) are logged at that range
+    private static int clampMicros(long micros) {
+        return (int) Math.min(micros, Integer.MAX_VALUE);
+    }
+
+    private MappedByteBuffer segment(int index) throws IOException {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = segments;
+            if (index >= current.length) {
+                MappedByteBuffer[] grown = new MappedByteBuffer[Math.max(index + 1, current.length * 2)];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            if (current[index] == null) {
+                // Mapping past the end of the file grows it
+                current[index] = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset + index * SEGMENT_BYTES, SEGMENT_BYTES);
+            }
+            segments = current;
+            return current[index];
+        }
+    }
+
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getRecordCount() {
+        return nextRecord.get();
+    }
+
+    // Call once every request has been recorded
+    @Override
+    public void close() throws IOException {
+        flusher.shutdownNow();
+        flush();
+        try {
+            // Drop the unused tail of the last segment; readers stop at the first unwritten record anyway
+            channel.truncate(dataOffset + nextRecord.get() * RECORD_SIZE);
+        } catch (IOException e) {
+            // Some platforms refuse to truncate a file that is still mapped
+        }
+        channel.close();
+    }
+}
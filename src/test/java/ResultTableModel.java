@@ -0,0 +1,206 @@
+import javax.swing.table.AbstractTableModel;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+// Table over ResultColumns: cells are formatted on demand, so JTable only touches the rows it
+// paints. Sorting and filtering build an index of row numbers instead of copying the data.
+public class ResultTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public enum StatusFilter {
+        ALL,
+        SUCCESS,
+        ERRORS
+    }
+
+    // Requests by the class of their status code, or the ones that got no response at all
+    public enum StatusClass {
+        ALL(-1),
+        NO_RESPONSE(0),
+        INFORMATIONAL(1),
+        SUCCESSFUL(2),
+        REDIRECTION(3),
+        CLIENT_ERROR(4),
+        SERVER_ERROR(5);
+
+        // First digit of the status code, 0 for no response
+        private final int firstDigit;
+
+        StatusClass(int firstDigit) {
+            this.firstDigit = firstDigit;
+        }
+
+        boolean matches(int statusCode) {
+            return firstDigit < 0 || statusCode / 100 == firstDigit;
+        }
+    }
+
+    public static final int SEQUENCE_COLUMN = 0;
+    public static final int STATUS_COLUMN = 1;
+    public static final int RESPONSE_TIME_COLUMN = 2;
+    public static final int COMPLETED_AT_COLUMN = 3;
+    private static final String[] COLUMN_NAMES = {"#", "Status", "Response Time (ms)", "Completed At"};
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+    // Sort keys share a long with the row number, which needs the low 31 bits
+    private static final long MAX_SORT_KEY = (1L << 32) - 1;
+
+    private transient ResultColumns columns = new ResultColumns(0);
+    // View row to model row; null shows every row in completion order
+    private int[] viewRows;
+    private int sortColumn = SEQUENCE_COLUMN;
+    private boolean ascending = true;
+    private StatusFilter statusFilter = StatusFilter.ALL;
+    private StatusClass statusClass = StatusClass.ALL;
+    private long minResponseMicros = 0;
+    private long maxResponseMicros = Long.MAX_VALUE;
+
+    public void setColumns(ResultColumns columns) {
+        this.columns = columns;
+        refresh();
+    }
+
+    public ResultColumns getColumns() {
+        return columns;
+    }
+
+    public void setFilter(StatusFilter statusFilter, StatusClass statusClass, long minResponseMicros,
+                          long maxResponseMicros) {
+        this.statusFilter = statusFilter;
+        this.statusClass = statusClass;
+        this.minResponseMicros = minResponseMicros;
+        this.maxResponseMicros = maxResponseMicros;
+        refresh();
+    }
+
+    // Sorting the same column again reverses the order
+    public void toggleSort(int column) {
+        if (column == sortColumn) {
+            ascending = !ascending;
+        } else {
+            sortColumn = column;
+            ascending = true;
+        }
+        refresh();
+    }
+
+    private void refresh() {
+        int size = columns.size();
+        boolean filtered = statusFilter != StatusFilter.ALL || statusClass != StatusClass.ALL || minResponseMicros > 0
+                || maxResponseMicros != Long.MAX_VALUE;
+        if (!filtered && sortColumn == SEQUENCE_COLUMN && ascending) {
+            viewRows = null;
+            fireTableDataChanged();
+            return;
+        }
+
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (matches(row)) {
+                rows[count++] = row;
+            }
+        }
+        if (sortColumn != SEQUENCE_COLUMN) {
+            sortByColumn(rows, count);
+        }
+        if (!ascending) {
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                int row = rows[i];
+                rows[i] = rows[j];
+                rows[j] = row;
+            }
+        }
+        viewRows = count == size ? rows : Arrays.copyOf(rows, count);
+        fireTableDataChanged();
+    }
+
+    private boolean matches(int row) {
+        boolean passed = columns.isPassed(row);
+        switch (statusFilter) {
+            case SUCCESS:
+                if (!passed) {
+                    return false;
+                }
+                break;
+            case ERRORS:
+                if (passed) {
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+        if (!statusClass.matches(columns.getStatusCode(row))) {
+            return false;
+        }
+        long responseMicros = columns.getResponseMicros(row);
+        return responseMicros >= minResponseMicros && responseMicros <= maxResponseMicros;
+    }
+
+    // Packs key and row number into one long and sorts primitives: no boxing, ties stay in row order
+    private void sortByColumn(int[] rows, int count) {
+        long baseTime = Long.MAX_VALUE;
+        if (sortColumn == COMPLETED_AT_COLUMN) {
+            for (int i = 0; i < count; i++) {
+                baseTime = Math.min(baseTime, columns.getCompletedAt(rows[i]));
+            }
+        }
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            long key;
+            switch (sortColumn) {
+                case STATUS_COLUMN:
+                    key = columns.getStatusCode(row);
+                    break;
+                case COMPLETED_AT_COLUMN:
+                    key = columns.getCompletedAt(row) - baseTime;
+                    break;
+                default:
+                    key = columns.getResponseMicros(row);
+                    break;
+            }
+            keys[i] = (Math.min(Math.max(key, 0), MAX_SORT_KEY) << 31) | row;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            rows[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return viewRows == null ? columns.size() : viewRows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int row = viewRows == null ? rowIndex : viewRows[rowIndex];
+        switch (columnIndex) {
+            case SEQUENCE_COLUMN:
+                return String.valueOf(row + 1);
+            case STATUS_COLUMN:
+                int statusCode = columns.getStatusCode(row);
+                return statusCode == 0 ? "failed" : String.valueOf(statusCode);
+            case RESPONSE_TIME_COLUMN:
+                return LoadTest.formatMillis(columns.getResponseMicros(row));
+            case COMPLETED_AT_COLUMN:
+                return TIME_FORMAT.format(Instant.ofEpochMilli(columns.getCompletedAt(row)));
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+// When a run stops sending and how long it waits for what is still in flight. A run sends until
+// its workload is done, its duration or request limit is reached, or it is stopped; the first of
+// these decides the outcome. It then drains: requests in flight get until the drain deadline to
+// finish, after which they are abandoned. Aborting ends the drain at once. Pacing waits park and
+// re-check the volatile state, so users never queue on a shared lock between requests; the waits
+// for the run to end are on a ReentrantLock condition rather than a monitor, so virtual threads do
+// not pin their carrier.
+public class RunLifecycle {
+    // A wait re-checks the limits, and a pacing wait whether the run was stopped, at least this often
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    public enum Outcome {
+        COMPLETED("Completed"),
+        DURATION_LIMIT("Duration limit reached"),
+        REQUEST_LIMIT("Request limit reached"),
+        SCENARIO_EXHAUSTED("Scenario exhausted"),
+        STOPPED("Stopped by user"),
+        ABORTED("Aborted by user");
+
+        private final String description;
+
+        Outcome(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final long maxDurationNanos;
+    private final long maxRequests;
+    private final long drainTimeoutNanos;
+    private final AtomicReference<Outcome> outcome = new AtomicReference<>();
+    private final AtomicLong requestsStarted = new AtomicLong();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private volatile long startNanos;
+    private volatile boolean begun;
+    private volatile long drainDeadlineNanos;
+    private volatile boolean aborted;
+    private volatile boolean closed;
+    private volatile int abandoned;
+
+    // 0 for no duration or request limit
+    public RunLifecycle(long maxDurationMillis, long maxRequests, long drainTimeoutMillis) {
+        this.maxDurationNanos = TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+        this.maxRequests = maxRequests;
+        this.drainTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+    }
+
+    // The duration limit counts from here; before, the run can only be stopped
+    public void begin(long startNanos) {
+        this.startNanos = startNanos;
+        this.begun = true;
+        // Stopped while the run was being set up: the drain starts with the run, not before it
+        if (outcome.get() != null && !aborted) {
+            drainDeadlineNanos = startNanos + drainTimeoutNanos;
+        }
+    }
+
+    // False once the run has stopped sending; ends it when the duration limit has passed
+    public boolean isSending() {
+        if (outcome.get() != null) {
+            return false;
+        }
+        if (begun && maxDurationNanos > 0 && System.nanoTime() - startNanos >= maxDurationNanos) {
+            finishSending(Outcome.DURATION_LIMIT);
+            return false;
+        }
+        return true;
+    }
+
+    // Claims the next request of the run; false, and the run stops sending, once the request
+    // limit is used up
+    public boolean tryStartRequest() {
+        if (!isSending()) {
+            return false;
+        }
+        if (maxRequests > 0 && requestsStarted.incrementAndGet() > maxRequests) {
+            finishSending(Outcome.REQUEST_LIMIT);
+            return false;
+        }
+        return true;
+    }
+
+    // Stops sending and starts the drain; the first outcome stays, later calls change nothing
+    public void finishSending(Outcome reason) {
+        if (outcome.compareAndSet(null, reason)) {
+            drainDeadlineNanos = System.nanoTime() + (reason == Outcome.ABORTED ? 0 : drainTimeoutNanos);
+            signal();
+        }
+    }
+
+    // Stops sending if the run still is, and ends the drain now
+    public void abort() {
+        aborted = true;
+        finishSending(Outcome.ABORTED);
+        drainDeadlineNanos = System.nanoTime();
+        signal();
+    }
+
+    // True once abort() was called, also when the run had already stopped sending for another reason
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    // How the run ended, COMPLETED while it has not
+    public Outcome getOutcome() {
+        Outcome current = outcome.get();
+        return current != null ? current : Outcome.COMPLETED;
+    }
+
+    // Sleeps until the given System.nanoTime(), waking within POLL_NANOS when the run stops
+    // sending; returns whether it is still sending
+    public boolean sleepUntil(long wakeNanos) {
+        long remaining;
+        while (isSending() && (remaining = wakeNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(Math.min(remaining, sendingLimitNanos()));
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return isSending();
+    }
+
+    public void workerStarted() {
+        activeWorkers.incrementAndGet();
+    }
+
+    public void workerFinished() {
+        if (activeWorkers.decrementAndGet() == 0) {
+            signal();
+        }
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+
+    // Blocks until every worker has finished or the drain is over; returns the workers abandoned
+    public int awaitWorkers() {
+        lock.lock();
+        try {
+            while (activeWorkers.get() > 0 && isSending()) {
+                changed.awaitNanos(sendingLimitNanos());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        return awaitDrain(activeWorkers::get);
+    }
+
+    // Blocks until inFlight is 0 or the drain deadline has passed; returns what was still in
+    // flight, which is then counted as abandoned
+    public int awaitDrain(IntSupplier inFlight) {
+        finishSending(Outcome.COMPLETED);
+        lock.lock();
+        try {
+            long remaining;
+            while (inFlight.getAsInt() > 0 && (remaining = drainDeadlineNanos - System.nanoTime()) > 0) {
+                // In-flight counts that are not workers do not signal, so poll
+                changed.awaitNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        int left = inFlight.getAsInt();
+        abandoned += left;
+        return left;
+    }
+
+    // Time left in the drain, 0 once it is over
+    public long remainingDrainNanos() {
+        if (outcome.get() == null) {
+            return drainTimeoutNanos;
+        }
+        return Math.max(0, drainDeadlineNanos - System.nanoTime());
+    }
+
+    // Requests abandoned at the end of the drain
+    public int getAbandoned() {
+        return abandoned;
+    }
+
+    // After this, results of abandoned requests that still come back are not recorded, so the
+    // reports being written no longer change
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // How long a sending wait may block before the duration limit has to be checked again
+    private long sendingLimitNanos() {
+        if (!begun || maxDurationNanos <= 0) {
+            return POLL_NANOS;
+        }
+        return Math.max(1, Math.min(POLL_NANOS, startNanos + maxDurationNanos - System.nanoTime()));
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+// Finds the highest arrival rate the target sustains within an SLO. Every step offers one rate in
+// the open model for a fixed time and is judged on the interval stats the progress thread
+// publishes; a step that has clearly broken the SLO ends early. STEP adds a fixed increment per
+// step and EXPONENTIAL doubles the rate, both stopping at the first failure; BINARY doubles until
+// a step fails and then bisects between the last rate that passed and the first that failed.
+public class SaturationSearch {
+    // The first quarter of every step lets queues and the connection pool settle and is not judged
+    private static final int WARM_UP_DIVISOR = 4;
+    // A step is not judged early on fewer measured requests than this
+    private static final long MIN_REQUESTS_TO_JUDGE = 50;
+    // More dropped arrivals than this share of the offered ones means the in-flight cap was hit
+    private static final double MAX_DROPPED_SHARE = 0.01;
+    // Bisection stops once the bracket is narrower than this share of the rate that passed
+    private static final double PRECISION = 0.05;
+    private static final int MAX_STEPS = 30;
+
+    public enum Mode {
+        STEP,
+        EXPONENTIAL,
+        BINARY
+    }
+
+    // One offered rate and what came of it; filled in from the progress thread while it runs
+    public static final class Step {
+        private final int number;
+        private final double offeredRate;
+        private final long measureFromNanos;
+        private final LongSupplier droppedSoFar;
+        private long droppedBeforeMeasuring = -1;
+        private final LatencyHistogram responseTimes = new LatencyHistogram();
+        private long requests;
+        private long errors;
+        private long dispatchingRequests;
+        private long dispatchingMillis;
+        private long dropped;
+        private boolean dispatching = true;
+        private boolean stoppedEarly;
+        private volatile boolean broken;
+        private String verdict;
+
+        private Step(int number, double offeredRate, long measureFromNanos, LongSupplier droppedSoFar) {
+            this.number = number;
+            this.offeredRate = offeredRate;
+            this.measureFromNanos = measureFromNanos;
+            this.droppedSoFar = droppedSoFar;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public double getOfferedRate() {
+            return offeredRate;
+        }
+
+        // Completions per second over the measured intervals while the step was dispatching
+        public synchronized double getAchievedRate() {
+            return dispatchingMillis == 0 ? 0 : dispatchingRequests * 1000.0 / dispatchingMillis;
+        }
+
+        public synchronized long getRequests() {
+            return requests;
+        }
+
+        public synchronized long getErrors() {
+            return errors;
+        }
+
+        public synchronized double getErrorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        // microseconds, measured part of the step only
+        public synchronized LatencyHistogram getResponseTimes() {
+            return responseTimes.copy();
+        }
+
+        // Arrivals dropped at the in-flight cap after the warm-up
+        public long getDropped() {
+            return dropped;
+        }
+
+        public boolean isStoppedEarly() {
+            return stoppedEarly;
+        }
+
+        // True once enough of the step has been measured to tell that it broke the SLO
+        public boolean isBroken() {
+            return broken;
+        }
+
+        public boolean isPassed() {
+            return verdict == null;
+        }
+
+        // Why the step failed, null when it passed
+        public String getVerdict() {
+            return verdict;
+        }
+    }
+
+    private final Mode mode;
+    private final double startRate;
+    private final double maxRate;
+    private final double stepIncrement;
+    private final long stepMillis;
+    private final long maxP99Micros;
+    private final double maxErrorRate;
+    private final List<Step> steps = new ArrayList<>();
+    private volatile Step current;
+    private double passedRate;
+    private double failedRate;
+
+    // stepIncrement is only used by STEP; maxErrorRate is a share, 0..1
+    public SaturationSearch(Mode mode, double startRate, double maxRate, double stepIncrement, long stepMillis,
+                            long maxP99Millis, double maxErrorRate) {
+        if (startRate <= 0 || maxRate < startRate) {
+            throw new IllegalArgumentException("Saturation search needs 0 < start rate <= max rate: " + startRate + ", " + maxRate);
+        }
+        if (mode == Mode.STEP && stepIncrement <= 0) {
+            throw new IllegalArgumentException("Saturation search step increment must be positive: " + stepIncrement);
+        }
+        this.mode = mode;
+        this.startRate = startRate;
+        this.maxRate = maxRate;
+        this.stepIncrement = stepIncrement;
+        this.stepMillis = stepMillis;
+        this.maxP99Micros = maxP99Millis * 1000;
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    // The rate of the first step, for a fresh search
+    public double start() {
+        steps.clear();
+        current = null;
+        passedRate = 0;
+        failedRate = 0;
+        return startRate;
+    }
+
+    // droppedSoFar counts the arrivals the step's scheduler has dropped
+    public Step beginStep(double rate, LongSupplier droppedSoFar) {
+        Step step = new Step(steps.size() + 1, rate, System.nanoTime() + stepMillis * 1_000_000L / WARM_UP_DIVISOR,
+                droppedSoFar);
+        steps.add(step);
+        current = step;
+        return step;
+    }
+
+    // Called from the progress thread; intervals that end inside the warm-up are left out
+    public void onIntervalStats(IntervalStats stats) {
+        Step step = current;
+        if (step == null || System.nanoTime() < step.measureFromNanos) {
+            return;
+        }
+        synchronized (step) {
+            if (step.droppedBeforeMeasuring < 0) {
+                step.droppedBeforeMeasuring = step.droppedSoFar.getAsLong();
+            }
+            step.requests += stats.getRequests();
+            step.errors += stats.getErrors();
+            step.responseTimes.add(stats.getResponseTimes());
+            if (step.dispatching) {
+                step.dispatchingRequests += stats.getRequests();
+                step.dispatchingMillis += stats.getIntervalMillis();
+            }
+            if (step.requests >= MIN_REQUESTS_TO_JUDGE && failure(step) != null) {
+                step.broken = true;
+            }
+        }
+    }
+
+    // The step has sent its last request; what still completes counts for latency and errors only
+    public void endDispatching(boolean stoppedEarly) {
+        Step step = current;
+        synchronized (step) {
+            step.dispatching = false;
+            step.dropped = step.droppedSoFar.getAsLong() - Math.max(0, step.droppedBeforeMeasuring);
+            step.stoppedEarly = stoppedEarly;
+        }
+    }
+
+    // Judges the running step and returns the rate of the next one, 0 once the search is done
+    public double endStep() {
+        Step step = current;
+        current = null;
+        synchronized (step) {
+            step.verdict = failure(step);
+            if (step.verdict == null && step.requests == 0) {
+                step.verdict = "no responses after the warm-up";
+            } else if (step.verdict == null && step.dropped > step.offeredRate * stepMillis / 1000 * MAX_DROPPED_SHARE) {
+                step.verdict = "in-flight cap reached, " + step.dropped + " arrivals dropped";
+            }
+        }
+        if (step.isPassed()) {
+            passedRate = Math.max(passedRate, step.offeredRate);
+        } else {
+            failedRate = failedRate == 0 ? step.offeredRate : Math.min(failedRate, step.offeredRate);
+        }
+        if (steps.size() >= MAX_STEPS) {
+            return 0;
+        }
+
+        double next;
+        switch (mode) {
+            case STEP:
+                next = step.isPassed() ? step.offeredRate + stepIncrement : 0;
+                break;
+            case EXPONENTIAL:
+                next = step.isPassed() ? step.offeredRate * 2 : 0;
+                break;
+            default:
+                if (failedRate == 0) {
+                    next = step.offeredRate * 2;
+                } else if (failedRate - passedRate <= Math.max(passedRate * PRECISION, 1)) {
+                    next = 0;
+                } else {
+                    next = (passedRate + failedRate) / 2;
+                }
+                break;
+        }
+        if (next > maxRate) {
+            // One last step at the ceiling, unless it has already been tried
+            next = step.offeredRate < maxRate && (failedRate == 0 || failedRate > maxRate) ? maxRate : 0;
+        }
+        return next;
+    }
+
+    // What broke the SLO, null while it holds
+    private String failure(Step step) {
+        long p99 = step.responseTimes.getValueAtPercentile(99);
+        if (step.requests > 0 && p99 > maxP99Micros) {
+            return String.format("p99 %.1f ms over %d ms", p99 / 1000.0, maxP99Micros / 1000);
+        }
+        if (step.requests > 0 && (double) step.errors / step.requests > maxErrorRate) {
+            return String.format("errors %.2f %% over %.2f %%", (double) step.errors / step.requests * 100,
+                    maxErrorRate * 100);
+        }
+        return null;
+    }
+
+    // The highest offered rate that passed, 0 when none did
+    public double getMaxSustainableRate() {
+        return passedRate;
+    }
+
+    // The lowest offered rate that failed, 0 when none did
+    public double getFirstFailingRate() {
+        return failedRate;
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public long getStepMillis() {
+        return stepMillis;
+    }
+
+    public String describe() {
+        String search;
+        switch (mode) {
+            case STEP:
+                search = String.format("step +%.1f requests/s", stepIncrement);
+                break;
+            case EXPONENTIAL:
+                search = "exponential";
+                break;
+            default:
+                search = "binary";
+                break;
+        }
+        return String.format("%s from %.1f to at most %.1f requests/s, %.1f s per step", search, startRate, maxRate,
+                stepMillis / 1000.0);
+    }
+
+    public String describeSlo() {
+        return String.format("p99 <= %d ms, errors <= %.2f %%", maxP99Micros / 1000, maxErrorRate * 100);
+    }
+
+    // One line per step for the progress log
+    public static String describe(Step step) {
+        LatencyHistogram times = step.getResponseTimes();
+        return String.format("Step %d: offered %.1f requests/s, achieved %.1f, p50 %s, p99 %s, errors %.2f %% - %s%s",
+                step.getNumber(), step.getOfferedRate(), step.getAchievedRate(),
+                LoadTest.formatLatency(times.getValueAtPercentile(50)), LoadTest.formatLatency(times.getValueAtPercentile(99)),
+                step.getErrorRate() * 100, step.isPassed() ? "passed" : "failed: " + step.getVerdict(),
+                step.isStoppedEarly() ? " (stopped early)" : "");
+    }
+
+    // The throughput/latency curve and the result, written as capacity_report.txt
+    public String buildReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Capacity Report\n");
+        report.append("===============\n\n");
+        report.append("Search: ").append(describe()).append("\n");
+        report.append("SLO: ").append(describeSlo()).append(", the first ").append(100 / WARM_UP_DIVISOR)
+                .append(" % of every step not judged\n\n");
+        report.append("Throughput / Latency (ms):\n");
+        report.append("--------------------------\n");
+        report.append(String.format("%5s %12s %12s %10s %9s %10s %10s %10s %10s  %s%n", "Step", "Offered/s",
+                "Achieved/s", "Requests", "Errors %", "p50", "p90", "p99", "max", "Verdict"));
+        for (Step step : steps) {
+            LatencyHistogram times = step.getResponseTimes();
+            report.append(String.format("%5d %12.1f %12.1f %10d %9.2f %10.2f %10.2f %10.2f %10.2f  %s%n",
+                    step.getNumber(), step.getOfferedRate(), step.getAchievedRate(), step.getRequests(),
+                    step.getErrorRate() * 100, times.getValueAtPercentile(50) / 1000.0,
+                    times.getValueAtPercentile(90) / 1000.0, times.getValueAtPercentile(99) / 1000.0,
+                    times.getMax() / 1000.0, (step.isPassed() ? "passed" : "failed: " + step.getVerdict())
+                            + (step.isStoppedEarly() ? " (stopped early)" : "")));
+        }
+        report.append("\n");
+        report.append("Max Sustainable Rate: ").append(passedRate > 0 ? String.format("%.1f requests/s", passedRate)
+                : "none, the SLO broke at the first step").append("\n");
+        report.append("First Failing Rate: ").append(failedRate > 0 ? String.format("%.1f requests/s", failedRate)
+                : "none up to " + String.format("%.1f", maxRate) + " requests/s").append("\n");
+        return report.toString();
+    }
+
+    // The same curve as CSV, for plotting
+    public String buildCurveCsv() {
+        StringBuilder csv = new StringBuilder("step,offered_rps,achieved_rps,requests,errors,p50_ms,p90_ms,p99_ms,max_ms,passed\n");
+        for (Step step : steps) {
+            LatencyHistogram times = step.getResponseTimes();
+            csv.append(String.format(Locale.ROOT, "%d,%.2f,%.2f,%d,%d,%.3f,%.3f,%.3f,%.3f,%b%n",
+                    step.getNumber(), step.getOfferedRate(), step.getAchievedRate(), step.getRequests(),
+                    step.getErrors(), times.getValueAtPercentile(50) / 1000.0, times.getValueAtPercentile(90) / 1000.0,
+                    times.getValueAtPercentile(99) / 1000.0, times.getMax() / 1000.0, step.isPassed()));
+        }
+        return csv.toString();
+    }
+}
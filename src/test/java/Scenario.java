@@ -0,0 +1,12 @@
+import java.io.Closeable;
+
+// Picks the request each virtual user sends next
+public interface Scenario extends Closeable {
+    // null once the scenario has nothing left to send
+    RequestTemplate next(int userIndex);
+
+    String getDescription();
+
+    @Override
+    void close();
+}
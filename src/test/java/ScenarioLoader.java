@@ -0,0 +1,109 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads a scenario file: one JSON request per line, e.g.
+//   {"name": "login", "method": "POST", "url": "https://host/login",
+//    "headers": {"Content-Type": "application/json"}, "body": "{...}", "weight": 2}
+// Only url is required; method defaults to GET and weight to 1. Blank lines and lines starting
+// with # are ignored. The file is read line by line and never loaded as a whole. URL, header
+// values and body may use ${...} variables from the test's data feeders.
+public final class ScenarioLoader {
+    public enum Mode {
+        WEIGHTED,
+        SEQUENTIAL,
+        STREAM
+    }
+
+    private ScenarioLoader() {
+    }
+
+    public static Scenario open(Path file, Mode mode, int users, String authHeader,
+                                TemplateVariables variables) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        if (mode == Mode.STREAM) {
+            return new StreamingScenario(file.getFileName().toString(), reader, authHeader, variables);
+        }
+
+        List<RequestTemplate> templates = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        try (reader) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (isSkippable(line)) {
+                    continue;
+                }
+                JSONObject spec = parseLine(line, lineNumber);
+                templates.add(parseTemplate(spec, lineNumber, authHeader, true, variables));
+                double weight = spec.optDouble("weight", 1);
+                if (weight < 0 || Double.isNaN(weight)) {
+                    throw new IllegalArgumentException("Scenario line " + lineNumber + ": weight must not be negative");
+                }
+                weights.add(weight);
+            }
+        }
+        return mode == Mode.WEIGHTED
+                ? new WeightedScenario(templates, weights)
+                : new SequentialScenario(templates, users);
+    }
+
+    static boolean isSkippable(String line) {
+        String trimmed = line.trim();
+        return trimmed.isEmpty() || trimmed.startsWith("#");
+    }
+
+    static JSONObject parseLine(String line, long lineNumber) {
+        try {
+            return new JSONObject(line);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Scenario line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    // variables: compiled into the template when given. Without any variables defined, a body that
+    // happens to contain "${" is sent as it is.
+    static RequestTemplate parseTemplate(JSONObject spec, long lineNumber, String authHeader, boolean reusable,
+                                         TemplateVariables variables) {
+        try {
+            String url = spec.optString("url", "");
+            if (url.isEmpty()) {
+                throw new IllegalArgumentException("missing url");
+            }
+
+            // Headers may be an object or "Key: Value" lines like the GUI's headers text
+            String headers;
+            JSONObject headerObject = spec.optJSONObject("headers");
+            if (headerObject != null) {
+                StringBuilder headerLines = new StringBuilder();
+                for (String name : headerObject.keySet()) {
+                    headerLines.append(name).append(": ").append(headerObject.optString(name)).append("\n");
+                }
+                headers = headerLines.toString();
+            } else {
+                headers = spec.optString("headers", "");
+            }
+
+            // A JSON body may be given inline instead of as an escaped string
+            Object body = spec.opt("body");
+            String bodyText = body == null || body == JSONObject.NULL ? "" : body.toString();
+
+            RequestTemplate template = RequestTemplate.compile(url, spec.optString("method", "GET").toUpperCase(),
+                    headers, bodyText, authHeader, spec.optString("name", null), reusable);
+            if (variables == null || (variables.isEmpty() && template.getUri() != null)) {
+                return template;
+            }
+            return template.withVariables(variables);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Scenario line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Each virtual user walks the requests in file order and starts over at the end
+public class SequentialScenario implements Scenario {
+    private final RequestTemplate[] templates;
+    private final AtomicLongArray cursors;
+
+    public SequentialScenario(List<RequestTemplate> templates, int users) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("Scenario has no requests");
+        }
+        this.templates = templates.toArray(new RequestTemplate[0]);
+        this.cursors = new AtomicLongArray(Math.max(1, users));
+    }
+
+    @Override
+    public RequestTemplate next(int userIndex) {
+        long position = cursors.getAndIncrement(userIndex % cursors.length());
+        return templates[(int) (position % templates.length)];
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sequential walk of " + templates.length + " requests per user";
+    }
+
+    @Override
+    public void close() {
+    }
+}
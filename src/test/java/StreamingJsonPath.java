@@ -0,0 +1,504 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Finds the first value at a simple JSONPath while the body streams past, one byte at a time,
+// without building a document. Objects and arrays off the path are skipped by only counting
+// brackets, so most of a large body is passed over in a tight loop. Supported paths are $, .name, ['name'], .*, [n] and [*], e.g.
+//   $.data.items[0].id    $.errors[*].code    $['content-type']
+// String values are captured unescaped and other scalars as their JSON text; objects and arrays
+// are captured as raw JSON, up to MAX_CAPTURE bytes.
+public class StreamingJsonPath implements ResponseCheck.BodyProbe {
+    static final int MAX_CAPTURE = 64 * 1024;
+
+    // Compiled path: per step a key, or an array index with -1 standing for any key or index
+    public static final class Path {
+        private final String text;
+        private final byte[][] keys;
+        private final int[] indexes;
+
+        private Path(String text, byte[][] keys, int[] indexes) {
+            this.text = text;
+            this.keys = keys;
+            this.indexes = indexes;
+        }
+
+        public static Path compile(String text) {
+            String path = text.trim();
+            if (!path.startsWith("$")) {
+                throw new IllegalArgumentException("JSON path must start with $: " + text);
+            }
+            List<byte[]> keys = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+            int position = 1;
+            while (position < path.length()) {
+                char c = path.charAt(position);
+                if (c == '.') {
+                    int end = position + 1;
+                    while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                        end++;
+                    }
+                    String name = path.substring(position + 1, end);
+                    if (name.isEmpty()) {
+                        throw new IllegalArgumentException("Empty name in JSON path: " + text);
+                    }
+                    keys.add(name.equals("*") ? null : name.getBytes(StandardCharsets.UTF_8));
+                    indexes.add(name.equals("*") ? -1 : 0);
+                    position = end;
+                } else if (c == '[') {
+                    int close = path.indexOf(']', position);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Missing ] in JSON path: " + text);
+                    }
+                    String selector = path.substring(position + 1, close).trim();
+                    if (selector.length() >= 2 && (selector.startsWith("'") && selector.endsWith("'")
+                            || selector.startsWith("\"") && selector.endsWith("\""))) {
+                        keys.add(selector.substring(1, selector.length() - 1).getBytes(StandardCharsets.UTF_8));
+                        indexes.add(0);
+                    } else if (selector.equals("*")) {
+                        keys.add(null);
+                        indexes.add(-1);
+                    } else {
+                        try {
+                            keys.add(null);
+                            indexes.add(Integer.parseInt(selector));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Bad selector [" + selector + "] in JSON path: " + text);
+                        }
+                    }
+                    position = close + 1;
+                } else {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' in JSON path: " + text);
+                }
+            }
+            int[] indexArray = new int[indexes.size()];
+            for (int i = 0; i < indexArray.length; i++) {
+                indexArray[i] = indexes.get(i);
+            }
+            return new Path(path, keys.toArray(new byte[0][]), indexArray);
+        }
+
+        int length() {
+            return keys.length;
+        }
+
+        boolean isWildcard(int step) {
+            return indexes[step] < 0;
+        }
+
+        boolean matchesKey(int step, byte[] key, int keyLength) {
+            byte[] expected = keys[step];
+            return expected != null && Arrays.equals(expected, 0, expected.length, key, 0, keyLength);
+        }
+
+        boolean matchesIndex(int step, int index) {
+            return keys[step] == null && (indexes[step] < 0 || indexes[step] == index);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private static final int VALUE = 0;
+    private static final int OBJECT_START = 1;
+    private static final int KEY = 2;
+    private static final int COLON = 3;
+    private static final int ARRAY_START = 4;
+    private static final int AFTER_VALUE = 5;
+    private static final int STRING = 6;
+    private static final int STRING_ESCAPE = 7;
+    private static final int STRING_UNICODE = 8;
+    private static final int LITERAL = 9;
+    private static final int END = 10;
+
+    private static final int CAPTURE_NONE = 0;
+    private static final int CAPTURE_STRING = 1;
+    private static final int CAPTURE_LITERAL = 2;
+    private static final int CAPTURE_RAW = 3;
+
+    private final Path path;
+    // Open containers, '{' or '[', and the index of the current element in each array
+    private byte[] containers = new byte[16];
+    private int[] indexes = new int[16];
+    private int depth;
+    // How many of the outermost containers have their current child on the path
+    private int matched;
+    private int state = VALUE;
+    private boolean inKey;
+    private boolean recordingKey;
+    private int captureMode = CAPTURE_NONE;
+    private int captureDepth;
+    // The key being compared, or the value being captured
+    private byte[] text = new byte[64];
+    private int textLength;
+    private int unicode;
+    private int unicodeDigits;
+    private int highSurrogate;
+    // Nesting inside a skipped object or array, 0 when not skipping
+    private int skipNesting;
+    private boolean skipInString;
+    private boolean skipEscape;
+    private boolean done;
+    private byte[] value;
+
+    public StreamingJsonPath(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void feed(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && !done) {
+            if (skipNesting > 0) {
+                i = skip(bytes, i, end);
+            } else if (state == STRING && captureMode != CAPTURE_RAW && !isRecordingString()) {
+                // The string is not being looked at, only its end matters
+                while (i < end && bytes[i] != '"' && bytes[i] != '\\') {
+                    i++;
+                }
+                if (i < end) {
+                    step(bytes[i++]);
+                }
+            } else {
+                byte b = bytes[i++];
+                if (captureMode == CAPTURE_RAW) {
+                    append(b);
+                }
+                step(b);
+            }
+        }
+    }
+
+    // Passes over a skipped object or array and returns where to go on from
+    private int skip(byte[] bytes, int i, int end) {
+        while (i < end) {
+            byte b = bytes[i++];
+            if (skipInString) {
+                if (skipEscape) {
+                    skipEscape = false;
+                } else if (b == '\\') {
+                    skipEscape = true;
+                } else if (b == '"') {
+                    skipInString = false;
+                }
+            } else if (b == '"') {
+                skipInString = true;
+            } else if (b == '{' || b == '[') {
+                skipNesting++;
+            } else if ((b == '}' || b == ']') && --skipNesting == 0) {
+                state = depth == 0 ? END : AFTER_VALUE;
+                return i;
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public void finish() {
+        // A scalar at the very end of the body has nothing after it to end it
+        if (state == LITERAL && captureMode == CAPTURE_LITERAL) {
+            completeCapture();
+        }
+        done = true;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public boolean isFound() {
+        return value != null;
+    }
+
+    @Override
+    public byte[] getValue() {
+        return value;
+    }
+
+    @Override
+    public void reset() {
+        depth = 0;
+        matched = 0;
+        state = VALUE;
+        inKey = false;
+        recordingKey = false;
+        captureMode = CAPTURE_NONE;
+        captureDepth = 0;
+        textLength = 0;
+        unicode = 0;
+        unicodeDigits = 0;
+        highSurrogate = 0;
+        skipNesting = 0;
+        skipInString = false;
+        skipEscape = false;
+        done = false;
+        value = null;
+    }
+
+    private void step(byte b) {
+        switch (state) {
+            case VALUE:
+                if (!isWhitespace(b)) {
+                    startValue(b);
+                }
+                break;
+            case ARRAY_START:
+                if (b == ']') {
+                    pop();
+                } else if (!isWhitespace(b)) {
+                    startValue(b);
+                }
+                break;
+            case OBJECT_START:
+            case KEY:
+                if (b == '"') {
+                    startKey();
+                } else if (b == '}' && state == OBJECT_START) {
+                    pop();
+                } else if (!isWhitespace(b)) {
+                    done = true;
+                }
+                break;
+            case COLON:
+                if (b == ':') {
+                    state = VALUE;
+                } else if (!isWhitespace(b)) {
+                    done = true;
+                }
+                break;
+            case AFTER_VALUE:
+                if (b == ',') {
+                    int level = depth - 1;
+                    if (containers[level] == '{') {
+                        state = KEY;
+                    } else {
+                        indexes[level]++;
+                        state = VALUE;
+                    }
+                } else if (b == '}' || b == ']') {
+                    pop();
+                } else if (!isWhitespace(b)) {
+                    done = true;
+                }
+                break;
+            case STRING:
+                if (b == '"') {
+                    endString();
+                } else if (b == '\\') {
+                    state = STRING_ESCAPE;
+                } else if (isRecordingString()) {
+                    append(b);
+                }
+                break;
+            case STRING_ESCAPE:
+                state = STRING;
+                if (b == 'u') {
+                    unicode = 0;
+                    unicodeDigits = 0;
+                    state = STRING_UNICODE;
+                } else if (isRecordingString()) {
+                    append(unescape(b));
+                }
+                break;
+            case STRING_UNICODE:
+                unicode = unicode << 4 | Character.digit(b, 16);
+                if (++unicodeDigits == 4) {
+                    state = STRING;
+                    if (isRecordingString()) {
+                        appendCodeUnit(unicode);
+                    }
+                }
+                break;
+            case LITERAL:
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                    if (captureMode == CAPTURE_LITERAL) {
+                        completeCapture();
+                    }
+                    state = depth == 0 ? END : AFTER_VALUE;
+                    step(b);
+                } else if (captureMode == CAPTURE_LITERAL) {
+                    append(b);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void startValue(byte b) {
+        int level = depth - 1;
+        if (level >= 0 && containers[level] == '[') {
+            // The element's index is its selector on the path
+            matched = Math.min(matched, level);
+            if (matched == level && level < path.length() && path.matchesIndex(level, indexes[level])) {
+                matched = level + 1;
+            }
+        }
+        boolean target = captureMode == CAPTURE_NONE && matched == depth && depth == path.length();
+        switch (b) {
+            case '{':
+            case '[':
+                if (!target && captureMode == CAPTURE_NONE && (matched < depth || depth >= path.length())) {
+                    // Nothing inside can be on the path
+                    skipNesting = 1;
+                    skipInString = false;
+                    skipEscape = false;
+                    break;
+                }
+                if (target) {
+                    beginCapture(CAPTURE_RAW);
+                    append(b);
+                }
+                push(b);
+                state = b == '{' ? OBJECT_START : ARRAY_START;
+                break;
+            case '"':
+                if (target) {
+                    beginCapture(CAPTURE_STRING);
+                }
+                inKey = false;
+                state = STRING;
+                break;
+            default:
+                if (target) {
+                    beginCapture(CAPTURE_LITERAL);
+                    append(b);
+                }
+                state = LITERAL;
+                break;
+        }
+    }
+
+    private void startKey() {
+        int level = depth - 1;
+        matched = Math.min(matched, level);
+        recordingKey = false;
+        if (matched == level && level < path.length()) {
+            if (path.isWildcard(level)) {
+                matched = level + 1;
+            } else {
+                recordingKey = true;
+                textLength = 0;
+            }
+        }
+        inKey = true;
+        state = STRING;
+    }
+
+    private void endString() {
+        if (inKey) {
+            if (recordingKey && path.matchesKey(depth - 1, text, textLength)) {
+                matched = depth;
+            }
+            recordingKey = false;
+            inKey = false;
+            state = COLON;
+            return;
+        }
+        if (captureMode == CAPTURE_STRING) {
+            completeCapture();
+        }
+        state = depth == 0 ? END : AFTER_VALUE;
+    }
+
+    private boolean isRecordingString() {
+        return inKey ? recordingKey : captureMode == CAPTURE_STRING;
+    }
+
+    private void push(byte container) {
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+            indexes = Arrays.copyOf(indexes, depth * 2);
+        }
+        containers[depth] = container;
+        indexes[depth] = 0;
+        depth++;
+    }
+
+    private void pop() {
+        depth--;
+        matched = Math.min(matched, depth);
+        if (captureMode == CAPTURE_RAW && depth == captureDepth) {
+            completeCapture();
+        }
+        state = depth == 0 ? END : AFTER_VALUE;
+    }
+
+    private void beginCapture(int mode) {
+        captureMode = mode;
+        captureDepth = depth;
+        textLength = 0;
+        highSurrogate = 0;
+    }
+
+    private void completeCapture() {
+        value = Arrays.copyOf(text, textLength);
+        captureMode = CAPTURE_NONE;
+        done = true;
+    }
+
+    private void append(byte b) {
+        if (textLength == text.length) {
+            if (textLength >= MAX_CAPTURE) {
+                return;
+            }
+            text = Arrays.copyOf(text, Math.min(textLength * 2, MAX_CAPTURE));
+        }
+        text[textLength++] = b;
+    }
+
+    private static byte unescape(byte b) {
+        switch (b) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            default:
+                return b; // \" \\ \/
+        }
+    }
+
+    // Unicode escapes as UTF-8, joining surrogate pairs
+    private void appendCodeUnit(int codeUnit) {
+        if (Character.isHighSurrogate((char) codeUnit)) {
+            highSurrogate = codeUnit;
+            return;
+        }
+        int codePoint = codeUnit;
+        if (Character.isLowSurrogate((char) codeUnit) && highSurrogate != 0) {
+            codePoint = Character.toCodePoint((char) highSurrogate, (char) codeUnit);
+        }
+        highSurrogate = 0;
+        if (codePoint < 0x80) {
+            append((byte) codePoint);
+        } else if (codePoint < 0x800) {
+            append((byte) (0xC0 | codePoint >> 6));
+            append((byte) (0x80 | codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            append((byte) (0xE0 | codePoint >> 12));
+            append((byte) (0x80 | codePoint >> 6 & 0x3F));
+            append((byte) (0x80 | codePoint & 0x3F));
+        } else {
+            append((byte) (0xF0 | codePoint >> 18));
+            append((byte) (0x80 | codePoint >> 12 & 0x3F));
+            append((byte) (0x80 | codePoint >> 6 & 0x3F));
+            append((byte) (0x80 | codePoint & 0x3F));
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
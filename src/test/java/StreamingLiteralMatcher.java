@@ -0,0 +1,106 @@
+import java.nio.charset.StandardCharsets;
+
+// Looks for fixed text in a streamed body by comparing UTF-8 bytes, so nothing is decoded and a
+// match may span any number of reads. Knuth-Morris-Pratt: each body byte is looked at once.
+public class StreamingLiteralMatcher implements ResponseCheck.BodyProbe {
+    // The text as UTF-8 and its KMP failure table, built once per rule
+    public static final class Needle {
+        private final byte[] bytes;
+        private final int[] fallback;
+
+        private Needle(byte[] bytes) {
+            this.bytes = bytes;
+            this.fallback = new int[bytes.length];
+            for (int i = 1, k = 0; i < bytes.length; i++) {
+                while (k > 0 && bytes[i] != bytes[k]) {
+                    k = fallback[k - 1];
+                }
+                if (bytes[i] == bytes[k]) {
+                    k++;
+                }
+                fallback[i] = k;
+            }
+        }
+
+        public static Needle compile(String text) {
+            return new Needle(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private final Needle needle;
+    // Bytes of the needle matched so far
+    private int matched;
+    private boolean done;
+    private boolean found;
+
+    public StreamingLiteralMatcher(Needle needle) {
+        this.needle = needle;
+        if (needle.bytes.length == 0) {
+            found = true;
+            done = true;
+        }
+    }
+
+    @Override
+    public void feed(byte[] bytes, int offset, int length) {
+        if (done) {
+            return;
+        }
+        byte[] target = needle.bytes;
+        int[] fallback = needle.fallback;
+        byte first = target[0];
+        int k = matched;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = bytes[i];
+            if (k == 0) {
+                // Fast scan for the first byte
+                while (b != first && ++i < end) {
+                    b = bytes[i];
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+            while (k > 0 && b != target[k]) {
+                k = fallback[k - 1];
+            }
+            if (b == target[k]) {
+                k++;
+                if (k == target.length) {
+                    found = true;
+                    done = true;
+                    return;
+                }
+            }
+        }
+        matched = k;
+    }
+
+    @Override
+    public void finish() {
+        done = true;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public boolean isFound() {
+        return found;
+    }
+
+    @Override
+    public byte[] getValue() {
+        return found ? needle.bytes : null;
+    }
+
+    @Override
+    public void reset() {
+        matched = 0;
+        found = needle.bytes.length == 0;
+        done = found;
+    }
+}
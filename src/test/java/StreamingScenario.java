@@ -0,0 +1,92 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sends the file's requests once, in file order, shared by all users. A reader thread parses
+// ahead into a bounded queue, so files of any size are read with constant memory.
+public class StreamingScenario implements Scenario {
+    private static final int PREFETCH = 1024;
+
+    private final String fileName;
+    private final BufferedReader reader;
+    private final String authHeader;
+    private final TemplateVariables variables;
+    private final BlockingQueue<RequestTemplate> queue = new ArrayBlockingQueue<>(PREFETCH);
+    private final AtomicLong skippedLines = new AtomicLong(0);
+    private final Thread readerThread;
+    private volatile boolean readerDone = false;
+    private volatile boolean closed = false;
+
+    public StreamingScenario(String fileName, BufferedReader reader, String authHeader, TemplateVariables variables) {
+        this.fileName = fileName;
+        this.reader = reader;
+        this.authHeader = authHeader;
+        this.variables = variables;
+        this.readerThread = new Thread(this::readAhead, "scenario-reader");
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    private void readAhead() {
+        try {
+            String line;
+            long lineNumber = 0;
+            while (!closed && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (ScenarioLoader.isSkippable(line)) {
+                    continue;
+                }
+                try {
+                    // Each line is sent once, so engines should not cache what they build from it
+                    queue.put(ScenarioLoader.parseTemplate(ScenarioLoader.parseLine(line, lineNumber),
+                            lineNumber, authHeader, false, variables));
+                } catch (IllegalArgumentException e) {
+                    skippedLines.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read scenario " + fileName + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            readerDone = true;
+        }
+    }
+
+    @Override
+    public RequestTemplate next(int userIndex) {
+        try {
+            while (true) {
+                // Check before polling: once the reader is done, an empty queue stays empty
+                boolean done = readerDone;
+                RequestTemplate template = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (template != null || done || closed) {
+                    return template;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Streamed once in file order from " + fileName
+                + (skippedLines.get() > 0 ? " (" + skippedLines.get() + " invalid lines skipped)" : "");
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        readerThread.interrupt();
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // nothing left to read anyway
+        }
+    }
+}
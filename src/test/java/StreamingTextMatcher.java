@@ -0,0 +1,130 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Searches a streamed UTF-8 body for a regular expression through a sliding window of WINDOW
+// characters: when the window fills up, all but the last OVERLAP characters are dropped. A match
+// therefore has to fit in OVERLAP characters, but the body is never held in memory as a whole.
+// The captured value is group 1 if the pattern has groups, otherwise the whole match.
+public class StreamingTextMatcher implements ResponseCheck.BodyProbe {
+    static final int WINDOW = 8192;
+    static final int OVERLAP = 4096;
+
+    private final Pattern pattern;
+    private CharsetDecoder decoder;
+    private ByteBuffer input;
+    private CharBuffer window;
+    private Matcher matcher;
+    private boolean done;
+    private byte[] value;
+
+    public StreamingTextMatcher(Pattern pattern) {
+        this.pattern = pattern;
+    }
+
+    @Override
+    public void feed(byte[] bytes, int offset, int length) {
+        if (done) {
+            return;
+        }
+        if (decoder == null) {
+            // Allocated on the first body bytes, so bodiless responses cost nothing
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            input = ByteBuffer.allocate(4096);
+            window = CharBuffer.allocate(WINDOW);
+            matcher = pattern.matcher("");
+        }
+        int position = offset;
+        int end = offset + length;
+        while (position < end && !done) {
+            int count = Math.min(input.remaining(), end - position);
+            input.put(bytes, position, count);
+            position += count;
+            input.flip();
+            // Bytes of a character split across reads stay in the input buffer for the next round
+            while (decoder.decode(input, window, false) == CoderResult.OVERFLOW && !done) {
+                search(false);
+                slide();
+            }
+            input.compact();
+        }
+        if (!done) {
+            search(false);
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (!done && decoder != null) {
+            input.flip();
+            while (decoder.decode(input, window, true) == CoderResult.OVERFLOW && !done) {
+                search(false);
+                slide();
+            }
+            while (decoder.flush(window) == CoderResult.OVERFLOW && !done) {
+                search(false);
+                slide();
+            }
+            if (!done) {
+                search(true);
+            }
+        } else if (!done && pattern.matcher("").find()) {
+            // An empty body still matches a pattern that matches nothing
+            value = new byte[0];
+        }
+        done = true;
+    }
+
+    // Before the end of the body, a match that touched the end of the window could still grow
+    // or change with more input, so it only counts once the matcher did not need to look further
+    private void search(boolean endOfBody) {
+        window.flip();
+        matcher.reset(window);
+        if (matcher.find() && (endOfBody || !matcher.hitEnd())) {
+            String match = matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+            value = match == null ? new byte[0] : match.getBytes(StandardCharsets.UTF_8);
+            done = true;
+        }
+        window.position(window.limit());
+        window.limit(window.capacity());
+    }
+
+    private void slide() {
+        window.flip();
+        window.position(Math.max(0, window.limit() - OVERLAP));
+        window.compact();
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public boolean isFound() {
+        return value != null;
+    }
+
+    @Override
+    public byte[] getValue() {
+        return value;
+    }
+
+    @Override
+    public void reset() {
+        if (decoder != null) {
+            decoder.reset();
+            input.clear();
+            window.clear();
+        }
+        done = false;
+        value = null;
+    }
+}
@@ -0,0 +1,113 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Local HTTP target for benchmarks, calibration runs and tests against a target whose behaviour is
+// known: one virtual thread per exchange, answering as StubTargetSettings say
+public class StubTargetServer implements Closeable {
+    private static final byte[] OK_BODY = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR_BODY = "{\"status\":\"error\"}".getBytes(StandardCharsets.UTF_8);
+    private static final String PADDING_PREFIX = "{\"status\":\"ok\",\"padding\":\"";
+
+    static {
+        // Headers and body go out as separate small writes; with Nagle on, the body waits for the
+        // client's delayed ACK and every request takes about 40 ms. Read once, when the first server starts.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final StubTargetSettings settings;
+    private final byte[] responseBody;
+
+    // Every request gets a 200 after a fixed latency
+    public StubTargetServer(int port, long latencyMillis) throws IOException {
+        this(port, new StubTargetSettings(latencyMillis, latencyMillis, OK_BODY.length, 0));
+    }
+
+    public StubTargetServer(int port, StubTargetSettings settings) throws IOException {
+        this.settings = settings;
+        this.responseBody = responseBody(settings.getResponseBytes());
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 4096);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public StubTargetSettings getSettings() {
+        return settings;
+    }
+
+    // Valid JSON of exactly the given size where there is room for it, else the ok body cut short
+    private static byte[] responseBody(int size) {
+        if (size <= OK_BODY.length) {
+            return Arrays.copyOf(OK_BODY, size);
+        }
+        byte[] body = new byte[size];
+        if (size < PADDING_PREFIX.length() + 2) {
+            // Trailing whitespace after the JSON value
+            Arrays.fill(body, (byte) ' ');
+            System.arraycopy(OK_BODY, 0, body, 0, OK_BODY.length);
+            return body;
+        }
+        Arrays.fill(body, (byte) 'x');
+        byte[] prefix = PADDING_PREFIX.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        body[size - 2] = '"';
+        body[size - 1] = '}';
+        return body;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // Drain the request body so the connection can be kept alive
+            try (InputStream requestBody = exchange.getRequestBody()) {
+                requestBody.transferTo(OutputStream.nullOutputStream());
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long latencyMillis = settings.getMinLatencyMillis();
+            if (settings.getMaxLatencyMillis() > latencyMillis) {
+                latencyMillis = random.nextLong(latencyMillis, settings.getMaxLatencyMillis() + 1);
+            }
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            boolean error = settings.getErrorRate() > 0 && random.nextDouble() < settings.getErrorRate();
+            byte[] body = error ? ERROR_BODY : responseBody;
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            // A length of -1 tells the server there is no body at all
+            exchange.sendResponseHeaders(error ? 500 : 200, body.length == 0 ? -1 : body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,54 @@
+// How the embedded stub target answers: after a latency drawn evenly between the minimum and the
+// maximum (equal for a fixed latency), with a body of the given size, and with a 500 for the given
+// share of requests
+public class StubTargetSettings {
+    private final long minLatencyMillis;
+    private final long maxLatencyMillis;
+    private final int responseBytes;
+    // 0 to 1
+    private final double errorRate;
+
+    public StubTargetSettings(long minLatencyMillis, long maxLatencyMillis, int responseBytes, double errorRate) {
+        if (minLatencyMillis < 0 || maxLatencyMillis < minLatencyMillis) {
+            throw new IllegalArgumentException("Invalid stub latency: " + minLatencyMillis + "-" + maxLatencyMillis + " ms");
+        }
+        if (responseBytes < 0) {
+            throw new IllegalArgumentException("Invalid stub response size: " + responseBytes);
+        }
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Invalid stub error rate: " + errorRate);
+        }
+        this.minLatencyMillis = minLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.responseBytes = responseBytes;
+        this.errorRate = errorRate;
+    }
+
+    // No latency, a small JSON body and no errors: as fast as the stub can answer
+    public static StubTargetSettings defaults() {
+        return new StubTargetSettings(0, 0, 15, 0);
+    }
+
+    public long getMinLatencyMillis() {
+        return minLatencyMillis;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    public int getResponseBytes() {
+        return responseBytes;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public String getDescription() {
+        String latency = minLatencyMillis == maxLatencyMillis ? minLatencyMillis + " ms"
+                : minLatencyMillis + "-" + maxLatencyMillis + " ms";
+        return "latency " + latency + ", " + responseBytes + " byte responses, "
+                + String.format("%.2f", errorRate * 100) + " % errors";
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// The names ${...} placeholders can refer to and where their values come from. Every name gets a
+// slot number when it is registered, so templates compiled against these variables look values
+// up by index instead of by name. Besides data file columns there are user variables, which
+// hold one value per user and are filled in by response extractors.
+public class TemplateVariables {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+    private final List<DataFeeder> feeders = new ArrayList<>();
+    // Per slot: which feeder and which of its columns holds the value, or -1 and the index of
+    // the user variable
+    private int[] slotFeeders = new int[0];
+    private int[] slotColumns = new int[0];
+    private int users = 1;
+    private int userVariableCount;
+    // users x user variables, null until a value has been extracted
+    private AtomicReferenceArray<byte[]> userValues = new AtomicReferenceArray<>(0);
+
+    // Values for one request. Each feeder advances by one row the first time one of its
+    // columns is used, so every variable from the same feeder comes from the same row. User
+    // variables are read once, so a value extracted meanwhile cannot change between length and copy.
+    public class Bindings {
+        private int userIndex;
+        // Row picked from each feeder, -1 until one of its columns is used
+        private final int[] rows = new int[feeders.size()];
+        private byte[][] userSnapshot;
+
+        Bindings(int userIndex) {
+            this.userIndex = userIndex;
+            Arrays.fill(rows, -1);
+        }
+
+        private Bindings reset(int userIndex) {
+            this.userIndex = userIndex;
+            Arrays.fill(rows, -1);
+            if (userSnapshot != null && userSnapshot.length == userVariableCount) {
+                Arrays.fill(userSnapshot, null);
+            } else {
+                userSnapshot = null;
+            }
+            return this;
+        }
+
+        private boolean belongsTo(TemplateVariables variables) {
+            return TemplateVariables.this == variables;
+        }
+
+        private int row(int slot) {
+            int feeder = slotFeeders[slot];
+            int row = rows[feeder];
+            if (row < 0) {
+                row = feeders.get(feeder).next(userIndex);
+                rows[feeder] = row;
+            }
+            return row;
+        }
+
+        private byte[] userValue(int slot) {
+            if (userSnapshot == null) {
+                userSnapshot = new byte[userVariableCount][];
+            }
+            int variable = slotColumns[slot];
+            byte[] value = userSnapshot[variable];
+            if (value == null) {
+                value = get(userIndex, slot);
+                userSnapshot[variable] = value;
+            }
+            return value;
+        }
+
+        public int length(int slot) {
+            if (slotFeeders[slot] < 0) {
+                return userValue(slot).length;
+            }
+            return feeders.get(slotFeeders[slot]).length(row(slot), slotColumns[slot]);
+        }
+
+        // Copies the value into target at offset and returns the offset after it
+        public int copy(int slot, byte[] target, int offset) {
+            if (slotFeeders[slot] < 0) {
+                byte[] value = userValue(slot);
+                System.arraycopy(value, 0, target, offset, value.length);
+                return offset + value.length;
+            }
+            return feeders.get(slotFeeders[slot]).copy(row(slot), slotColumns[slot], target, offset);
+        }
+    }
+
+    // Every column of the feeder becomes a variable of the same name
+    public void addFeeder(DataFeeder feeder) {
+        int feederIndex = feeders.size();
+        for (String column : feeder.getColumns()) {
+            if (slots.containsKey(column)) {
+                throw new IllegalArgumentException("Variable ${" + column + "} is defined twice, again in " + feeder.getPath());
+            }
+        }
+        feeders.add(feeder);
+        String[] columns = feeder.getColumns();
+        int firstSlot = slots.size();
+        slotFeeders = Arrays.copyOf(slotFeeders, firstSlot + columns.length);
+        slotColumns = Arrays.copyOf(slotColumns, firstSlot + columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            slots.put(columns[i], firstSlot + i);
+            slotFeeders[firstSlot + i] = feederIndex;
+            slotColumns[firstSlot + i] = i;
+        }
+    }
+
+    // A variable with a separate value for each of users users, empty until set. Register every
+    // user variable before the run starts; adding one clears the values of the others.
+    public void addUserVariable(String name, int users) {
+        if (slots.containsKey(name)) {
+            throw new IllegalArgumentException("Variable ${" + name + "} is defined twice");
+        }
+        int slot = slots.size();
+        slotFeeders = Arrays.copyOf(slotFeeders, slot + 1);
+        slotColumns = Arrays.copyOf(slotColumns, slot + 1);
+        slots.put(name, slot);
+        slotFeeders[slot] = -1;
+        slotColumns[slot] = userVariableCount++;
+        this.users = Math.max(1, users);
+        userValues = new AtomicReferenceArray<>(this.users * userVariableCount);
+    }
+
+    // Safe to call while requests are being sent
+    public void set(int userIndex, int slot, byte[] value) {
+        userValues.set(userValueIndex(userIndex, slot), value);
+    }
+
+    // The user variable's current value, empty when it has not been set
+    public byte[] get(int userIndex, int slot) {
+        byte[] value = userValues.get(userValueIndex(userIndex, slot));
+        return value == null ? EMPTY : value;
+    }
+
+    private int userValueIndex(int userIndex, int slot) {
+        if (slotFeeders[slot] >= 0) {
+            throw new IllegalArgumentException("Not a user variable: slot " + slot);
+        }
+        return userIndex % users * userVariableCount + slotColumns[slot];
+    }
+
+    // Slot of the variable, -1 when there is none by that name
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    public Iterable<String> getNames() {
+        return slots.keySet();
+    }
+
+    public List<DataFeeder> getFeeders() {
+        return feeders;
+    }
+
+    public Bindings bind(int userIndex) {
+        return new Bindings(userIndex);
+    }
+
+    // Like bind(), but previous, reset, instead of new bindings when it can be reused. Everything
+    // read from previous has to be used by then.
+    public Bindings rebind(Bindings previous, int userIndex) {
+        if (previous == null || !previous.belongsTo(this) || previous.rows.length != feeders.size()) {
+            // Never bound, or bound by other variables or before a feeder was added
+            return new Bindings(userIndex);
+        }
+        return previous.reset(userIndex);
+    }
+}
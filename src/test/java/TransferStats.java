@@ -0,0 +1,113 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bytes on the wire and how long each phase of a request took. Connect and TLS handshake times
+// only exist for requests that opened a new connection, and only the Apache engine can see them.
+// Every phase is measured from the start of the request, so first byte includes connect and TLS.
+public class TransferStats {
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LatencyHistogram connectTimes;
+    private final LatencyHistogram tlsHandshakeTimes;
+    private final LatencyHistogram firstByteTimes;
+    private final LatencyHistogram lastByteTimes;
+
+    public TransferStats() {
+        this(0, 0, new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram());
+    }
+
+    private TransferStats(long requestBytes, long responseBytes, LatencyHistogram connectTimes,
+                          LatencyHistogram tlsHandshakeTimes, LatencyHistogram firstByteTimes,
+                          LatencyHistogram lastByteTimes) {
+        this.requestBytes.add(requestBytes);
+        this.responseBytes.add(responseBytes);
+        this.connectTimes = connectTimes;
+        this.tlsHandshakeTimes = tlsHandshakeTimes;
+        this.firstByteTimes = firstByteTimes;
+        this.lastByteTimes = lastByteTimes;
+    }
+
+    // Timings below zero were not measured for this request and are left out
+    public void record(long sentBytes, long receivedBytes, long connectMicros, long tlsHandshakeMicros,
+                       long firstByteMicros, long lastByteMicros) {
+        requestBytes.add(sentBytes);
+        responseBytes.add(receivedBytes);
+        if (connectMicros >= 0) {
+            connectTimes.recordValue(connectMicros);
+        }
+        if (tlsHandshakeMicros >= 0) {
+            tlsHandshakeTimes.recordValue(tlsHandshakeMicros);
+        }
+        if (firstByteMicros >= 0) {
+            firstByteTimes.recordValue(firstByteMicros);
+        }
+        if (lastByteMicros >= 0) {
+            lastByteTimes.recordValue(lastByteMicros);
+        }
+    }
+
+    public void record(ResponseDetails details) {
+        record(details.getRequestBytes(), details.getResponseBytes(), ResponseDetails.micros(details.getConnectNanos()),
+                ResponseDetails.micros(details.getTlsHandshakeNanos()), ResponseDetails.micros(details.getFirstByteNanos()),
+                ResponseDetails.micros(details.getLastByteNanos()));
+    }
+
+    // Folds another process's counts into this one
+    public void add(TransferStats other) {
+        requestBytes.add(other.getRequestBytes());
+        responseBytes.add(other.getResponseBytes());
+        connectTimes.add(other.connectTimes);
+        tlsHandshakeTimes.add(other.tlsHandshakeTimes);
+        firstByteTimes.add(other.firstByteTimes);
+        lastByteTimes.add(other.lastByteTimes);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(getRequestBytes());
+        out.writeLong(getResponseBytes());
+        connectTimes.writeTo(out);
+        tlsHandshakeTimes.writeTo(out);
+        firstByteTimes.writeTo(out);
+        lastByteTimes.writeTo(out);
+    }
+
+    public static TransferStats readFrom(DataInput in) throws IOException {
+        return new TransferStats(in.readLong(), in.readLong(), LatencyHistogram.readFrom(in),
+                LatencyHistogram.readFrom(in), LatencyHistogram.readFrom(in), LatencyHistogram.readFrom(in));
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    // MB (10^6 bytes) per second over a run of the given length in milliseconds
+    public static double megabytesPerSecond(long bytes, long durationMillis) {
+        return durationMillis <= 0 ? 0 : bytes / 1_000_000.0 / (durationMillis / 1000.0);
+    }
+
+    // microseconds, new connections only
+    public LatencyHistogram getConnectTimes() {
+        return connectTimes;
+    }
+
+    // microseconds, new https connections only
+    public LatencyHistogram getTlsHandshakeTimes() {
+        return tlsHandshakeTimes;
+    }
+
+    // microseconds until the response headers arrived
+    public LatencyHistogram getFirstByteTimes() {
+        return firstByteTimes;
+    }
+
+    // microseconds until the whole body was read
+    public LatencyHistogram getLastByteTimes() {
+        return lastByteTimes;
+    }
+}
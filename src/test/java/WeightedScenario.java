@@ -0,0 +1,46 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Every request picks an endpoint at random, in proportion to its weight
+public class WeightedScenario implements Scenario {
+    private final RequestTemplate[] templates;
+    // Running total of the weights, searched with a binary search per request
+    private final double[] cumulativeWeights;
+    private final double totalWeight;
+
+    public WeightedScenario(List<RequestTemplate> templates, List<Double> weights) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("Scenario has no requests");
+        }
+        this.templates = templates.toArray(new RequestTemplate[0]);
+        this.cumulativeWeights = new double[this.templates.length];
+        double total = 0;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Scenario weights must add up to more than zero");
+        }
+        this.totalWeight = total;
+    }
+
+    @Override
+    public RequestTemplate next(int userIndex) {
+        double point = ThreadLocalRandom.current().nextDouble(totalWeight);
+        int index = Arrays.binarySearch(cumulativeWeights, point);
+        // Not found gives -(insertion point) - 1; the insertion point is the bucket the point falls in
+        index = index < 0 ? -index - 1 : index + 1;
+        return templates[Math.min(index, templates.length - 1)];
+    }
+
+    @Override
+    public String getDescription() {
+        return "Weighted mix of " + templates.length + " requests";
+    }
+
+    @Override
+    public void close() {
+    }
+}